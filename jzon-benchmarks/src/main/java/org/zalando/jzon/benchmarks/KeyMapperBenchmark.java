@@ -0,0 +1,73 @@
+package org.zalando.jzon.benchmarks;
+
+import static java.util.Collections.nCopies;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.service.KeyMapper;
+
+/**
+ * Measures mapping found values back to the requested keys with replacement keys given as Map, for a configuration
+ * sized number of replacement keys. Only the API of jzon 1.5.0 is used, so the results can be compared with that
+ * release; {@link KeyMappingBenchmark} measures the same with the replacement keys given as {@code KeyMapping}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyMapperBenchmark {
+
+    private static final int FOUND_KEYS = 20;
+
+    @Param({ "10", "500" })
+    private int replacementKeyCount;
+
+    private Map<String, String> replacementKeys;
+    private Map<String, Object[]> knownKeyValues;
+    private List<Map<String, Object>> groupedKnownKeyValues;
+
+    @Setup
+    public void setUp() {
+        replacementKeys = new HashMap<>();
+        for (int i = 0; i < replacementKeyCount; i++) {
+            replacementKeys.put("key_" + i, "replacement_" + i);
+        }
+
+        knownKeyValues = new HashMap<>();
+        final Map<String, Object> group = new HashMap<>();
+        for (int i = 0; i < FOUND_KEYS; i++) {
+            final String lookupKey = "replacement_" + (i * replacementKeyCount / FOUND_KEYS);
+            knownKeyValues.put(lookupKey, new Object[] { "value_" + i });
+            group.put(lookupKey, "value_" + i);
+        }
+
+        groupedKnownKeyValues = nCopies(FOUND_KEYS, group);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> mappedKnownValuesOfMap() {
+        return KeyMapper.mappedKnownValuesOf(replacementKeys, knownKeyValues);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mappedGroupedKnownValuesOfMap() {
+        return KeyMapper.mappedKnownValuesOf(replacementKeys, groupedKnownKeyValues);
+    }
+}
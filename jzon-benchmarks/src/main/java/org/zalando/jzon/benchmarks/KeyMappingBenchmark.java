@@ -0,0 +1,75 @@
+package org.zalando.jzon.benchmarks;
+
+import static java.util.Collections.nCopies;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.service.KeyMapper;
+import org.zalando.jzon.service.KeyMapping;
+
+/**
+ * Measures mapping found values back to the requested keys with replacement keys given as {@link KeyMapping}, the
+ * counterpart of {@link KeyMapperBenchmark}. Needs a jzon version with {@code KeyMapping}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyMappingBenchmark {
+
+    private static final int FOUND_KEYS = 20;
+
+    @Param({ "10", "500" })
+    private int replacementKeyCount;
+
+    private KeyMapping keyMapping;
+    private Map<String, Object[]> knownKeyValues;
+    private List<Map<String, Object>> groupedKnownKeyValues;
+
+    @Setup
+    public void setUp() {
+        final Map<String, String> replacementKeys = new HashMap<>();
+        for (int i = 0; i < replacementKeyCount; i++) {
+            replacementKeys.put("key_" + i, "replacement_" + i);
+        }
+
+        keyMapping = KeyMapping.of(replacementKeys);
+
+        knownKeyValues = new HashMap<>();
+        final Map<String, Object> group = new HashMap<>();
+        for (int i = 0; i < FOUND_KEYS; i++) {
+            final String lookupKey = "replacement_" + (i * replacementKeyCount / FOUND_KEYS);
+            knownKeyValues.put(lookupKey, new Object[] { "value_" + i });
+            group.put(lookupKey, "value_" + i);
+        }
+
+        groupedKnownKeyValues = nCopies(FOUND_KEYS, group);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> mappedKnownValuesOfKeyMapping() {
+        return KeyMapper.mappedKnownValuesOf(keyMapping, knownKeyValues);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mappedGroupedKnownValuesOfKeyMapping() {
+        return KeyMapper.mappedKnownValuesOf(keyMapping, groupedKnownKeyValues);
+    }
+}
@@ -0,0 +1,232 @@
+package org.zalando.jzon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+/**
+ * Generates the payloads the benchmarks run on. The payloads only depend on their shape and the seed, so every run of
+ * every version of jzon works on exactly the same documents.
+ */
+public final class PayloadCorpus {
+
+    public static final long SEED = 20190601L;
+
+    public static final String KEY_CUSTOMER_NUMBER = "customer_number";
+    public static final String KEY_CUSTOMER_EMAIL = "customer_email";
+    public static final String KEY_CUSTOMER_HASH = "customer_hash";
+    public static final String KEY_SIMPLE_SKU = "simple_sku";
+
+    private static final int FLAT_FIELDS = 200;
+    private static final int NESTED_DEPTH = 40;
+    private static final int NESTED_FIELDS_PER_LEVEL = 5;
+    private static final int ARRAY_ELEMENTS = 500;
+    private static final int FIELDS_PER_ELEMENT = 8;
+
+    /**
+     * The shapes of the generated payloads. All of them except {@link #NO_MATCH} contain the keys the benchmarks look
+     * for.
+     */
+    public enum Shape {
+
+        /**
+         * One object with the keys among many other scalar fields.
+         */
+        FLAT,
+
+        /**
+         * Objects nested in each other, with the keys on some of the levels.
+         */
+        DEEPLY_NESTED,
+
+        /**
+         * An array of objects each of which holds all the keys.
+         */
+        WIDE_ARRAY,
+
+        /**
+         * The keys only in their split form, e.g. {@code customer.number} for {@code customer_number}.
+         */
+        SPLIT_KEY,
+
+        /**
+         * A wide array of objects without any of the keys.
+         */
+        NO_MATCH
+    }
+
+    private PayloadCorpus() {
+        super();
+    }
+
+    /**
+     * @param   shape  the shape of the payload
+     * @param   seed   the seed of the random values
+     *
+     * @return  a new payload made of {@link Map Maps}, {@link List Lists}, {@link String Strings}, {@link Long Longs},
+     *          {@link Double Doubles} and {@link Boolean Booleans}
+     */
+    public static Map<String, Object> payloadOf(final Shape shape, final long seed) {
+        final Random random = new Random(seed);
+        switch (shape) {
+
+            case FLAT :
+                return flatPayload(random);
+
+            case DEEPLY_NESTED :
+                return nestedPayload(random);
+
+            case WIDE_ARRAY :
+                return arrayPayload(random, true);
+
+            case SPLIT_KEY :
+                return splitKeyPayload(random);
+
+            case NO_MATCH :
+                return arrayPayload(random, false);
+
+            default :
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    /**
+     * @param   payload  a payload of the corpus
+     *
+     * @return  a copy of the {@code payload} sharing only the scalar values with it
+     */
+    public static Map<String, Object> copyOf(final Map<String, Object> payload) {
+        final Map<String, Object> copy = new LinkedHashMap<>();
+        for (final Entry<String, Object> field : payload.entrySet()) {
+            copy.put(field.getKey(), copyOfValue(field.getValue()));
+        }
+
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyOfValue(final Object value) {
+        if (value instanceof Map) {
+            return copyOf((Map<String, Object>) value);
+        }
+
+        if (value instanceof List) {
+            final List<Object> copy = new ArrayList<>();
+            for (final Object element : (List<?>) value) {
+                copy.add(copyOfValue(element));
+            }
+
+            return copy;
+        }
+
+        return value;
+    }
+
+    private static Map<String, Object> flatPayload(final Random random) {
+        final Map<String, Object> payload = new LinkedHashMap<>();
+        addFillerFields(payload, random, FLAT_FIELDS / 2);
+        addCustomerFields(payload, random);
+        addFillerFields(payload, random, FLAT_FIELDS / 2);
+        return payload;
+    }
+
+    private static Map<String, Object> nestedPayload(final Random random) {
+        final Map<String, Object> payload = new LinkedHashMap<>();
+        Map<String, Object> level = payload;
+        for (int depth = 0; depth < NESTED_DEPTH; depth++) {
+            addFillerFields(level, random, NESTED_FIELDS_PER_LEVEL);
+            if (depth % 10 == 9) {
+                addCustomerFields(level, random);
+            }
+
+            final Map<String, Object> child = new LinkedHashMap<>();
+            level.put("level_" + depth, child);
+            level = child;
+        }
+
+        return payload;
+    }
+
+    private static Map<String, Object> arrayPayload(final Random random, final boolean withKeys) {
+        final List<Object> items = new ArrayList<>();
+        for (int i = 0; i < ARRAY_ELEMENTS; i++) {
+            final Map<String, Object> item = new LinkedHashMap<>();
+            if (withKeys) {
+                addCustomerFields(item, random);
+            }
+
+            addFillerFields(item, random, FIELDS_PER_ELEMENT);
+            items.add(item);
+        }
+
+        final Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("order_number", randomWord(random));
+        payload.put("order_items", items);
+        return payload;
+    }
+
+    private static Map<String, Object> splitKeyPayload(final Random random) {
+        final Map<String, Object> customer = new LinkedHashMap<>();
+        customer.put("number", randomWord(random));
+        customer.put("email", randomWord(random) + "@example.com");
+        customer.put("hash", randomWord(random));
+
+        final List<Object> items = new ArrayList<>();
+        for (int i = 0; i < ARRAY_ELEMENTS; i++) {
+            final Map<String, Object> simple = new LinkedHashMap<>();
+            simple.put("sku", randomWord(random));
+
+            final Map<String, Object> item = new LinkedHashMap<>();
+            item.put("simple", simple);
+            addFillerFields(item, random, FIELDS_PER_ELEMENT);
+            items.add(item);
+        }
+
+        final Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("customer", customer);
+        payload.put("order_items", items);
+        return payload;
+    }
+
+    private static void addCustomerFields(final Map<String, Object> object, final Random random) {
+        object.put(KEY_CUSTOMER_NUMBER, randomWord(random));
+        object.put(KEY_CUSTOMER_EMAIL, randomWord(random) + "@example.com");
+        object.put(KEY_CUSTOMER_HASH, randomWord(random));
+        object.put(KEY_SIMPLE_SKU, randomWord(random));
+    }
+
+    private static void addFillerFields(final Map<String, Object> object, final Random random, final int count) {
+        for (int i = 0; i < count; i++) {
+            object.put("field_" + object.size(), randomScalar(random));
+        }
+    }
+
+    private static Object randomScalar(final Random random) {
+        switch (random.nextInt(4)) {
+
+            case 0 :
+                return randomWord(random);
+
+            case 1 :
+                return random.nextLong();
+
+            case 2 :
+                return random.nextDouble();
+
+            default :
+                return random.nextBoolean();
+        }
+    }
+
+    private static String randomWord(final Random random) {
+        final char[] word = new char[8 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(word);
+    }
+}
@@ -0,0 +1,104 @@
+package org.zalando.jzon.benchmarks;
+
+import static java.util.Collections.emptyMap;
+
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_HASH;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_SIMPLE_SKU;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_PATH_LIST;
+
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.benchmarks.PayloadCorpus.Shape;
+import org.zalando.jzon.service.PayloadKeyModifier;
+import org.zalando.jzon.service.impl.PayloadKeyFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures {@link PayloadKeyModifier#removeKeysWithPaths(Set, Map)} for the paths of two of the keys of the corpus.
+ * The String benchmark includes reading the payload into a Map, which is what a caller holding a String has to do. As
+ * the paths are removed in place, the Map benchmark works on a new copy of the payload for every invocation; the cost
+ * of the copy alone is measured by {@link #copyMap()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadKeyModifierBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() { };
+
+    @Param
+    private Shape shape;
+
+    private ObjectMapper objectMapper;
+    private PayloadKeyModifier payloadKeyModifier;
+    private Map<String, Object> mapPayload;
+    private String stringPayload;
+    private Set<String> paths;
+
+    @Setup
+    public void setUp() throws IOException {
+        final PayloadKeyFactory payloadKeyFactory = new PayloadKeyFactory();
+        objectMapper = new ObjectMapper();
+        payloadKeyModifier = payloadKeyFactory.getPayloadKeyModifier();
+
+        mapPayload = PayloadCorpus.payloadOf(shape, PayloadCorpus.SEED);
+        stringPayload = objectMapper.writeValueAsString(mapPayload);
+        paths = new HashSet<>();
+        for (final Object[] keyPaths : payloadKeyFactory.getPayloadKeyParser(objectMapper).parse(
+                    new HashSet<>(Arrays.asList(KEY_CUSTOMER_HASH, KEY_SIMPLE_SKU)), emptyMap(), mapPayload,
+                    AS_PATH_LIST).values()) {
+            for (final Object path : keyPaths) {
+                paths.add((String) path);
+            }
+        }
+
+        if (paths.isEmpty()) {
+            paths.add("$['" + KEY_CUSTOMER_HASH + "']");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> removeKeysWithPathsFromString() throws IOException {
+        final Map<String, Object> payload = objectMapper.readValue(stringPayload, MAP_TYPE);
+        payloadKeyModifier.removeKeysWithPaths(paths, payload);
+        return payload;
+    }
+
+    @Benchmark
+    public Map<String, Object> removeKeysWithPathsFromMap() {
+        final Map<String, Object> payload = PayloadCorpus.copyOf(mapPayload);
+        payloadKeyModifier.removeKeysWithPaths(paths, payload);
+        return payload;
+    }
+
+    /**
+     * The cost of copying the payload, which is part of {@link #removeKeysWithPathsFromMap()}.
+     */
+    @Benchmark
+    public Map<String, Object> copyMap() {
+        return PayloadCorpus.copyOf(mapPayload);
+    }
+}
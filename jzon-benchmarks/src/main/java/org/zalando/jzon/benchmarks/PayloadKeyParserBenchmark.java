@@ -0,0 +1,120 @@
+package org.zalando.jzon.benchmarks;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_EMAIL;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_HASH;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_SIMPLE_SKU;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_PATH_LIST;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.benchmarks.PayloadCorpus.Shape;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.impl.PayloadKeyFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the queries of the {@link PayloadKeyParser} on payloads given as String and as Map. {@code parseUnique} and
+ * {@code parseGrouped} only accept Maps, their String benchmarks include reading the payload into a Map, which is what
+ * a caller holding a String has to do. Only the API of jzon 1.5.0 is used, so the results can be compared with that
+ * release.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadKeyParserBenchmark {
+
+    private static final Set<String> KEYS = new HashSet<>(Arrays.asList(KEY_CUSTOMER_NUMBER, KEY_CUSTOMER_EMAIL,
+                KEY_CUSTOMER_HASH, KEY_SIMPLE_SKU));
+    private static final Set<String> MANDATORY_KEYS = singleton(KEY_CUSTOMER_HASH);
+    private static final Set<String> OPTIONAL_KEYS = new HashSet<>(Arrays.asList(KEY_CUSTOMER_EMAIL, KEY_SIMPLE_SKU));
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() { };
+
+    @Param
+    private Shape shape;
+
+    private ObjectMapper objectMapper;
+    private PayloadKeyParser payloadKeyParser;
+    private Map<String, Object> mapPayload;
+    private String stringPayload;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper();
+        payloadKeyParser = new PayloadKeyFactory().getPayloadKeyParser(objectMapper);
+        mapPayload = PayloadCorpus.payloadOf(shape, PayloadCorpus.SEED);
+        stringPayload = objectMapper.writeValueAsString(mapPayload);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseValuesFromString() {
+        return payloadKeyParser.parse(KEYS, emptyMap(), stringPayload, AS_VALUE_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseValuesFromMap() {
+        return payloadKeyParser.parse(KEYS, emptyMap(), mapPayload, AS_VALUE_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parsePathsFromString() {
+        return payloadKeyParser.parse(KEYS, emptyMap(), stringPayload, AS_PATH_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parsePathsFromMap() {
+        return payloadKeyParser.parse(KEYS, emptyMap(), mapPayload, AS_PATH_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Set<Object>> parseUniqueFromString() throws IOException {
+        final Map<String, Object> payload = objectMapper.readValue(stringPayload, MAP_TYPE);
+        return payloadKeyParser.parseUnique(KEYS, emptyMap(), payload);
+    }
+
+    @Benchmark
+    public Map<String, Set<Object>> parseUniqueFromMap() {
+        return payloadKeyParser.parseUnique(KEYS, emptyMap(), mapPayload);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseGroupedFromString() throws IOException {
+        final Map<String, Object> payload = objectMapper.readValue(stringPayload, MAP_TYPE);
+        return payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, MANDATORY_KEYS, OPTIONAL_KEYS, emptyMap(), payload);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseGroupedFromMap() {
+        return payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, MANDATORY_KEYS, OPTIONAL_KEYS, emptyMap(),
+                mapPayload);
+    }
+}
@@ -0,0 +1,87 @@
+package org.zalando.jzon.benchmarks;
+
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_EMAIL;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_HASH;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_SIMPLE_SKU;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.benchmarks.PayloadCorpus.Shape;
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.impl.PayloadKeyFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares {@code parseByShape}, which reads the payloads of a known shape at the locations learned from the first
+ * one, with {@code parse} walking every payload. The shape is learned in the setup, so the {@code parseByShape}
+ * benchmarks measure the steady state; on {@link Shape#NO_MATCH} payloads the keys are never found and every payload
+ * is walked. Needs a jzon version with {@code parseByShape}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PayloadShapeBenchmark {
+
+    private static final String SHAPE_ID = "order";
+    private static final CompiledKeySet KEYS = CompiledKeySet.of(new HashSet<>(Arrays.asList(KEY_CUSTOMER_NUMBER,
+                    KEY_CUSTOMER_EMAIL, KEY_CUSTOMER_HASH, KEY_SIMPLE_SKU)));
+
+    @Param
+    private Shape shape;
+
+    private PayloadKeyParser payloadKeyParser;
+    private Map<String, Object> mapPayload;
+    private String stringPayload;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        payloadKeyParser = new PayloadKeyFactory().getPayloadKeyParser(objectMapper);
+        mapPayload = PayloadCorpus.payloadOf(shape, PayloadCorpus.SEED);
+        stringPayload = objectMapper.writeValueAsString(mapPayload);
+        payloadKeyParser.parseByShape(SHAPE_ID, KEYS, mapPayload);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseFromString() {
+        return payloadKeyParser.parse(KEYS, stringPayload, AS_VALUE_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseByShapeFromString() {
+        return payloadKeyParser.parseByShape(SHAPE_ID, KEYS, stringPayload);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseFromMap() {
+        return payloadKeyParser.parse(KEYS, mapPayload, AS_VALUE_LIST);
+    }
+
+    @Benchmark
+    public Map<String, Object[]> parseByShapeFromMap() {
+        return payloadKeyParser.parseByShape(SHAPE_ID, KEYS, mapPayload);
+    }
+}
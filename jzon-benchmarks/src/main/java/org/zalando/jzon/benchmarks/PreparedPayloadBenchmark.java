@@ -0,0 +1,93 @@
+package org.zalando.jzon.benchmarks;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_EMAIL;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_HASH;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.benchmarks.PayloadCorpus.KEY_SIMPLE_SKU;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.zalando.jzon.benchmarks.PayloadCorpus.Shape;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.PreparedPayload;
+import org.zalando.jzon.service.impl.PayloadKeyFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures {@code parseUnique} and {@code parseGrouped} on prepared payloads, the counterpart of the String benchmarks
+ * of {@link PayloadKeyParserBenchmark}. The String benchmarks include preparing the payload, the prepared ones reuse
+ * the payload prepared in the setup as a caller running several queries on one payload would. Needs a jzon version
+ * with {@code prepare}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PreparedPayloadBenchmark {
+
+    private static final Set<String> KEYS = new HashSet<>(Arrays.asList(KEY_CUSTOMER_NUMBER, KEY_CUSTOMER_EMAIL,
+                KEY_CUSTOMER_HASH, KEY_SIMPLE_SKU));
+    private static final Set<String> MANDATORY_KEYS = singleton(KEY_CUSTOMER_HASH);
+    private static final Set<String> OPTIONAL_KEYS = new HashSet<>(Arrays.asList(KEY_CUSTOMER_EMAIL, KEY_SIMPLE_SKU));
+
+    @Param
+    private Shape shape;
+
+    private PayloadKeyParser payloadKeyParser;
+    private String stringPayload;
+    private PreparedPayload preparedPayload;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        payloadKeyParser = new PayloadKeyFactory().getPayloadKeyParser(objectMapper);
+        stringPayload = objectMapper.writeValueAsString(PayloadCorpus.payloadOf(shape, PayloadCorpus.SEED));
+        preparedPayload = payloadKeyParser.prepare(stringPayload);
+    }
+
+    @Benchmark
+    public Map<String, Set<Object>> parseUniqueFromString() {
+        return payloadKeyParser.parseUnique(KEYS, emptyMap(), payloadKeyParser.prepare(stringPayload));
+    }
+
+    @Benchmark
+    public Map<String, Set<Object>> parseUniqueFromPreparedPayload() {
+        return payloadKeyParser.parseUnique(KEYS, emptyMap(), preparedPayload);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseGroupedFromString() {
+        return payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, MANDATORY_KEYS, OPTIONAL_KEYS, emptyMap(),
+                payloadKeyParser.prepare(stringPayload));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> parseGroupedFromPreparedPayload() {
+        return payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, MANDATORY_KEYS, OPTIONAL_KEYS, emptyMap(),
+                preparedPayload);
+    }
+}
@@ -0,0 +1,112 @@
+package org.zalando.jzon.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The methods of a {@link PayloadKeyParser} which run on an {@link java.util.concurrent.Executor} instead of the
+ * calling thread. Every call is one task of the executor, the tasks do not wait for each other, so that any number of
+ * them can be in flight. Exceptions thrown by the parser complete the returned future exceptionally.
+ *
+ * <p>Payloads given as bytes or streams are not mirrored, as reading a stream may block the executing thread.</p>
+ */
+public interface AsyncPayloadKeyParser {
+
+    /**
+     * @see  PayloadKeyParser#prepare(String)
+     */
+    CompletableFuture<PreparedPayload> prepare(final String jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#prepare(Map)
+     */
+    CompletableFuture<PreparedPayload> prepare(final Map<String, Object> jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parse(Set, Map, Map, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys, final Map<String, String> replacementKeys,
+            final Map<String, Object> jsonPayload, final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parse(Set, Map, String, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys, final Map<String, String> replacementKeys,
+            final String jsonPayload, final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parse(Set, Map, PreparedPayload, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload, final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parse(CompiledKeySet, String, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parse(CompiledKeySet, Map, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parse(CompiledKeySet, PreparedPayload, boolean)
+     */
+    CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * @see  PayloadKeyParser#parseUnique(Set, Map, Map)
+     */
+    CompletableFuture<Map<String, Set<Object>>> parseUnique(final Set<String> keys,
+            final Map<String, String> replacementKeys, final Map<String, Object> jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseUnique(Set, Map, PreparedPayload)
+     */
+    CompletableFuture<Map<String, Set<Object>>> parseUnique(final Set<String> keys,
+            final Map<String, String> replacementKeys, final PreparedPayload jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseUnique(CompiledKeySet, Map)
+     */
+    CompletableFuture<Map<String, Set<Object>>> parseUnique(final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseUnique(CompiledKeySet, PreparedPayload)
+     */
+    CompletableFuture<Map<String, Set<Object>>> parseUnique(final CompiledKeySet keys,
+            final PreparedPayload jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseGrouped(String, Set, Set, Map, Map)
+     */
+    CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final Map<String, String> replacementKeys,
+            final Map<String, Object> jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseGrouped(String, Set, Set, Map, PreparedPayload)
+     */
+    CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseGrouped(String, Set, Set, KeyMapping, Map)
+     */
+    CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final KeyMapping keyMapping, final Map<String, Object> jsonPayload);
+
+    /**
+     * @see  PayloadKeyParser#parseGrouped(String, Set, Set, KeyMapping, PreparedPayload)
+     */
+    CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final KeyMapping keyMapping, final PreparedPayload jsonPayload);
+}
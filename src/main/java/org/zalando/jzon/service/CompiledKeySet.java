@@ -0,0 +1,193 @@
+package org.zalando.jzon.service;
+
+import static java.util.Collections.unmodifiableSet;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A set of keys together with their replacement keys, prepared once to be used for any number of payloads. Everything
+ * the parsers derive from the keys on every call (the keys to look up, the parts of the split keys and the way back
+ * from a looked up key to the requested one) is derived once per set and kept as long as the set is in use.
+ *
+ * <p>Keys made of more than two parts are split at any of their separators, e.g. {@code shipping_address_zip_code}
+ * finds {@code shipping.address.zip_code} as well as {@code shipping_address.zip_code}.</p>
+ *
+ * <p>Key sets compiled {@link #ignoringNamingConvention(Set, KeyMapping) ignoring the naming convention} match field
+ * names regardless of case, underscores and hyphens, so {@code customer_number} finds {@code customerNumber},
+ * {@code CustomerNumber} and {@code customer-number} in one pass.</p>
+ *
+ * <p>The keys of an instance never change, so it can be kept in a constant and shared between threads. Only the
+ * canonical names of the field names it has seen are kept along with it, in a bounded cache which evicts the least
+ * recently used names and never changes the names the keys match.</p>
+ *
+ * <pre>
+   <code>
+   private static final CompiledKeySet ORDER_KEYS = CompiledKeySet.of(newHashSet("customer_number", "simple_sku"));
+
+   final Map&lt;String, Object[]&gt; knownKeyValues = payloadKeyParser.parse(ORDER_KEYS, jsonPayload, AS_VALUE_LIST);
+   </code>
+ * </pre>
+ */
+public final class CompiledKeySet {
+
+    private final boolean ignoresNamingConvention;
+    private final Set<String> lookupKeys;
+    private final Map<String, String> keysByLookupKey;
+    private final Map<String, String> lookupKeysByKey;
+    private final int hashCode;
+
+    private CompiledKeySet(final Set<String> keys, final KeyMapping keyMapping,
+            final boolean ignoresNamingConvention) {
+        this.ignoresNamingConvention = ignoresNamingConvention;
+
+        final Set<String> compiledLookupKeys = new HashSet<>();
+        final Map<String, String> compiledKeysByLookupKey = new HashMap<>();
+        for (final String key : keys) {
+            final String lookupKey = keyMapping.lookupKeyOf(key);
+            if (isBlank(lookupKey)) {
+                throw new IllegalArgumentException("Blank key is provided!");
+            }
+
+            compiledLookupKeys.add(lookupKey);
+            compiledKeysByLookupKey.put(lookupKey, keyMapping.keyOf(lookupKey));
+        }
+
+        this.lookupKeys = unmodifiableSet(compiledLookupKeys);
+        this.keysByLookupKey = compiledKeysByLookupKey;
+        this.lookupKeysByKey = new HashMap<>();
+        compiledLookupKeys.forEach(lookupKey -> lookupKeysByKey.putIfAbsent(keyOf(lookupKey), lookupKey));
+        this.hashCode = Objects.hash(keysByLookupKey, ignoresNamingConvention);
+    }
+
+    /**
+     * @param   keys  the keys to look for
+     *
+     * @return  the compiled keys
+     *
+     * @throws  IllegalArgumentException  if one of the {@code keys} is blank
+     */
+    public static CompiledKeySet of(final Set<String> keys) {
+        return of(keys, KeyMapping.NONE);
+    }
+
+    /**
+     * @param   keys             the keys to look for
+     * @param   replacementKeys  if provided these values from the map will be looked for instead of those from
+     *                           {@code keys}
+     *
+     * @return  the compiled keys
+     *
+     * @throws  IllegalArgumentException  if one of the {@code keys} is blank
+     */
+    public static CompiledKeySet of(final Set<String> keys, final Map<String, String> replacementKeys) {
+        return of(keys, KeyMapping.of(replacementKeys));
+    }
+
+    /**
+     * @param   keys        the keys to look for
+     * @param   keyMapping  the replacement keys to be looked for instead of those from {@code keys}
+     *
+     * @return  the compiled keys
+     *
+     * @throws  IllegalArgumentException  if one of the {@code keys} is blank
+     */
+    public static CompiledKeySet of(final Set<String> keys, final KeyMapping keyMapping) {
+        return new CompiledKeySet(keys, keyMapping, false);
+    }
+
+    /**
+     * @param   keys  the keys to look for
+     *
+     * @return  the compiled keys, which match field names regardless of their naming convention
+     *
+     * @throws  IllegalArgumentException  if one of the {@code keys} is blank
+     */
+    public static CompiledKeySet ignoringNamingConvention(final Set<String> keys) {
+        return ignoringNamingConvention(keys, KeyMapping.NONE);
+    }
+
+    /**
+     * Compiles keys which match a field name if both have the same canonical name, i.e. the name in lower case without
+     * underscores and hyphens. Snake case, camel case, Pascal case and kebab case spellings of a key are found at once,
+     * instead of listing each of them as a replacement key or parsing the payload once per spelling. Split keys are
+     * split at their separators as usual, their parts match regardless of the naming convention as well, e.g.
+     * {@code shipping_address_zip_code} finds {@code shippingAddress.zipCode}.
+     *
+     * <p>The canonical names of the field names are cached per distinct field name, so a payload reusing the same
+     * names costs one cache lookup per field. The cache holds the names of up to 10,000 distinct field names and
+     * evicts the least recently used ones first.</p>
+     *
+     * @param   keys        the keys to look for
+     * @param   keyMapping  the replacement keys to be looked for instead of those from {@code keys}
+     *
+     * @return  the compiled keys, which match field names regardless of their naming convention
+     *
+     * @throws  IllegalArgumentException  if one of the {@code keys} is blank
+     */
+    public static CompiledKeySet ignoringNamingConvention(final Set<String> keys, final KeyMapping keyMapping) {
+        return new CompiledKeySet(keys, keyMapping, true);
+    }
+
+    /**
+     * @return  {@code true} if field names are matched regardless of their naming convention
+     */
+    public boolean ignoresNamingConvention() {
+        return ignoresNamingConvention;
+    }
+
+    /**
+     * @return  the keys to look for in the payload, i.e. the keys with their replacement keys applied
+     */
+    public Set<String> getLookupKeys() {
+        return lookupKeys;
+    }
+
+    /**
+     * @param   lookupKey  one of the {@link #getLookupKeys() lookup keys}
+     *
+     * @return  the key under which the results for the {@code lookupKey} are returned
+     */
+    public String keyOf(final String lookupKey) {
+        return keysByLookupKey.getOrDefault(lookupKey, lookupKey);
+    }
+
+    /**
+     * @param   key  a key under which results are returned
+     *
+     * @return  the lookup key whose results are returned under the {@code key}, {@code null} if the {@code key} is not
+     *          one of them
+     */
+    public String lookupKeyOf(final String key) {
+        return lookupKeysByKey.get(key);
+    }
+
+    /**
+     * Key sets are equal if they look up the same keys, return their results under the same keys and match field names
+     * the same way, regardless of whether they were compiled from a Map or a {@link KeyMapping}.
+     */
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof CompiledKeySet)) {
+            return false;
+        }
+
+        final CompiledKeySet keySet = (CompiledKeySet) other;
+        return hashCode == keySet.hashCode && ignoresNamingConvention == keySet.ignoresNamingConvention
+                && keysByLookupKey.equals(keySet.keysByLookupKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
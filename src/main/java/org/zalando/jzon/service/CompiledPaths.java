@@ -0,0 +1,17 @@
+package org.zalando.jzon.service;
+
+import java.util.Set;
+
+/**
+ * A set of json paths which has already been compiled by a {@link PayloadKeyModifier}. It can be handed to
+ * {@code removeKeysWithPaths} as often as needed without compiling the paths again.
+ *
+ * <p>Compiled paths can only be used with the {@link PayloadKeyModifier} which has created them.</p>
+ */
+public interface CompiledPaths {
+
+    /**
+     * @return  the paths as they were given to {@link PayloadKeyModifier#compile(Set)}
+     */
+    Set<String> getPaths();
+}
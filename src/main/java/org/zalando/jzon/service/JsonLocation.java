@@ -0,0 +1,41 @@
+package org.zalando.jzon.service;
+
+/**
+ * The location of a value in a json payload, made of the field names and array indexes leading to it. A location
+ * points to the location of the object or array holding its value, so the locations of all the values found under the
+ * same object share the locations of their common prefix instead of each holding a string of its own.
+ *
+ * <p>The bracket notation (e.g. {@code $['items'][0]['simple_sku']}), as returned by {@code parse} for path lists,
+ * is only built by {@link #toString()}. Two locations are equal if they are made of the same field names and indexes.
+ * </p>
+ */
+public interface JsonLocation {
+
+    /**
+     * @return  the location of the object or array holding the value, {@code null} for the root of the payload
+     */
+    JsonLocation getParent();
+
+    /**
+     * @return  the name of the field holding the value, {@code null} if the value is an element of an array or the
+     *          root of the payload
+     */
+    String getFieldName();
+
+    /**
+     * @return  the index of the value in its array, {@code -1} if the value is the value of a field or the root of the
+     *          payload
+     */
+    int getIndex();
+
+    /**
+     * @return  the number of field names and indexes leading to the value, {@code 0} for the root of the payload
+     */
+    int getDepth();
+
+    /**
+     * @return  the location in bracket notation, e.g. {@code $['items'][0]['simple_sku']}
+     */
+    @Override
+    String toString();
+}
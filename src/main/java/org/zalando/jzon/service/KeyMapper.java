@@ -25,6 +25,23 @@ public class KeyMapper {
         return mappedKeys;
     }
 
+    /**
+     * Same as {@link #mappedKeysOf(Map, Set)} with the replacement keys given as {@link KeyMapping}.
+     *
+     * @param   keyMapping  the replacement keys
+     * @param   keys        the requested keys
+     *
+     * @return  the keys to look up in the payload
+     */
+    public static Set<String> mappedKeysOf(final KeyMapping keyMapping, final Set<String> keys) {
+        final Set<String> mappedKeys = new HashSet<>();
+        for (final String key : keys) {
+            mappedKeys.add(keyMapping.lookupKeyOf(key));
+        }
+
+        return mappedKeys;
+    }
+
     /**
      * @param   mappedKnownKeys
      * @param   key
@@ -58,10 +75,44 @@ public class KeyMapper {
             return knownKeyValues;
         }
 
+        return mappedKnownValuesOf(KeyMapping.of(mappedKnownKeys), knownKeyValues);
+    }
+
+    /**
+     * Same as {@link #mappedKnownValuesOf(Map, Map)} with the replacement keys given as {@link KeyMapping}.
+     *
+     * @param   keyMapping      the replacement keys
+     * @param   knownKeyValues  the found values by their lookup keys
+     *
+     * @return  the found values by the requested keys
+     */
+    public static Map<String, Object[]> mappedKnownValuesOf(final KeyMapping keyMapping,
+            final Map<String, Object[]> knownKeyValues) {
+        if (knownKeyValues == null) {
+            return knownKeyValues;
+        }
+
+        final Map<String, Object[]> mappedKnownKeyValues = new HashMap<>();
+        for (final Entry<String, Object[]> knownEntry : knownKeyValues.entrySet()) {
+            mappedKnownKeyValues.put(keyMapping.keyOf(knownEntry.getKey()), knownEntry.getValue());
+        }
+
+        return mappedKnownKeyValues;
+    }
+
+    /**
+     * Same as {@link #mappedKnownValuesOf(Map, Map)} with the reverse mapping compiled into the {@code keys}.
+     *
+     * @param   keys            the compiled keys the {@code knownKeyValues} were found for
+     * @param   knownKeyValues  the found values by their lookup keys
+     *
+     * @return  the found values by the requested keys
+     */
+    public static Map<String, Object[]> mappedKnownValuesOf(final CompiledKeySet keys,
+            final Map<String, Object[]> knownKeyValues) {
         final Map<String, Object[]> mappedKnownKeyValues = new HashMap<>();
         for (final Entry<String, Object[]> knownEntry : knownKeyValues.entrySet()) {
-            mappedKnownKeyValues.put(getKeyByMappedKnownKey(mappedKnownKeys, knownEntry.getKey()),
-                knownEntry.getValue());
+            mappedKnownKeyValues.put(keys.keyOf(knownEntry.getKey()), knownEntry.getValue());
         }
 
         return mappedKnownKeyValues;
@@ -83,12 +134,28 @@ public class KeyMapper {
             return knownKeyValues;
         }
 
+        return mappedKnownValuesOf(KeyMapping.of(mappedKnownKeys), knownKeyValues);
+    }
+
+    /**
+     * Same as {@link #mappedKnownValuesOf(Map, List)} with the replacement keys given as {@link KeyMapping}.
+     *
+     * @param   keyMapping      the replacement keys
+     * @param   knownKeyValues  the found groups with their values by their lookup keys
+     *
+     * @return  the found groups with their values by the requested keys
+     */
+    public static List<Map<String, Object>> mappedKnownValuesOf(final KeyMapping keyMapping,
+            final List<Map<String, Object>> knownKeyValues) {
+        if (knownKeyValues == null) {
+            return knownKeyValues;
+        }
+
         final List<Map<String, Object>> mappedKnownKeyValues = new ArrayList<>();
         for (final Map<String, Object> groupItem : knownKeyValues) {
             final Map<String, Object> mappedKnownEntry = new HashMap<>();
             for (final Entry<String, Object> knownEntry : groupItem.entrySet()) {
-                mappedKnownEntry.put(getKeyByMappedKnownKey(mappedKnownKeys, knownEntry.getKey()),
-                    knownEntry.getValue());
+                mappedKnownEntry.put(keyMapping.keyOf(knownEntry.getKey()), knownEntry.getValue());
             }
 
             mappedKnownKeyValues.add(mappedKnownEntry);
@@ -113,10 +180,44 @@ public class KeyMapper {
             return knownKeyValues;
         }
 
+        return mappedKnownValuesFrom(KeyMapping.of(mappedKnownKeys), knownKeyValues);
+    }
+
+    /**
+     * Same as {@link #mappedKnownValuesFrom(Map, Map)} with the replacement keys given as {@link KeyMapping}.
+     *
+     * @param   keyMapping      the replacement keys
+     * @param   knownKeyValues  the found values by their lookup keys
+     *
+     * @return  the found values by the requested keys
+     */
+    public static Map<String, Set<Object>> mappedKnownValuesFrom(final KeyMapping keyMapping,
+            final Map<String, Set<Object>> knownKeyValues) {
+        if (knownKeyValues == null) {
+            return knownKeyValues;
+        }
+
+        final Map<String, Set<Object>> mappedKnownKeyValues = new HashMap<>();
+        for (final Entry<String, Set<Object>> knownEntry : knownKeyValues.entrySet()) {
+            mappedKnownKeyValues.put(keyMapping.keyOf(knownEntry.getKey()), knownEntry.getValue());
+        }
+
+        return mappedKnownKeyValues;
+    }
+
+    /**
+     * Same as {@link #mappedKnownValuesFrom(Map, Map)} with the reverse mapping compiled into the {@code keys}.
+     *
+     * @param   keys            the compiled keys the {@code knownKeyValues} were found for
+     * @param   knownKeyValues  the found values by their lookup keys
+     *
+     * @return  the found values by the requested keys
+     */
+    public static Map<String, Set<Object>> mappedKnownValuesFrom(final CompiledKeySet keys,
+            final Map<String, Set<Object>> knownKeyValues) {
         final Map<String, Set<Object>> mappedKnownKeyValues = new HashMap<>();
         for (final Entry<String, Set<Object>> knownEntry : knownKeyValues.entrySet()) {
-            mappedKnownKeyValues.put(getKeyByMappedKnownKey(mappedKnownKeys, knownEntry.getKey()),
-                knownEntry.getValue());
+            mappedKnownKeyValues.put(keys.keyOf(knownEntry.getKey()), knownEntry.getValue());
         }
 
         return mappedKnownKeyValues;
@@ -124,7 +225,8 @@ public class KeyMapper {
 
     /**
      * Returns the key of the provided {@code value} from the {@code mappedKnownKeys}. The mapping should be one-one
-     * otherwise it just returns the first found key of a value.
+     * otherwise it just returns the first found key of a value. The whole map is scanned on every call,
+     * {@link KeyMapping#keyOf(String)} does the same lookup in constant time.
      *
      * @param   mappedKnownKeys  the map to look from
      * @param   value            from map
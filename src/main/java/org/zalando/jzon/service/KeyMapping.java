@@ -0,0 +1,67 @@
+package org.zalando.jzon.service;
+
+import static java.util.Collections.emptyMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The replacement keys of a parser call indexed in both directions: from a key to the key which is looked up in the
+ * payload instead and from a looked up key back to the key it replaces. Both are hash lookups, so the results of a
+ * call are mapped back in constant time per key instead of scanning all replacement keys for each of them.
+ *
+ * <p>Several keys may be replaced by the same key. Such a looked up key is mapped back to the first of its keys in the
+ * iteration order of the map the mapping was created from, which is what a scan over the map would find as well. Pass
+ * an ordered map (e.g. a {@link java.util.LinkedHashMap}) if the choice between them matters.</p>
+ *
+ * <p>Instances are immutable, hence they can be kept in constants and shared between threads.</p>
+ */
+public final class KeyMapping {
+
+    public static final KeyMapping NONE = new KeyMapping(emptyMap());
+
+    private final Map<String, String> lookupKeysByKey;
+    private final Map<String, String> keysByLookupKey;
+
+    private KeyMapping(final Map<String, String> replacementKeys) {
+        this.lookupKeysByKey = new HashMap<>(replacementKeys);
+        this.keysByLookupKey = new HashMap<>();
+        for (final Entry<String, String> replacementKey : replacementKeys.entrySet()) {
+            keysByLookupKey.putIfAbsent(replacementKey.getValue(), replacementKey.getKey());
+        }
+    }
+
+    /**
+     * @param   replacementKeys  the keys to look up in the payload instead of the keys of the map
+     *
+     * @return  the mapping of the {@code replacementKeys}
+     */
+    public static KeyMapping of(final Map<String, String> replacementKeys) {
+        if (replacementKeys.isEmpty()) {
+            return NONE;
+        }
+
+        return new KeyMapping(replacementKeys);
+    }
+
+    /**
+     * @param   key  the requested key
+     *
+     * @return  the key to look up in the payload instead of the {@code key} or the {@code key} itself if it is not
+     *          replaced
+     */
+    public String lookupKeyOf(final String key) {
+        return lookupKeysByKey.getOrDefault(key, key);
+    }
+
+    /**
+     * @param   lookupKey  a key as it was looked up in the payload
+     *
+     * @return  the key which is replaced by the {@code lookupKey} or the {@code lookupKey} itself if it does not
+     *          replace any key
+     */
+    public String keyOf(final String lookupKey) {
+        return keysByLookupKey.getOrDefault(lookupKey, lookupKey);
+    }
+}
@@ -0,0 +1,24 @@
+package org.zalando.jzon.service;
+
+/**
+ * Receives the matches of the keys of a {@link PayloadKeyParser#parse(CompiledKeySet, String, boolean, KeyMatchSink)
+ * parse} call one by one instead of collecting them into a map. The matches of a key are handed over in the order in
+ * which {@code parse} returns them. Matches may be handed over while the payload is read, hence the matches of
+ * different keys may be interleaved; the matches of a key found in the split form of it (e.g. {@code customer} followed
+ * by {@code number} for {@code customer_number}) follow once the whole payload has been read.
+ *
+ * <p>The streaming parser hands over the matches found in an element of a root array once the element has been read.
+ * The matches nested in a root object are held until the object ends, as a match still to come may precede them. If
+ * the payload turns out not to be valid json, the matches of the elements read before stay handed over.</p>
+ */
+@FunctionalInterface
+public interface KeyMatchSink {
+
+    /**
+     * @param  key    the requested key the match was found for, i.e. not its replacement key
+     * @param  path   the path of the {@code value} in the payload (e.g. {@code $['customers'][0]['customer_number']})
+     *                if paths were asked for, otherwise {@code null}
+     * @param  value  one of the values {@code parse} returns for the {@code key}
+     */
+    void onMatch(String key, String path, Object value);
+}
@@ -0,0 +1,25 @@
+package org.zalando.jzon.service;
+
+import java.nio.file.Path;
+
+public interface PayloadKeyBatchExtractor {
+
+    /**
+     * Finds the values of the {@code keys} in every record of a file of newline delimited json (one UTF-8 encoded
+     * payload per line) and hands them to the {@code sink}. The file is read directly from its bytes, the records are
+     * neither copied nor decoded into Strings. Lines may end with {@code \n} or {@code \r\n}, blank lines are skipped
+     * and the last line does not need to end with a line break.
+     *
+     * @param   file        the file of newline delimited json
+     * @param   keys        the compiled keys and their replacement keys
+     * @param   asPathList  if true it returns the values as the list of paths of json keys in each record, otherwise
+     *                      it returns the list of values of json keys
+     * @param   sink        receives the values of each record
+     *
+     * @return  the number of records handed to the {@code sink}
+     *
+     * @throws  org.zalando.jzon.service.impl.JsonParsingException  if the file cannot be read or a record does not fit
+     *                                                              into a single mapping of the file
+     */
+    long extract(Path file, CompiledKeySet keys, boolean asPathList, RecordSink sink);
+}
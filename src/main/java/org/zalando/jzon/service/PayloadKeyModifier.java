@@ -1,10 +1,29 @@
 package org.zalando.jzon.service;
 
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
 public interface PayloadKeyModifier {
 
+    /**
+     * Compiles the given paths once so that they can be removed from several payloads without being compiled again.
+     * By default the paths are only kept as they are and compiled by {@link #removeKeysWithPaths(Set, Map)} on every
+     * removal.
+     *
+     * @param   toBeRemovedKeyPaths  a Set of paths of json keys which should be removed from payloads
+     *
+     * @return  the compiled paths to be used with {@link #removeKeysWithPaths(CompiledPaths, Map)}
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    default CompiledPaths compile(final Set<String> toBeRemovedKeyPaths) {
+        final Set<String> paths = unmodifiableSet(new LinkedHashSet<>(toBeRemovedKeyPaths));
+        return () -> paths;
+    }
+
     /**
      * Modifies a {@code payload} by removing keys that are provided from it.
      *
@@ -14,4 +33,18 @@ public interface PayloadKeyModifier {
      */
     void removeKeysWithPaths(Set<String> toBeRemovedKeyPaths, Map<String, Object> payload);
 
+    /**
+     * Same as {@link #removeKeysWithPaths(Set, Map)} but with paths which have already been compiled. Array indexes in
+     * the paths refer to the elements of the {@code payload} as it is passed in. By default the paths are removed by
+     * {@link #removeKeysWithPaths(Set, Map)}.
+     *
+     * @param   toBeRemovedKeyPaths  the paths compiled by {@link #compile(Set)}
+     * @param   payload              payload to be modified
+     *
+     * @throws  IllegalArgumentException  if the paths were not compiled by this modifier
+     */
+    default void removeKeysWithPaths(final CompiledPaths toBeRemovedKeyPaths, final Map<String, Object> payload) {
+        removeKeysWithPaths(toBeRemovedKeyPaths.getPaths(), payload);
+    }
+
 }
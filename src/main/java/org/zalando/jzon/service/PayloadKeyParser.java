@@ -1,8 +1,17 @@
 package org.zalando.jzon.service;
 
+import static java.util.Collections.singleton;
+
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author  Sina Golesorkhi(sina.golesorkhi@zalando.de)
@@ -12,6 +21,63 @@ public interface PayloadKeyParser {
     String SEPARATOR = "_";
     boolean AS_PATH_LIST = true;
     boolean AS_VALUE_LIST = false;
+    int FIRST_MATCH = 1;
+
+    /**
+     * Parses the given {@code jsonPayload} once so that it can be queried several times without being parsed again.
+     *
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  the prepared payload to be used with the other methods of this parser
+     */
+    PreparedPayload prepare(final String jsonPayload);
+
+    /**
+     * Prepares the given {@code jsonPayload} once so that it can be queried several times without being prepared
+     * again.
+     *
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  the prepared payload to be used with the other methods of this parser
+     */
+    PreparedPayload prepare(final Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #prepare(String)} on a UTF-8 encoded payload. The bytes are parsed as they are, no String of the
+     * whole payload is created.
+     *
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     *
+     * @return  the prepared payload to be used with the other methods of this parser
+     *
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    PreparedPayload prepare(final byte[] jsonPayload, final int offset, final int length);
+
+    /**
+     * Same as {@link #prepare(String)} on a UTF-8 encoded payload held by a heap or direct buffer. The bytes between
+     * the position and the limit of the buffer are parsed as they are, the position of the buffer is not changed.
+     *
+     * @param   jsonPayload  the buffer holding the json payload
+     *
+     * @return  the prepared payload to be used with the other methods of this parser
+     */
+    PreparedPayload prepare(final ByteBuffer jsonPayload);
+
+    /**
+     * Same as {@link #prepare(String)} on a UTF-8 encoded payload read from a stream. The stream is read while it is
+     * parsed and is not closed.
+     *
+     * @param   jsonPayload  the stream of the json payload
+     *
+     * @return  the prepared payload to be used with the other methods of this parser
+     *
+     * @throws  org.zalando.jzon.service.impl.JsonParsingException  if the stream cannot be read
+     */
+    PreparedPayload prepare(final InputStream jsonPayload);
 
     /**
      * Searches for the given {@code key} in the payload and returns the found value (if any). Supported scenarios
@@ -107,6 +173,643 @@ public interface PayloadKeyParser {
     Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> replacementKeys,
             final String jsonPayload, final boolean asPathList);
 
+    /**
+     * Same as {@link #parse(Set, Map, String, boolean)} but on a payload which has already been prepared. Repeated
+     * calls on the same {@code jsonPayload} only look up the locations of the keys which have been indexed on the
+     * first call.
+     *
+     * @param   keys             Set of keys to look for in the {@code payload}
+     * @param   replacementKeys  if provided these values from the map will be used instead of those from {@code keys}
+     * @param   jsonPayload      the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     * @param   asPathList       if {@code true} the function will look for the path of the {@code key} otherwise for
+     *                           the value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  IllegalArgumentException  if the provided {@code keys} is blank or the payload was not prepared by this
+     *                                    parser
+     */
+    default Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload, final boolean asPathList) {
+        return parse(CompiledKeySet.of(keys, replacementKeys), jsonPayload, asPathList);
+    }
+
+    /**
+     * Same as {@link #parse(Set, Map, String, boolean)} but with keys which have been compiled once. Nothing is derived
+     * from the keys anymore on the call.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload, final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(Set, Map, Map, boolean)} but with keys which have been compiled once.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(Set, Map, PreparedPayload, boolean)} but with keys which have been compiled once.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} on a UTF-8 encoded payload. The bytes are parsed as they
+     * are, no String of the whole payload is created.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length, final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} on a UTF-8 encoded payload held by a heap or direct
+     * buffer. The bytes between the position and the limit of the buffer are parsed as they are, the position of the
+     * buffer is not changed.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the buffer holding the json payload
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final ByteBuffer jsonPayload, final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} on a UTF-8 encoded payload read from a stream. The
+     * stream is read while it is parsed and is not closed.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the stream of the json payload
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  org.zalando.jzon.service.impl.JsonParsingException  if the stream cannot be read
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final InputStream jsonPayload, final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} but hands every match to the {@code sink} instead of
+     * collecting the matches into a map, so that no collections are built for the results. The sink receives the
+     * values {@code parse} returns, a value of a split key which is a list element by element, together with their
+     * paths if asked for. The matches of the exact keys may be handed over while the payload is walked, only the
+     * candidates of the split keys are kept until the walk is done.
+     *
+     * @param  keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param  jsonPayload  the json payload as String
+     * @param  withPaths    if {@code true} the paths of the values are handed over as well
+     * @param  sink         receives the matches under the requested keys
+     */
+    void parse(final CompiledKeySet keys, final String jsonPayload, final boolean withPaths, final KeyMatchSink sink);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean, KeyMatchSink)} on a payload given as Map.
+     *
+     * @param  keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param  jsonPayload  the json payload as Map
+     * @param  withPaths    if {@code true} the paths of the values are handed over as well
+     * @param  sink         receives the matches under the requested keys
+     */
+    void parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean, KeyMatchSink)} on a payload which has already been
+     * prepared.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     * @param   withPaths    if {@code true} the paths of the values are handed over as well
+     * @param   sink         receives the matches under the requested keys
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    void parse(final CompiledKeySet keys, final PreparedPayload jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} for callers which need the values as primitives, e.g. to
+     * aggregate them. The values are kept in primitive arrays per key and type instead of being returned as objects,
+     * a value of a split key which is a list element by element. Only a streaming parser decodes the numbers into the
+     * arrays without creating objects for them; a parser which builds the document creates them while parsing it and
+     * unboxes them afterwards.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  the values of the keys by their type, empty if the payload is blank or not valid json
+     */
+    TypedKeyValues parseTyped(final CompiledKeySet keys, final String jsonPayload);
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} on a payload given as Map.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  the values of the keys by their type
+     */
+    TypedKeyValues parseTyped(final CompiledKeySet keys, final Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} on a payload which has already been prepared.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  the values of the keys by their type
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    TypedKeyValues parseTyped(final CompiledKeySet keys, final PreparedPayload jsonPayload);
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} on a UTF-8 encoded payload held by a range of a byte array.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     *
+     * @return  the values of the keys by their type, empty if the payload is not valid json
+     *
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    TypedKeyValues parseTyped(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} for callers which only read some of the keys. The
+     * payload is parsed on the call, but a key is only resolved when it is first read from the returned map and its
+     * values are kept for the following reads, all keys share the parsed payload. Keys which are never read cost
+     * nothing beyond being looked for during the one walk of the payload on the first read; iterating over the map or
+     * asking for its size resolves all of them.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} unmodifiable map which has the mapping of given keys and their
+     *          corresponding found values, resolved as they are read
+     */
+    Map<String, Object[]> parseLazily(final CompiledKeySet keys, final String jsonPayload, final boolean asPathList);
+
+    /**
+     * Same as {@link #parseLazily(CompiledKeySet, String, boolean)} on a payload given as Map.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} unmodifiable map which has the mapping of given keys and their
+     *          corresponding found values, resolved as they are read
+     */
+    Map<String, Object[]> parseLazily(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * Same as {@link #parseLazily(CompiledKeySet, String, boolean)} on a payload which has already been prepared, the
+     * keys are resolved from the index the payload keeps.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     *
+     * @return  an always {@code non-null} unmodifiable map which has the mapping of given keys and their
+     *          corresponding found values, resolved as they are read
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    Map<String, Object[]> parseLazily(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} for paths, but returns them as {@link JsonLocation
+     * JsonLocations}. The locations of matches found under the same object share their common prefix and are only
+     * turned into the bracket notation returned for path lists if {@code toString} is called on them.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the locations of their matches
+     */
+    Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final String jsonPayload);
+
+    /**
+     * Same as {@link #parseLocations(CompiledKeySet, String)} on a payload given as Map.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the locations of their matches
+     */
+    Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #parseLocations(CompiledKeySet, String)} on a payload which has already been prepared.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the locations of their matches
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final PreparedPayload jsonPayload);
+
+    /**
+     * Reads the values at the given paths (e.g. the paths returned by {@link #parse(Set, Map, String, boolean)} for
+     * path lists) in one walk over the payload instead of one JsonPath read per path. The definite paths made of
+     * property names and array indexes (e.g. {@code $['items'][0]['simple_sku']} or {@code $.items[0].simple_sku}) are
+     * merged into a prefix tree which is walked once; any other path is read by JsonPath.
+     *
+     * @param   paths        the paths to read, JsonPath expressions
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  an always {@code non-null} map which has the mapping of the found paths, as given, and their values; a
+     *          path which is not found in the {@code jsonPayload} is left out
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    Map<String, Object> readPaths(final Collection<String> paths, final String jsonPayload);
+
+    /**
+     * Same as {@link #readPaths(Collection, String)} on a payload given as Map.
+     *
+     * @param   paths        the paths to read, JsonPath expressions
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  an always {@code non-null} map which has the mapping of the found paths, as given, and their values
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    Map<String, Object> readPaths(final Collection<String> paths, final Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #readPaths(Collection, String)} on a payload which has already been prepared.
+     *
+     * @param   paths        the paths to read, JsonPath expressions
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  an always {@code non-null} map which has the mapping of the found paths, as given, and their values
+     *
+     * @throws  IllegalArgumentException                  if the payload was not prepared by this parser
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    Map<String, Object> readPaths(final Collection<String> paths, final PreparedPayload jsonPayload);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} for values, for payloads which share their structure,
+     * e.g. the events of one type. The locations at which the keys were found are remembered for the given shape and
+     * the values of the following payloads of that shape are read at these locations first. If one of them is
+     * missing, or an object or array on the way to them has gained or lost fields or elements, the payload is walked
+     * as a whole and the locations are learned again from it. Arrays whose elements all held the keys at the same
+     * places are read element by element, whatever their number.
+     *
+     * <p>Only the way to the remembered locations is checked, which is what makes reading a payload of a known shape
+     * a handful of lookups. A key which appears below a field or array element that held no key in the learned
+     * payload, with the objects on the way to it keeping their number of fields, is not found until the locations are
+     * learned again. Locations are only learned from payloads in which all keys were found, a shape whose payloads
+     * lack one of the keys is walked every time. The locations are kept in a bounded cache of the parser.</p>
+     *
+     * @param   shapeId      identifies the structure of the payload, e.g. the event type
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  IllegalArgumentException  if the {@code shapeId} is {@code null}
+     */
+    Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys, final String jsonPayload);
+
+    /**
+     * Same as {@link #parseByShape(String, CompiledKeySet, String)} on a payload given as Map.
+     *
+     * @param   shapeId      identifies the structure of the payload, e.g. the event type
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and their corresponding found values
+     *
+     * @throws  IllegalArgumentException  if the {@code shapeId} is {@code null}
+     */
+    Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} for a single key, returning only its integral numbers. Only a
+     * streaming parser reads them without creating objects for them.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  the integral numbers among the values of the {@code key}, see {@link TypedKeyValues#getLongs(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default long[] parseLongs(final String key, final String jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getLongs(key);
+    }
+
+    /**
+     * Same as {@link #parseLongs(String, String)} on a payload given as Map.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  the integral numbers among the values of the {@code key}, see {@link TypedKeyValues#getLongs(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default long[] parseLongs(final String key, final Map<String, Object> jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getLongs(key);
+    }
+
+    /**
+     * Same as {@link #parseLongs(String, String)} on a payload which has already been prepared.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  the integral numbers among the values of the {@code key}, see {@link TypedKeyValues#getLongs(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank or the payload was not prepared by this parser
+     */
+    default long[] parseLongs(final String key, final PreparedPayload jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getLongs(key);
+    }
+
+    /**
+     * Same as {@link #parseLongs(String, String)} on a UTF-8 encoded payload held by a range of a byte array.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     *
+     * @return  the integral numbers among the values of the {@code key}, see {@link TypedKeyValues#getLongs(String)}
+     *
+     * @throws  IllegalArgumentException   if the {@code key} is blank
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    default long[] parseLongs(final String key, final byte[] jsonPayload, final int offset, final int length) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload, offset, length).getLongs(key);
+    }
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} for a single key, returning only its numbers. Only a
+     * streaming parser reads them without creating objects for them.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  the numbers among the values of the {@code key}, see {@link TypedKeyValues#getDoubles(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default double[] parseDoubles(final String key, final String jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getDoubles(key);
+    }
+
+    /**
+     * Same as {@link #parseDoubles(String, String)} on a payload given as Map.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  the numbers among the values of the {@code key}, see {@link TypedKeyValues#getDoubles(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default double[] parseDoubles(final String key, final Map<String, Object> jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getDoubles(key);
+    }
+
+    /**
+     * Same as {@link #parseDoubles(String, String)} on a payload which has already been prepared.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  the numbers among the values of the {@code key}, see {@link TypedKeyValues#getDoubles(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank or the payload was not prepared by this parser
+     */
+    default double[] parseDoubles(final String key, final PreparedPayload jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getDoubles(key);
+    }
+
+    /**
+     * Same as {@link #parseDoubles(String, String)} on a UTF-8 encoded payload held by a range of a byte array.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     *
+     * @return  the numbers among the values of the {@code key}, see {@link TypedKeyValues#getDoubles(String)}
+     *
+     * @throws  IllegalArgumentException   if the {@code key} is blank
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    default double[] parseDoubles(final String key, final byte[] jsonPayload, final int offset, final int length) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload, offset, length).getDoubles(key);
+    }
+
+    /**
+     * Same as {@link #parseTyped(CompiledKeySet, String)} for a single key, returning only its strings. Only a
+     * streaming parser reads them without creating objects for them.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     *
+     * @return  the strings among the values of the {@code key}, see {@link TypedKeyValues#getStrings(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default String[] parseStrings(final String key, final String jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getStrings(key);
+    }
+
+    /**
+     * Same as {@link #parseStrings(String, String)} on a payload given as Map.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  the strings among the values of the {@code key}, see {@link TypedKeyValues#getStrings(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank
+     */
+    default String[] parseStrings(final String key, final Map<String, Object> jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getStrings(key);
+    }
+
+    /**
+     * Same as {@link #parseStrings(String, String)} on a payload which has already been prepared.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     *
+     * @return  the strings among the values of the {@code key}, see {@link TypedKeyValues#getStrings(String)}
+     *
+     * @throws  IllegalArgumentException  if the {@code key} is blank or the payload was not prepared by this parser
+     */
+    default String[] parseStrings(final String key, final PreparedPayload jsonPayload) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload).getStrings(key);
+    }
+
+    /**
+     * Same as {@link #parseStrings(String, String)} on a UTF-8 encoded payload held by a range of a byte array.
+     *
+     * @param   key          the key to look for in the {@code payload}
+     * @param   jsonPayload  the bytes holding the json payload
+     * @param   offset       the index of the first byte of the payload
+     * @param   length       the number of bytes of the payload
+     *
+     * @return  the strings among the values of the {@code key}, see {@link TypedKeyValues#getStrings(String)}
+     *
+     * @throws  IllegalArgumentException   if the {@code key} is blank
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of
+     *                                     {@code jsonPayload}
+     */
+    default String[] parseStrings(final String key, final byte[] jsonPayload, final int offset, final int length) {
+        return parseTyped(CompiledKeySet.of(singleton(key)), jsonPayload, offset, length).getStrings(key);
+    }
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} but returns only the first {@code maxMatches} values of
+     * every key, e.g. {@link #FIRST_MATCH} for callers which take the first value anyway. A key is not looked for
+     * anymore once it has been found that often and the payload is not walked any further once every key has. As a
+     * split key is only used if the exact key is found nowhere, the whole payload is walked while an exact key is
+     * missing.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as String
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     * @param   maxMatches   the maximum number of values returned for a key
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the first of their
+     *          corresponding found values
+     *
+     * @throws  IllegalArgumentException  if {@code maxMatches} is not positive
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload, final boolean asPathList,
+            final int maxMatches);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean, int)} on a payload given as Map.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     * @param   maxMatches   the maximum number of values returned for a key
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the first of their
+     *          corresponding found values
+     *
+     * @throws  IllegalArgumentException  if {@code maxMatches} is not positive
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList, final int maxMatches);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean, int)} on a payload which has already been prepared. The
+     * prepared payload has been walked already, only the results are limited.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by one of the {@code prepare} methods of this parser
+     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                       value
+     * @param   maxMatches   the maximum number of values returned for a key
+     *
+     * @return  an always {@code non-null} map which has the mapping of given keys and the first of their
+     *          corresponding found values
+     *
+     * @throws  IllegalArgumentException  if {@code maxMatches} is not positive or if the payload was not prepared by
+     *                                    this parser
+     */
+    Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList, final int maxMatches);
+
+    /**
+     * Same as {@link #parse(CompiledKeySet, String, boolean)} for many payloads at once. The payloads are split into
+     * chunks which are parsed on the {@code pool}, idle workers take over chunks of busy ones. The state needed for
+     * parsing is created once per chunk and reused for all of its payloads.
+     *
+     * @param   keys          the compiled keys and replacement keys to look for in the payloads
+     * @param   jsonPayloads  the json payloads as Strings
+     * @param   asPathList    if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                        value
+     * @param   pool          the pool which parses the payloads
+     *
+     * @return  the maps of the given keys and their found values, one for each payload in the order of the
+     *          {@code jsonPayloads}
+     */
+    default List<Map<String, Object[]>> parseAll(final CompiledKeySet keys, final List<String> jsonPayloads,
+            final boolean asPathList, final ForkJoinPool pool) {
+        return parseAll(keys, jsonPayloads.spliterator(), asPathList, pool);
+    }
+
+    /**
+     * Same as {@link #parseAll(CompiledKeySet, List, boolean, ForkJoinPool)} on payloads which are split by their
+     * {@link Spliterator}.
+     *
+     * @param   keys          the compiled keys and replacement keys to look for in the payloads
+     * @param   jsonPayloads  the json payloads as Strings
+     * @param   asPathList    if {@code true} the function will look for the path of the {@code key} otherwise for the
+     *                        value
+     * @param   pool          the pool which parses the payloads
+     *
+     * @return  the maps of the given keys and their found values, one for each payload in the encounter order of the
+     *          {@code jsonPayloads}
+     */
+    List<Map<String, Object[]>> parseAll(final CompiledKeySet keys, final Spliterator<String> jsonPayloads,
+            final boolean asPathList, final ForkJoinPool pool);
+
     /**
      * Returns unique results for each provided key.
      *
@@ -132,6 +835,45 @@ public interface PayloadKeyParser {
     Map<String, Set<Object>> parseUnique(final Set<String> keys, final Map<String, String> replacementKeys,
             Map<String, Object> jsonPayload);
 
+    /**
+     * Same as {@link #parseUnique(Set, Map, Map)} but on a payload which has already been prepared.
+     *
+     * @param   keys
+     * @param   replacementKeys  if provided these values from the map will be used instead of those from {@code keys}
+     * @param   jsonPayload      the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     *
+     * @return  a Map where its values are Set of Objects guaranteeing that only unique results are returned.
+     *
+     * @throws  IllegalArgumentException  if the provided {@code keys} is blank or the payload was not prepared by this
+     *                                    parser
+     */
+    default Map<String, Set<Object>> parseUnique(final Set<String> keys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload) {
+        return parseUnique(CompiledKeySet.of(keys, replacementKeys), jsonPayload);
+    }
+
+    /**
+     * Same as {@link #parseUnique(Set, Map, Map)} but with keys which have been compiled once.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the json payload as Map
+     *
+     * @return  a Map where its values are Set of Objects guaranteeing that only unique results are returned.
+     */
+    Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, Map<String, Object> jsonPayload);
+
+    /**
+     * Same as {@link #parseUnique(Set, Map, PreparedPayload)} but with keys which have been compiled once.
+     *
+     * @param   keys         the compiled keys and replacement keys to look for in the {@code payload}
+     * @param   jsonPayload  the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     *
+     * @return  a Map where its values are Set of Objects guaranteeing that only unique results are returned.
+     *
+     * @throws  IllegalArgumentException  if the payload was not prepared by this parser
+     */
+    Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, PreparedPayload jsonPayload);
+
     /**
      * Searches for the given {@code groupKey} in the payload and then all other {@code keys} on the same level and
      * returns them as a list of maps for those fields. Only supported scenario is if the key is found exactly as it was
@@ -154,4 +896,66 @@ public interface PayloadKeyParser {
     List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
             final Set<String> optionalKeys, Map<String, String> replacementKeys, final Map<String, Object> jsonPayload);
 
+    /**
+     * Same as {@link #parseGrouped(String, Set, Set, Map, Map)} but on a payload which has already been prepared.
+     *
+     * @param   groupKey         the key on which level all other mandatoryKeys will be looked up
+     * @param   mandatoryKeys    the mandatoryKeys for values to be extracted if found on same level as groupKey
+     * @param   optionalKeys     the optionalKeys for values to be extracted if found on same level as groupKey
+     * @param   replacementKeys  if provided these values from the map will be used instead of their keys which are from
+     *                           {@code groupKey},{@code mandatoryKeys}, {@code optionalKeys}
+     * @param   jsonPayload      the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     *
+     * @return  an always {@code non-null} list of of maps containing the mandatoryKeys and values for the sent groupKey
+     *          and mandatoryKeys
+     *
+     * @throws  IllegalArgumentException  if the provided {@code keys} is blank or the payload was not prepared by this
+     *                                    parser
+     */
+    default List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload) {
+        return parseGrouped(groupKey, mandatoryKeys, optionalKeys, KeyMapping.of(replacementKeys), jsonPayload);
+    }
+
+    /**
+     * Same as {@link #parseGrouped(String, Set, Set, Map, Map)} with the replacement keys given as {@link KeyMapping}.
+     *
+     * @param   groupKey       the key on which level all other mandatoryKeys will be looked up
+     * @param   mandatoryKeys  the mandatoryKeys for values to be extracted if found on same level as groupKey
+     * @param   optionalKeys   the optionalKeys for values to be extracted if found on same level as groupKey
+     * @param   keyMapping     the replacement keys to be used instead of {@code groupKey},{@code mandatoryKeys},
+     *                         {@code optionalKeys}
+     * @param   jsonPayload    payload
+     *
+     * @return  an always {@code non-null} list of of maps containing the mandatoryKeys and values for the sent groupKey
+     *          and mandatoryKeys
+     *
+     * @throws  IllegalArgumentException  if the provided {@code keys} is blank
+     */
+    default List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final KeyMapping keyMapping, final Map<String, Object> jsonPayload) {
+        return parseGrouped(groupKey, mandatoryKeys, optionalKeys, keyMapping, prepare(jsonPayload));
+    }
+
+    /**
+     * Same as {@link #parseGrouped(String, Set, Set, Map, PreparedPayload)} with the replacement keys given as
+     * {@link KeyMapping}.
+     *
+     * @param   groupKey       the key on which level all other mandatoryKeys will be looked up
+     * @param   mandatoryKeys  the mandatoryKeys for values to be extracted if found on same level as groupKey
+     * @param   optionalKeys   the optionalKeys for values to be extracted if found on same level as groupKey
+     * @param   keyMapping     the replacement keys to be used instead of {@code groupKey},{@code mandatoryKeys},
+     *                         {@code optionalKeys}
+     * @param   jsonPayload    the payload prepared by {@link #prepare(String)} or {@link #prepare(Map)}
+     *
+     * @return  an always {@code non-null} list of of maps containing the mandatoryKeys and values for the sent groupKey
+     *          and mandatoryKeys
+     *
+     * @throws  IllegalArgumentException  if the provided {@code keys} is blank or the payload was not prepared by this
+     *                                    parser
+     */
+    List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, KeyMapping keyMapping, final PreparedPayload jsonPayload);
+
 }
@@ -0,0 +1,14 @@
+package org.zalando.jzon.service;
+
+/**
+ * A json payload which has already been parsed by a {@link PayloadKeyParser}. It can be handed to the {@code parse},
+ * {@code parseUnique} and {@code parseGrouped} methods as often as needed without parsing the payload again. The
+ * locations of the field names are indexed on the first query so that the following ones are only lookups.
+ *
+ * <p>The objects and arrays found in a prepared payload are handed out as copies, so changing them changes neither the
+ * payload nor the results of later queries. Changing the {@link java.util.Map Map} a payload was prepared from does,
+ * since it is not copied when it is prepared.</p>
+ *
+ * <p>A prepared payload can only be used with the {@link PayloadKeyParser} which has created it.</p>
+ */
+public interface PreparedPayload { }
@@ -0,0 +1,20 @@
+package org.zalando.jzon.service;
+
+import java.util.Map;
+
+/**
+ * Receives the values found in the records of a file by a {@link PayloadKeyBatchExtractor}, one record after the
+ * other and in the order of the file.
+ */
+@FunctionalInterface
+public interface RecordSink {
+
+    /**
+     * @param  lineNumber      the number of the line of the record in the file, starting with 1. Blank lines are
+     *                         counted but not handed to the sink.
+     * @param  knownKeyValues  the values found in the record, as returned by
+     *                         {@link PayloadKeyParser#parse(CompiledKeySet, java.nio.ByteBuffer, boolean)}. Records
+     *                         which are not valid json have no values.
+     */
+    void accept(long lineNumber, Map<String, Object[]> knownKeyValues);
+}
@@ -0,0 +1,37 @@
+package org.zalando.jzon.service;
+
+/**
+ * The values of the keys of a {@link PayloadKeyParser#parseTyped(CompiledKeySet, String) parseTyped} call kept as
+ * primitive arrays, for callers which aggregate the values instead of handing them on. Every accessor returns the
+ * values {@code parse} returns for the key which are of its type, in the same order; values of other types, including
+ * objects and lists, are left out.
+ *
+ * <p>The returned arrays are copies, they can be changed by the caller.</p>
+ *
+ * <p>Only the streaming parser decodes the numbers of a payload straight into primitives. The default parser builds
+ * the parsed document out of objects first, so it saves the result objects but not the ones of the document.</p>
+ */
+public interface TypedKeyValues {
+
+    /**
+     * @param   key  one of the requested keys, i.e. not its replacement key
+     *
+     * @return  the integral numbers among the values of the {@code key} which fit into a {@code long}, an empty array
+     *          if there are none
+     */
+    long[] getLongs(final String key);
+
+    /**
+     * @param   key  one of the requested keys, i.e. not its replacement key
+     *
+     * @return  the numbers among the values of the {@code key}, integral or not, an empty array if there are none
+     */
+    double[] getDoubles(final String key);
+
+    /**
+     * @param   key  one of the requested keys, i.e. not its replacement key
+     *
+     * @return  the strings among the values of the {@code key}, an empty array if there are none
+     */
+    String[] getStrings(final String key);
+}
@@ -0,0 +1,76 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decides which arrays of a document are walked in parallel and on which pool. Only arrays with random access and at
+ * least a minimum number of elements are split, as the tasks do not pay off for small ones.
+ */
+final class ArrayParallelism {
+
+    /**
+     * Walks every array sequentially.
+     */
+    static final ArrayParallelism NONE = new ArrayParallelism(null, Integer.MAX_VALUE);
+
+    static final int DEFAULT_MINIMUM_ARRAY_SIZE = 10_000;
+
+    /**
+     * The number of elements below which a part of an array is not split any further.
+     */
+    private static final int MINIMUM_CHUNK_SIZE = 1024;
+
+    /**
+     * The number of parts per worker of the pool an array is split into at most.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final ForkJoinPool pool;
+    private final int minimumArraySize;
+
+    /**
+     * @param   pool              the pool which walks the parts of the arrays
+     * @param   minimumArraySize  the number of elements from which on an array is walked in parallel
+     *
+     * @throws  IllegalArgumentException  if the {@code minimumArraySize} is not positive
+     */
+    ArrayParallelism(final ForkJoinPool pool, final int minimumArraySize) {
+        if (minimumArraySize <= 0) {
+            throw new IllegalArgumentException(format("The minimum array size [%d] must be positive",
+                    minimumArraySize));
+        }
+
+        this.pool = pool;
+        this.minimumArraySize = minimumArraySize;
+    }
+
+    boolean appliesTo(final List<?> array) {
+        return pool != null && array.size() >= minimumArraySize && array instanceof RandomAccess;
+    }
+
+    /**
+     * @param   arraySize  the number of elements of an array
+     *
+     * @return  the number of elements of the parts which are not split any further
+     */
+    int chunkSizeOf(final int arraySize) {
+        return Math.max(MINIMUM_CHUNK_SIZE, arraySize / (pool.getParallelism() * CHUNKS_PER_WORKER));
+    }
+
+    /**
+     * Runs the {@code task} on the pool. Tasks of arrays nested in an array which is already walked in parallel are run
+     * by the current worker, which forks their parts to the same pool.
+     */
+    <T> T invoke(final ForkJoinTask<T> task) {
+        if (ForkJoinTask.getPool() == pool) {
+            return task.invoke();
+        }
+
+        return pool.invoke(task);
+    }
+}
@@ -0,0 +1,137 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.zalando.jzon.service.AsyncPayloadKeyParser;
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.KeyMapping;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.PreparedPayload;
+
+/**
+ * An {@link AsyncPayloadKeyParser} which runs each call of a {@link PayloadKeyParser} as one task of an
+ * {@link Executor}. The parsers keep no state between calls, so the tasks never wait for each other.
+ */
+public final class DefaultAsyncPayloadKeyParser implements AsyncPayloadKeyParser {
+
+    private final PayloadKeyParser payloadKeyParser;
+    private final Executor executor;
+
+    DefaultAsyncPayloadKeyParser(final PayloadKeyParser payloadKeyParser, final Executor executor) {
+        this.payloadKeyParser = payloadKeyParser;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<PreparedPayload> prepare(final String jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.prepare(jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<PreparedPayload> prepare(final Map<String, Object> jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.prepare(jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys,
+            final Map<String, String> replacementKeys, final Map<String, Object> jsonPayload,
+            final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, replacementKeys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys,
+            final Map<String, String> replacementKeys, final String jsonPayload, final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, replacementKeys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final Set<String> keys,
+            final Map<String, String> replacementKeys, final PreparedPayload jsonPayload, final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, replacementKeys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload, final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object[]>> parse(final CompiledKeySet keys,
+            final PreparedPayload jsonPayload, final boolean asPathList) {
+        return supplyAsync(() -> payloadKeyParser.parse(keys, jsonPayload, asPathList), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Set<Object>>> parseUnique(final Set<String> keys,
+            final Map<String, String> replacementKeys, final Map<String, Object> jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.parseUnique(keys, replacementKeys, jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Set<Object>>> parseUnique(final Set<String> keys,
+            final Map<String, String> replacementKeys, final PreparedPayload jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.parseUnique(keys, replacementKeys, jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Set<Object>>> parseUnique(final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.parseUnique(keys, jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Set<Object>>> parseUnique(final CompiledKeySet keys,
+            final PreparedPayload jsonPayload) {
+        return supplyAsync(() -> payloadKeyParser.parseUnique(keys, jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey,
+            final Set<String> mandatoryKeys, final Set<String> optionalKeys, final Map<String, String> replacementKeys,
+            final Map<String, Object> jsonPayload) {
+        return supplyAsync(() ->
+                    payloadKeyParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, replacementKeys,
+                        jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey,
+            final Set<String> mandatoryKeys, final Set<String> optionalKeys, final Map<String, String> replacementKeys,
+            final PreparedPayload jsonPayload) {
+        return supplyAsync(() ->
+                    payloadKeyParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, replacementKeys,
+                        jsonPayload), executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey,
+            final Set<String> mandatoryKeys, final Set<String> optionalKeys, final KeyMapping keyMapping,
+            final Map<String, Object> jsonPayload) {
+        return supplyAsync(() ->
+                    payloadKeyParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, keyMapping, jsonPayload),
+                executor);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> parseGrouped(final String groupKey,
+            final Set<String> mandatoryKeys, final Set<String> optionalKeys, final KeyMapping keyMapping,
+            final PreparedPayload jsonPayload) {
+        return supplyAsync(() ->
+                    payloadKeyParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, keyMapping, jsonPayload),
+                executor);
+    }
+}
@@ -1,31 +1,46 @@
 package org.zalando.jzon.service.impl;
 
+import static java.lang.String.format;
+
 import static com.jayway.jsonpath.Configuration.builder;
-import static com.jayway.jsonpath.JsonPath.compile;
 import static com.jayway.jsonpath.JsonPath.using;
 
 import java.util.Map;
 import java.util.Set;
 
+import org.zalando.jzon.service.CompiledPaths;
 import org.zalando.jzon.service.PayloadKeyModifier;
 
 import com.jayway.jsonpath.Configuration;
-import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
 
 public final class DefaultKeyModifier implements PayloadKeyModifier {
 
     private static final Configuration PATH_CONFIGURATION = builder().options(Option.AS_PATH_LIST).build();
 
-    DefaultKeyModifier() {
-        // do nothing
+    private final JsonPathCache jsonPathCache;
+
+    DefaultKeyModifier(final JsonPathCache jsonPathCache) {
+        this.jsonPathCache = jsonPathCache;
+    }
+
+    @Override
+    public CompiledPaths compile(final Set<String> toBeRemovedKeyPaths) {
+        return PathTrie.of(toBeRemovedKeyPaths, jsonPathCache);
     }
 
     @Override
     public void removeKeysWithPaths(final Set<String> toBeRemovedKeyPaths, final Map<String, Object> payload) {
-        for (final String path : toBeRemovedKeyPaths) {
-            final JsonPath jsonPath = compile(path);
-            using(PATH_CONFIGURATION).parse(payload).delete(jsonPath);
+        removeKeysWithPaths(compile(toBeRemovedKeyPaths), payload);
+    }
+
+    @Override
+    public void removeKeysWithPaths(final CompiledPaths toBeRemovedKeyPaths, final Map<String, Object> payload) {
+        if (!(toBeRemovedKeyPaths instanceof PathTrie)) {
+            throw new IllegalArgumentException(format("Paths [%s] were not compiled by this modifier",
+                    toBeRemovedKeyPaths));
         }
+
+        ((PathTrie) toBeRemovedKeyPaths).removeFrom(using(PATH_CONFIGURATION).parse(payload));
     }
 }
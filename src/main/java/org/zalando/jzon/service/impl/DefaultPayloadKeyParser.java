@@ -2,406 +2,681 @@ package org.zalando.jzon.service.impl;
 
 import static java.lang.String.format;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
-import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
 
-import static org.apache.commons.lang3.ArrayUtils.isNotEmpty;
-import static org.apache.commons.lang3.ArrayUtils.toArray;
+import static org.apache.commons.lang3.StringUtils.containsNone;
 import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.exception.ExceptionUtils.indexOfType;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
-import static org.zalando.jzon.service.KeyMapper.mappedKeyOf;
 import static org.zalando.jzon.service.KeyMapper.mappedKeysOf;
-import static org.zalando.jzon.service.KeyMapper.mappedKnownValuesFrom;
 import static org.zalando.jzon.service.KeyMapper.mappedKnownValuesOf;
 
 import static com.google.common.collect.Sets.newHashSet;
 
-import static com.jayway.jsonpath.Configuration.builder;
-import static com.jayway.jsonpath.JsonPath.using;
-import static com.jayway.jsonpath.Option.SUPPRESS_EXCEPTIONS;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
 
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
 
 import org.slf4j.Logger;
 
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.JsonLocation;
+import org.zalando.jzon.service.KeyMapping;
+import org.zalando.jzon.service.KeyMatchSink;
 import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.PreparedPayload;
+import org.zalando.jzon.service.TypedKeyValues;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.InvalidJsonException;
-import com.jayway.jsonpath.JsonPath;
-import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.PathNotFoundException;
 
-import net.minidev.json.JSONArray;
-
 /**
  * @author  Sina Golesorkhi(sina.golesorkhi@zalando.de)
  */
 public final class DefaultPayloadKeyParser implements PayloadKeyParser {
 
     private static final Logger LOGGER = getLogger(DefaultPayloadKeyParser.class);
-    private static final String ALL_FROM_ROOT_OP = "$.*";
-    private static final String ROOT_ELEMENT = "$";
-    private static final String EMPTY_STRING = "";
-    private static final Configuration PATH_CONFIGURATION = builder().options(Option.AS_PATH_LIST).build();
-    private static final Configuration PATH_CONFIGURATION_SUPPRESS_EXCEPTIONS = builder().options(Option.AS_PATH_LIST,
-            SUPPRESS_EXCEPTIONS).build();
-    private static final String ROOT_SCAN_OP = "$.";
-    private static final String DEEP_SCAN_OP = "$..";
-    private static final String IMMEDIATE_OBJECT_SCAN = "scanTheImmediateObject";
-    private static final String IMMEDIATE_ARRAY_SCAN = "scanTheImmediateArray";
-    private final ObjectMapper objectMapper;
-    private static final Pattern ROOT_ELEMENT_PATTERN = Pattern.compile(ROOT_ELEMENT, Pattern.LITERAL);
+    private final MapPayloadConverter mapPayloadConverter;
+    private final Configuration mapPayloadConfiguration;
+    private final JsonPathCache jsonPathCache;
+    private final ArrayParallelism arrayParallelism;
+    private final KeyLocationCache keyLocationCache;
 
     DefaultPayloadKeyParser(final ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+        this(objectMapper, new JsonPathCache(JsonPathCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    DefaultPayloadKeyParser(final ObjectMapper objectMapper, final JsonPathCache jsonPathCache) {
+        this(objectMapper, jsonPathCache, ArrayParallelism.NONE);
+    }
+
+    /**
+     * @param  arrayParallelism  decides which arrays of the payloads are walked in parallel
+     */
+    DefaultPayloadKeyParser(final ObjectMapper objectMapper, final JsonPathCache jsonPathCache,
+            final ArrayParallelism arrayParallelism) {
+        this(objectMapper, jsonPathCache, arrayParallelism,
+            new KeyLocationCache(KeyLocationCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * @param  keyLocationCache  keeps the locations of the keys in the payloads of a shape
+     */
+    DefaultPayloadKeyParser(final ObjectMapper objectMapper, final JsonPathCache jsonPathCache,
+            final ArrayParallelism arrayParallelism, final KeyLocationCache keyLocationCache) {
+        this.jsonPathCache = jsonPathCache;
+        this.arrayParallelism = arrayParallelism;
+        this.keyLocationCache = keyLocationCache;
+        this.mapPayloadConverter = new MapPayloadConverter(objectMapper);
+        this.mapPayloadConfiguration = Configuration.builder().jsonProvider(new MapPayloadJsonProvider(
+                        mapPayloadConverter)).build();
+    }
+
+    @Override
+    public PreparedPayload prepare(final String jsonPayload) {
+        if (isBlank(jsonPayload)) {
+            return IndexedPayload.EMPTY;
+        }
+
+        return prepareDocumentOf(jsonPayload).kept();
+    }
+
+    @Override
+    public PreparedPayload prepare(final Map<String, Object> jsonPayload) {
+        if (jsonPayload == null) {
+            return IndexedPayload.EMPTY;
+        }
+
+        return new IndexedPayload(jsonPayload, mapPayloadConverter, mapPayloadConfiguration, arrayParallelism);
+    }
+
+    @Override
+    public PreparedPayload prepare(final byte[] jsonPayload, final int offset, final int length) {
+        return prepareDocumentOf(PayloadStreams.inputStreamOf(jsonPayload, offset, length)).kept();
+    }
+
+    @Override
+    public PreparedPayload prepare(final ByteBuffer jsonPayload) {
+        return prepareDocumentOf(PayloadStreams.inputStreamOf(jsonPayload)).kept();
+    }
+
+    @Override
+    public PreparedPayload prepare(final InputStream jsonPayload) {
+        return prepareDocumentOf(jsonPayload).kept();
     }
 
     @Override
     public Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> mappedKnownKeys,
             final Map<String, Object> jsonPayload, final boolean asPathList) {
-        try {
-            final Set<String> mappedKeys = mappedKeysOf(mappedKnownKeys, keys);
-            final Map<String, Object[]> knownKeyValues = parse(mappedKeys, objectMapper.writeValueAsString(jsonPayload),
-                    asPathList);
-            return mappedKnownValuesOf(mappedKnownKeys, knownKeyValues);
-        } catch (final JsonProcessingException e) {
-            throw new JsonParsingException(format("Cannot serialize payload [%s]", jsonPayload), e);
-        }
+        return parse(CompiledKeySet.of(keys, mappedKnownKeys), jsonPayload, asPathList);
     }
 
     @Override
     public Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> mappedKnownKeys,
             final String jsonPayload, final boolean asPathList) {
-        final Set<String> mappedKeys = mappedKeysOf(mappedKnownKeys, keys);
-        final Map<String, Object[]> knownKeyValues = parse(mappedKeys, jsonPayload, asPathList);
-        return mappedKnownValuesOf(mappedKnownKeys, knownKeyValues);
+        return parse(CompiledKeySet.of(keys, mappedKnownKeys), jsonPayload, asPathList);
     }
 
-    Map<String, Object[]> parse(final Set<String> keys, final String jsonPayload, final boolean asPathList) {
-        if (isBlank(jsonPayload)) {
-            return emptyMap();
-        }
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, (IndexedPayload) prepare(jsonPayload), asPathList));
+    }
 
-        final Map<String, Object[]> resolvedKeyValues = new HashMap<>();
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, jsonPayload, asPathList));
+    }
 
-        for (final String key : keys) {
-            if (isBlank(key)) {
-                throw new IllegalArgumentException("Blank key is provided!");
-            }
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolveFromIndex(keys, indexed(jsonPayload), asPathList));
+    }
 
-            try {
-                Object result = getPathOrValueForExactKeyAnywhereInJson(key, jsonPayload, asPathList);
-
-                if (result == null) {
-                    result = getPathOrValueForKeyNestedAndBrokenInJson(key, jsonPayload, asPathList);
-                }
-
-                if (result != null) {
-                    if (result instanceof JSONArray) {
-                        final JSONArray castedResult = (JSONArray) result;
-                        if (!castedResult.isEmpty()) {
-                            resolvedKeyValues.put(key, castedResult.toArray());
-                        }
-                    } else {
-                        resolvedKeyValues.put(key, toArray(result));
-                    }
-                }
-
-            } catch (@SuppressWarnings("unused") final InvalidJsonException e) {
-                LOGGER.trace("Cannot find key [{}] or its nested version in payload [{}]", key, jsonPayload);
-            }
-        }
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length, final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, (IndexedPayload) prepare(jsonPayload, offset, length),
+                    asPathList));
+    }
 
-        return resolvedKeyValues;
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final ByteBuffer jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, (IndexedPayload) prepare(jsonPayload), asPathList));
     }
 
     @Override
-    public Map<String, Set<Object>> parseUnique(final Set<String> keys, final Map<String, String> mappedKnownKeys,
-            final Map<String, Object> payload) {
-        try {
-            final Set<String> mappedKeys = mappedKeysOf(mappedKnownKeys, keys);
-            final Map<String, Object[]> duplicatedResult = parse(mappedKeys, objectMapper.writeValueAsString(payload),
-                    false);
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final InputStream jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, (IndexedPayload) prepare(jsonPayload), asPathList));
+    }
 
-            //J-
-            final Map<String, Set<Object>> knownKeyValues = duplicatedResult.entrySet().stream()
-                                              .collect(toMap(Map.Entry::getKey,
-                                                      e -> Stream.of(e.getValue()).collect(toSet())));
-            //J+
-            return mappedKnownValuesFrom(mappedKnownKeys, knownKeyValues);
-        } catch (final JsonProcessingException e) {
-            throw new JsonParsingException(format("Cannot serialize payload [%s]", payload), e);
+    @Override
+    public void parse(final CompiledKeySet keys, final String jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        if (!isBlank(jsonPayload)) {
+            resolve(keys, prepareDocumentOf(jsonPayload), withPaths, sink);
         }
     }
 
     @Override
-    public List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
-            final Set<String> optionalKeys, final Map<String, String> mappedKnownKeys,
-            final Map<String, Object> payload) {
-        try {
-            final String mappedGroupKey = mappedKeyOf(mappedKnownKeys, groupKey);
-            final Set<String> mappedMandatoryKeys = mappedKeysOf(mappedKnownKeys, mandatoryKeys);
-            final Set<String> mappedOptionalKeys = mappedKeysOf(mappedKnownKeys, optionalKeys);
-            final List<Map<String, Object>> knownKeyValues = parseGrouped(mappedGroupKey, mappedMandatoryKeys,
-                    mappedOptionalKeys, objectMapper.writeValueAsString(payload));
+    public void parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        resolve(keys, (IndexedPayload) prepare(jsonPayload), withPaths, sink);
+    }
 
-            return mappedKnownValuesOf(mappedKnownKeys, knownKeyValues);
-        } catch (final JsonProcessingException e) {
-            throw new JsonParsingException(format("Cannot serialize payload [%s]", payload), e);
+    @Override
+    public void parse(final CompiledKeySet keys, final PreparedPayload jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        final IndexedPayload payload = indexed(jsonPayload);
+        if (!payload.isEmpty()) {
+            SinglePassKeyResolver.resolve(keys, payload.getIndex(keys), withPaths, sink);
         }
+    }
 
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final String jsonPayload) {
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        parse(keys, jsonPayload, false, values);
+        return values;
     }
 
-    List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
-            final Set<String> optionalKeys, final String payload) {
-        final List<Map<String, Object>> foundItemsFromValues = new ArrayList<>();
-        final Object[] pathsForGroupKey = parse(newHashSet(groupKey), payload, AS_PATH_LIST).getOrDefault(groupKey,
-                emptyList().toArray());
-        for (final Object path : pathsForGroupKey) {
-            final Map<String, Object> valuesForMandatoryKeys = new HashMap<>();
-            final Map<String, Object> valuesForOptionalKeys = new HashMap<>();
-            for (final String key : mandatoryKeys) {
-                final Object keyValue = resolveKeyValueSameLevelAsGroupKey(groupKey, payload, (String) path, key);
-                if (keyValue != null) {
-                    valuesForMandatoryKeys.put(key, keyValue);
-                }
-            }
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final Map<String, Object> jsonPayload) {
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        parse(keys, jsonPayload, false, values);
+        return values;
+    }
 
-            for (final String key : optionalKeys) {
-                final Object keyValue = resolveKeyValueSameLevelAsGroupKey(groupKey, payload, (String) path, key);
-                if (keyValue != null) {
-                    valuesForOptionalKeys.put(key, keyValue);
-                }
-            }
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final PreparedPayload jsonPayload) {
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        parse(keys, jsonPayload, false, values);
+        return values;
+    }
 
-            if (valuesForMandatoryKeys.values().size() == mandatoryKeys.size()) {
-                valuesForMandatoryKeys.putAll(valuesForOptionalKeys);
-                valuesForMandatoryKeys.put(groupKey, JsonPath.parse(payload).read(((String) path)));
-                foundItemsFromValues.add(valuesForMandatoryKeys);
-            }
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length) {
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        resolve(keys, (IndexedPayload) prepare(jsonPayload, offset, length), false, values);
+        return values;
+    }
+
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return lazyValuesOf(keys, (IndexedPayload) prepare(jsonPayload), asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList) {
+        return lazyValuesOf(keys, (IndexedPayload) prepare(jsonPayload), asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList) {
+        final IndexedPayload payload = indexed(jsonPayload);
+        if (payload.isEmpty()) {
+            return emptyMap();
         }
 
-        return foundItemsFromValues;
+        return new LazyKeyValues(keys, () -> payload.getIndex(keys), asPathList);
     }
 
-    private Object resolveKeyValueSameLevelAsGroupKey(final String groupKey, final String payload, final String path,
-            final String key) {
-        final String keyPath = path.replace(groupKey, key);
-        Object keyValue = null;
-        try {
-            keyValue = JsonPath.parse(payload).read(keyPath);
-        } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
-            LOGGER.debug("Path [{}] was not found", keyPath);
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final String jsonPayload) {
+        return locationsOf(keys, isBlank(jsonPayload) ? IndexedPayload.EMPTY : prepareDocumentOf(jsonPayload));
+    }
+
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload) {
+        return locationsOf(keys, (IndexedPayload) prepare(jsonPayload));
+    }
+
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final PreparedPayload jsonPayload) {
+        final IndexedPayload payload = indexed(jsonPayload);
+        if (payload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        return keyValue;
+        return SinglePassKeyResolver.resolveLocations(keys, payload.getIndex(keys));
+    }
+
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final String jsonPayload) {
+        final ReadPathTrie trie = ReadPathTrie.of(paths, jsonPathCache);
+        return valuesAt(trie, isBlank(jsonPayload) ? IndexedPayload.EMPTY : prepareDocumentOf(jsonPayload));
+    }
+
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final Map<String, Object> jsonPayload) {
+        return valuesAt(ReadPathTrie.of(paths, jsonPathCache), (IndexedPayload) prepare(jsonPayload));
+    }
+
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final PreparedPayload jsonPayload) {
+        return valuesAt(ReadPathTrie.of(paths, jsonPathCache), indexed(jsonPayload));
+    }
+
+    @Override
+    public Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys,
+            final String jsonPayload) {
+        return valuesByShape(shapeId, keys,
+                isBlank(jsonPayload) ? IndexedPayload.EMPTY : prepareDocumentOf(jsonPayload));
+    }
+
+    @Override
+    public Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload) {
+        return valuesByShape(shapeId, keys, (IndexedPayload) prepare(jsonPayload));
     }
 
     /**
-     * Searches for the exact given {@code key} no matter whether it is at the root of the payload or nested somewhere
-     * in it. e.g: looking for {@code customer_number} as key
-     *
-     * <pre>
-       <code>
-      {
-        "size": 27,
-        "customer_number": "12345"
-      }
-       </code>
-       OR
-
-      {
-        "size": 27,
-        "customer": {
-            "customer_number": "12345"
-        }
-      }
-       </code>
-     * </pre>
-     *
-     * @param   key
-     * @param   jsonPayload
-     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
-     *                       value
-     *
-     * @return  the found value for the given {@code key}
+     * Reads the values along the locations learned for the shape. If there are none or they do not fit the payload
+     * any longer, the payload is walked as a whole and the locations of the matches are learned from it, unless one
+     * of the keys was not found in it.
      */
-    private Object getPathOrValueForExactKeyAnywhereInJson(final String key, final String jsonPayload,
-            final boolean asPathList) {
-        final Object result;
+    private Map<String, Object[]> valuesByShape(final String shapeId, final CompiledKeySet keys,
+            final IndexedPayload payload) {
+        if (shapeId == null) {
+            throw new IllegalArgumentException("The shape id cannot be null!");
+        }
+
+        if (payload.isEmpty()) {
+            return new HashMap<>();
+        }
 
-        if (asPathList) {
-            try {
-                result = using(PATH_CONFIGURATION).parse(jsonPayload).read(DEEP_SCAN_OP + key);
-            } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
-                return null;
+        final KeyLocations locations = keyLocationCache.get(shapeId, keys);
+        if (locations != null) {
+            final Map<String, Object[]> values = locations.readFrom(payload.getDocument(), payload.getConverter());
+            if (values != null) {
+                keyLocationCache.recordHit();
+                return values;
             }
-        } else {
-            result = JsonPath.parse(jsonPayload).read(DEEP_SCAN_OP + key);
         }
 
-        final JSONArray resultArray = (JSONArray) result;
-        if (!resultArray.isEmpty()) {
-            return resultArray;
+        keyLocationCache.recordMiss();
+
+        final Map<String, List<Object>> foundValues = new HashMap<>();
+        final List<Entry<String, String>> keysByPath = new ArrayList<>();
+        resolve(keys, payload, AS_PATH_LIST, (key, path, value) -> {
+            foundValues.computeIfAbsent(key, requestedKey -> new ArrayList<>()).add(value);
+            keysByPath.add(new SimpleImmutableEntry<>(key, path));
+        });
+        keyLocationCache.put(shapeId, keys,
+            KeyLocations.of(payload.getDocument(), payload.getConverter(), keys, keysByPath));
+
+        final Map<String, Object[]> values = new HashMap<>();
+        for (final Entry<String, List<Object>> keyValues : foundValues.entrySet()) {
+            values.put(keyValues.getKey(), keyValues.getValue().toArray());
+        }
+
+        return values;
+    }
+
+    private static Map<String, Object> valuesAt(final ReadPathTrie paths, final IndexedPayload payload) {
+        if (payload.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return paths.readFrom(payload);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload, final boolean asPathList,
+            final int maxMatches) {
+        SinglePassKeyResolver.checkMaxMatches(maxMatches);
+
+        final IndexedPayload payload = isBlank(jsonPayload) ? IndexedPayload.EMPTY : prepareDocumentOf(jsonPayload);
+        return mappedKnownValuesOf(keys, resolve(keys, payload, asPathList, maxMatches));
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList, final int maxMatches) {
+        SinglePassKeyResolver.checkMaxMatches(maxMatches);
+        return mappedKnownValuesOf(keys, resolve(keys, (IndexedPayload) prepare(jsonPayload), asPathList,
+                    maxMatches));
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList, final int maxMatches) {
+        SinglePassKeyResolver.checkMaxMatches(maxMatches);
+
+        final IndexedPayload payload = indexed(jsonPayload);
+        if (payload.isEmpty()) {
+            return mappedKnownValuesOf(keys, new HashMap<>());
+        }
+
+        return mappedKnownValuesOf(keys,
+                SinglePassKeyResolver.resolve(keys, payload.getIndex(keys), asPathList, maxMatches));
+    }
+
+    @Override
+    public List<Map<String, Object[]>> parseAll(final CompiledKeySet keys, final Spliterator<String> jsonPayloads,
+            final boolean asPathList, final ForkJoinPool pool) {
+        return ParallelBatch.parseAll(pool, jsonPayloads, () -> jsonPayload -> parse(keys, jsonPayload, asPathList));
+    }
+
+    Map<String, Object[]> parse(final Set<String> keys, final String jsonPayload, final boolean asPathList) {
+        return resolve(CompiledKeySet.of(keys), jsonPayload, asPathList);
+    }
+
+    private Map<String, Object[]> resolve(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        if (isBlank(jsonPayload)) {
+            return emptyMap();
+        }
+
+        return resolve(keys, prepareDocumentOf(jsonPayload), asPathList);
+    }
+
+    private Map<String, Object[]> resolve(final CompiledKeySet keys, final IndexedPayload payload,
+            final boolean asPathList) {
+        if (payload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        return null;
+        return SinglePassKeyResolver.resolve(keys, FieldIndex.of(payload.getDocument(), payload.getConverter(),
+                    keys, asPathList, arrayParallelism), asPathList);
     }
 
     /**
-     * Looks whether the consists of more than one part. If so it looks for the first part in the payload and then for
-     * the second part in the value of first part. e.g: looking for {@code customer_number} as key
-     *
-     * <pre>
-       <code>
-      {
-        "size": 27,
-        "customer": {
-            "number": "12345"
-        }
-      }
-       </code>
-     * </pre>
-     *
-     * Note that this method only looks two levels deep in the payload.
-     *
-     * @param   key
-     * @param   jsonPayload
-     * @param   asPathList   if {@code true} the function will look for the path of the {@code key} otherwise for the
-     *                       value
-     *
-     * @return
+     * Walks the document only until every key has been found {@code maxMatches} times.
      */
-    private Object getPathOrValueForKeyNestedAndBrokenInJson(final String key, final String jsonPayload,
+    private Map<String, Object[]> resolve(final CompiledKeySet keys, final IndexedPayload payload,
+            final boolean asPathList, final int maxMatches) {
+        if (payload.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        return SinglePassKeyResolver.resolve(keys,
+                FieldIndex.of(payload.getDocument(), payload.getConverter(), keys, asPathList, maxMatches), asPathList,
+                maxMatches);
+    }
+
+    private void resolve(final CompiledKeySet keys, final IndexedPayload payload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        if (!payload.isEmpty()) {
+            SinglePassKeyResolver.resolve(keys, payload.getDocument(), payload.getConverter(), withPaths, sink);
+        }
+    }
+
+    private Map<String, Object[]> lazyValuesOf(final CompiledKeySet keys, final IndexedPayload payload,
             final boolean asPathList) {
-        final String[] splitPayloadKey = key.split(SEPARATOR);
+        if (payload.isEmpty()) {
+            return emptyMap();
+        }
 
-        if (splitPayloadKey.length != 2) {
-            if (splitPayloadKey.length == 1 && key.contains(SEPARATOR)) {
-                LOGGER.error("The provided key [{}] is malformed", key);
-            }
+        return new LazyKeyValues(keys,
+                () -> FieldIndex.of(payload.getDocument(), payload.getConverter(), keys, asPathList, arrayParallelism),
+                asPathList);
+    }
 
-            return null;
+    private Map<String, JsonLocation[]> locationsOf(final CompiledKeySet keys, final IndexedPayload payload) {
+        if (payload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        if (isNotEmpty(splitPayloadKey)) {
-            if (asPathList) {
-                return resolvePath(splitPayloadKey, jsonPayload);
-            }
+        return SinglePassKeyResolver.resolveLocations(keys, FieldIndex.of(payload.getDocument(),
+                    payload.getConverter(), keys, true, arrayParallelism));
+    }
 
-            return resolveValue(splitPayloadKey, jsonPayload);
+    private Map<String, Object[]> resolveFromIndex(final CompiledKeySet keys, final IndexedPayload payload,
+            final boolean asPathList) {
+        if (payload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        return null;
+        return SinglePassKeyResolver.resolve(keys, payload.getIndex(keys), asPathList);
     }
 
-    private Object resolveValue(final String[] splitPayloadKey, final String jsonPayload) {
-        final JSONArray result = new JSONArray();
-        JSONArray partiallyFoundKeys = null;
-        try {
-            partiallyFoundKeys = JsonPath.parse(jsonPayload).read(DEEP_SCAN_OP + splitPayloadKey[0]);
-            resolveSecondKeyUsing(IMMEDIATE_OBJECT_SCAN, splitPayloadKey, result, partiallyFoundKeys);
-        } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
-            if (partiallyFoundKeys == null || partiallyFoundKeys.isEmpty()) {
-                return result;
-            }
+    @Override
+    public Map<String, Set<Object>> parseUnique(final Set<String> keys, final Map<String, String> mappedKnownKeys,
+            final Map<String, Object> payload) {
+        return parseUnique(CompiledKeySet.of(keys, mappedKnownKeys), payload);
+    }
 
-            resolveSecondKeyUsing(IMMEDIATE_ARRAY_SCAN, splitPayloadKey, result, partiallyFoundKeys);
+    @Override
+    public Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, final Map<String, Object> payload) {
+        final IndexedPayload indexedPayload = (IndexedPayload) prepare(payload);
+        if (indexedPayload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        return result;
+        return uniqueValuesOf(keys, FieldIndex.ofUniqueValues(indexedPayload.getDocument(),
+                    indexedPayload.getConverter(), keys, arrayParallelism));
     }
 
-    private void resolveSecondKeyUsing(final String scanType, final String[] splitPayloadKey, final JSONArray result,
-            final JSONArray partiallyFoundKeys) {
-        String operation = null;
-        if (IMMEDIATE_OBJECT_SCAN.equals(scanType)) {
-            operation = ROOT_SCAN_OP;
+    @Override
+    public Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, final PreparedPayload payload) {
+        final IndexedPayload indexedPayload = indexed(payload);
+        if (indexedPayload.isEmpty()) {
+            return new HashMap<>();
         }
 
-        if (IMMEDIATE_ARRAY_SCAN.equals(scanType)) {
-            operation = ALL_FROM_ROOT_OP;
+        return uniqueValuesOf(keys, indexedPayload.getIndex(keys));
+    }
+
+    /**
+     * Collects the matches straight into a set per requested key, a value found again is dropped right away.
+     */
+    private static Map<String, Set<Object>> uniqueValuesOf(final CompiledKeySet keys, final FieldIndex index) {
+        final Map<String, Set<Object>> uniqueValues = new HashMap<>();
+        SinglePassKeyResolver.resolve(keys, index, false,
+            (key, path, value) -> uniqueValues.computeIfAbsent(key, requestedKey -> new UniqueValueSet()).add(value));
+        return uniqueValues;
+    }
+
+    @Override
+    public List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final Map<String, String> mappedKnownKeys,
+            final Map<String, Object> payload) {
+        return parseGrouped(groupKey, mandatoryKeys, optionalKeys, KeyMapping.of(mappedKnownKeys), prepare(payload));
+    }
+
+    @Override
+    public List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final KeyMapping keyMapping, final PreparedPayload payload) {
+        final String mappedGroupKey = keyMapping.lookupKeyOf(groupKey);
+        final Set<String> mappedMandatoryKeys = mappedKeysOf(keyMapping, mandatoryKeys);
+        final Set<String> mappedOptionalKeys = mappedKeysOf(keyMapping, optionalKeys);
+        final List<Map<String, Object>> knownKeyValues = parseGrouped(mappedGroupKey, mappedMandatoryKeys,
+                mappedOptionalKeys, indexed(payload));
+
+        return mappedKnownValuesOf(keyMapping, knownKeyValues);
+    }
+
+    List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final String payload) {
+        return parseGrouped(groupKey, mandatoryKeys, optionalKeys, (IndexedPayload) prepare(payload));
+    }
 
+    /**
+     * Builds the groups from the occurrences of the group key collected in the index of the payload. The sibling keys
+     * are taken from the object each occurrence was found in. Only if the group key was not found as such (i.e. as
+     * split key), if it is part of the path of an occurrence as well or if a key cannot be read as a plain property,
+     * the siblings are read by replacing the group key in the path of the occurrence.
+     */
+    private List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final IndexedPayload payload) {
+        final List<Map<String, Object>> foundItemsFromValues = new ArrayList<>();
+        final CompiledKeySet groupKeys = CompiledKeySet.of(newHashSet(groupKey));
+        if (payload.isEmpty()) {
+            return foundItemsFromValues;
         }
 
-        for (final Object partiallyFoundKey : partiallyFoundKeys) {
-            final Object partialResult = JsonPath.parse(partiallyFoundKey).read(operation + splitPayloadKey[1]);
+        final List<FieldOccurrence> groupOccurrences = payload.getIndex().occurrencesOf(groupKey);
+        if (groupOccurrences.isEmpty()) {
+            final Object[] pathsForGroupKey = resolveFromIndex(groupKeys, payload, AS_PATH_LIST).getOrDefault(
+                    groupKey, emptyList().toArray());
+            final DocumentContext document = payload.getContext();
+            for (final Object path : pathsForGroupKey) {
+                addGroupAt(groupKey, mandatoryKeys, optionalKeys, payload, document, (String) path,
+                    foundItemsFromValues);
+            }
+
+            return foundItemsFromValues;
+        }
 
-            if (partialResult instanceof JSONArray) {
-                result.addAll((JSONArray) partialResult);
+        final boolean arePlainKeys = isPlainProperty(groupKey) && arePlainProperties(mandatoryKeys)
+                && arePlainProperties(optionalKeys);
+        final FieldIndex index = payload.getIndex();
+        final DocumentContext document = payload.getContext();
+        for (final FieldOccurrence occurrence : groupOccurrences) {
+            if (arePlainKeys && occurrence.getPath().countOf(groupKey) == 1
+                    && occurrence.getObject().containsKey(groupKey)) {
+                addGroupOf(groupKey, mandatoryKeys, optionalKeys, index, occurrence, foundItemsFromValues);
             } else {
-                result.add(partialResult);
+                addGroupAt(groupKey, mandatoryKeys, optionalKeys, payload, document,
+                    occurrence.getPath().toString(), foundItemsFromValues);
             }
         }
+
+        return foundItemsFromValues;
     }
 
-    private Object resolvePath(final String[] splitPayloadKey, final String jsonPayload) {
-        final JSONArray result = new JSONArray();
-        JSONArray partiallyFoundKeys = null;
-        JSONArray partiallyFoundPath = null;
-        try {
-            partiallyFoundKeys = JsonPath.parse(jsonPayload).read(DEEP_SCAN_OP + splitPayloadKey[0]);
-            partiallyFoundPath = using(PATH_CONFIGURATION).parse(jsonPayload).read(DEEP_SCAN_OP + splitPayloadKey[0]);
-
-            for (int i = 0; i < partiallyFoundKeys.size(); i++) {
-                final JSONArray subPath = using(PATH_CONFIGURATION).parse(partiallyFoundKeys.get(i)).read(ROOT_SCAN_OP
-                            + splitPayloadKey[1]);
-
-                final Object partialResult = buildFullPathOf(partiallyFoundPath.get(i), subPath);
-                if (partialResult instanceof JSONArray) {
-                    result.addAll((JSONArray) partialResult);
-                } else {
-                    result.add(partialResult);
-                }
+    private static void addGroupOf(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final FieldIndex index, final FieldOccurrence occurrence,
+            final List<Map<String, Object>> foundItemsFromValues) {
+        final Map<?, ?> object = occurrence.getObject();
+        final Map<String, Object> values = new HashMap<>();
+        for (final String key : mandatoryKeys) {
+            final Object keyValue = index.matchOf(object.get(key));
+            if (keyValue == null) {
+                return;
             }
-        } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
-            if (partiallyFoundKeys == null || partiallyFoundKeys.isEmpty() || partiallyFoundPath == null
-                    || partiallyFoundPath.isEmpty()) {
-                return result;
+
+            values.put(key, keyValue);
+        }
+
+        for (final String key : optionalKeys) {
+            final Object keyValue = index.matchOf(object.get(key));
+            if (keyValue != null) {
+                values.put(key, keyValue);
+            }
+        }
+
+        values.put(groupKey, index.matchOf(occurrence.getValue()));
+        foundItemsFromValues.add(values);
+    }
+
+    private void addGroupAt(final String groupKey, final Set<String> mandatoryKeys, final Set<String> optionalKeys,
+            final IndexedPayload payload, final DocumentContext document, final String path,
+            final List<Map<String, Object>> foundItemsFromValues) {
+        final Map<String, Object> valuesForMandatoryKeys = new HashMap<>();
+        final Map<String, Object> valuesForOptionalKeys = new HashMap<>();
+        for (final String key : mandatoryKeys) {
+            final Object keyValue = resolveKeyValueSameLevelAsGroupKey(groupKey, document, path, key);
+            if (keyValue != null) {
+                valuesForMandatoryKeys.put(key, payload.matchOf(keyValue));
             }
+        }
+
+        for (final String key : optionalKeys) {
+            final Object keyValue = resolveKeyValueSameLevelAsGroupKey(groupKey, document, path, key);
+            if (keyValue != null) {
+                valuesForOptionalKeys.put(key, payload.matchOf(keyValue));
+            }
+        }
 
-            for (int i = 0; i < partiallyFoundKeys.size(); i++) {
-                final Object partialResult = buildFullPathOf(partiallyFoundPath.get(i),
-                        using(PATH_CONFIGURATION_SUPPRESS_EXCEPTIONS).parse(partiallyFoundKeys.get(i)).read(
-                            ALL_FROM_ROOT_OP + splitPayloadKey[1]));
-                if (partialResult instanceof JSONArray) {
-                    result.addAll((JSONArray) partialResult);
-                } else {
-                    result.add(partialResult);
-                }
+        if (valuesForMandatoryKeys.values().size() == mandatoryKeys.size()) {
+            valuesForMandatoryKeys.putAll(valuesForOptionalKeys);
+            valuesForMandatoryKeys.put(groupKey, payload.matchOf(document.read(jsonPathCache.compile(path))));
+            foundItemsFromValues.add(valuesForMandatoryKeys);
+        }
+    }
+
+    private static boolean arePlainProperties(final Set<String> keys) {
+        for (final String key : keys) {
+            if (!isPlainProperty(key)) {
+                return false;
             }
         }
 
-        return result;
+        return true;
+    }
+
+    /**
+     * @return  {@code true} if JsonPath reads the {@code key} in bracket notation the same way as a map lookup
+     */
+    private static boolean isPlainProperty(final String key) {
+        return key != null && containsNone(key, '\'', '"', '\\', ',', '[', ']');
+    }
+
+    private Object resolveKeyValueSameLevelAsGroupKey(final String groupKey, final DocumentContext document,
+            final String path, final String key) {
+        final String keyPath = path.replace(groupKey, key);
+        Object keyValue = null;
+        try {
+            keyValue = document.read(jsonPathCache.compile(keyPath));
+        } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
+            LOGGER.debug("Path [{}] was not found", keyPath);
+        }
+
+        return keyValue;
+    }
+
+    private IndexedPayload prepareDocumentOf(final String jsonPayload) {
+        try {
+            return new IndexedPayload(Configuration.defaultConfiguration().jsonProvider().parse(jsonPayload),
+                    arrayParallelism);
+        } catch (@SuppressWarnings("unused") final InvalidJsonException e) {
+            LOGGER.trace("Cannot parse payload [{}]", jsonPayload);
+            return IndexedPayload.EMPTY;
+        }
     }
 
-    private Object buildFullPathOf(final Object partiallyFoundPath, final JSONArray subPathArray) {
-        //J-
-        final List<String> subPaths = subPathArray.stream()
-            .map(subEntry -> String.valueOf(partiallyFoundPath)
-                + ROOT_ELEMENT_PATTERN.matcher(String.valueOf(subEntry)).replaceAll(EMPTY_STRING))
-            .collect(Collectors.toList());
-        //J+
+    private IndexedPayload prepareDocumentOf(final InputStream jsonPayload) {
+        try {
+            return new IndexedPayload(Configuration.defaultConfiguration().jsonProvider().parse(jsonPayload,
+                        UTF_8.name()), arrayParallelism);
+        } catch (final InvalidJsonException e) {
+            if (indexOfType(e, IOException.class) >= 0) {
+                throw new JsonParsingException("Cannot read payload", e);
+            }
+
+            LOGGER.trace("Cannot parse payload", e);
+            return IndexedPayload.EMPTY;
+        }
+    }
 
-        final JSONArray resultPath = new JSONArray();
-        resultPath.addAll(subPaths);
-        return resultPath;
+    private static IndexedPayload indexed(final PreparedPayload payload) {
+        if (payload instanceof IndexedPayload) {
+            return (IndexedPayload) payload;
+        }
 
+        throw new IllegalArgumentException(format("Payload [%s] was not prepared by this parser", payload));
     }
 
 }
@@ -0,0 +1,607 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.UnaryOperator;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.KeyMatchSink;
+
+/**
+ * The occurrences of field names in a parsed json document, collected in one depth first walk. The occurrences of a
+ * name are kept in the order of a {@code $..name} deep scan, i.e. a field of an object comes before the fields with the
+ * same name which are nested in the values of that object.
+ *
+ * <p>Large arrays may be walked in parallel, see {@link ArrayParallelism}. Every part of such an array is indexed on
+ * its own and the parts are appended to the index in the order of the array, hence the index is the same as if the
+ * array had been walked sequentially.</p>
+ *
+ * <p>An index may be limited to a maximum number of occurrences per lookup key, then the walk stops as soon as every
+ * lookup key has been found that often. Since the occurrences are collected in the order of the deep scan, the ones
+ * found up to then are the first ones of the deep scan.</p>
+ *
+ * <p>The splits of the keys made of more than two parts are matched during the same walk: every object is walked with
+ * the nodes of the {@link SplitKeyTrie} reached by the fields enclosing it, arrays pass them on to their elements. A
+ * field which ends a key from one of these nodes is an occurrence of the split key, kept in the order of the deep scan
+ * as well.</p>
+ *
+ * <p>An index of unique values keeps only the first occurrence of every scalar value of a field name, for callers
+ * which collect the values into sets. Objects and arrays are kept as they are, so the split keys resolve the same
+ * way.</p>
+ *
+ * <p>An index may hand the matches of the exact keys to a {@link KeyMatchSink} while the document is walked instead of
+ * keeping them. Only the first parts of the split keys and the splits of the keys made of more than two parts are
+ * indexed then, as whether they are matches is only known once the walk has found no exact key.</p>
+ */
+final class FieldIndex {
+
+    private final Map<String, List<FieldOccurrence>> occurrencesByName = new HashMap<>();
+    private final Map<String, List<FieldOccurrence>> splitOccurrencesByKey = new HashMap<>();
+    private final UnaryOperator<Object> converter;
+    private final KeyNames names;
+    private final boolean indexAllNames;
+    private final boolean trackPaths;
+    private final ArrayParallelism arrayParallelism;
+    private final Set<String> limitedKeys;
+    private final Set<String> cappedNames;
+    private final int maxOccurrences;
+    private final SplitKeyTrie.Node splitKeyRoot;
+    private Map<String, Set<Object>> scalarValuesByName;
+    private KeyMatchSink sink;
+    private Map<String, List<String>> sinkKeysByName;
+    private Set<String> emittedNames;
+    private int unsatisfiedKeys;
+
+    private FieldIndex(final UnaryOperator<Object> converter, final KeyNames names, final boolean indexAllNames,
+            final boolean trackPaths, final ArrayParallelism arrayParallelism, final SplitKeyTrie.Node splitKeyRoot) {
+        this(converter, names, indexAllNames, trackPaths, arrayParallelism, splitKeyRoot, emptySet(), emptySet(),
+            Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param  keys            the keys which decide under which names the fields are matched, {@code null} to match
+     *                         them by their names as they are
+     * @param  splitKeyRoot    the root of the trie of the keys made of more than two parts, {@code null} if there are
+     *                         none
+     * @param  limitedKeys     the lookup keys whose occurrences are counted to stop the walk
+     * @param  cappedNames     the field names of which no more than {@code maxOccurrences} are collected, i.e. the
+     *                         limited keys which are not needed to resolve a split key
+     * @param  maxOccurrences  the number of occurrences after which a limited key is satisfied
+     */
+    private FieldIndex(final UnaryOperator<Object> converter, final KeyNames names, final boolean indexAllNames,
+            final boolean trackPaths, final ArrayParallelism arrayParallelism, final SplitKeyTrie.Node splitKeyRoot,
+            final Set<String> limitedKeys, final Set<String> cappedNames, final int maxOccurrences) {
+        this.converter = converter;
+        this.names = names;
+        this.indexAllNames = indexAllNames;
+        this.trackPaths = trackPaths;
+        this.arrayParallelism = arrayParallelism;
+        this.limitedKeys = limitedKeys;
+        this.cappedNames = cappedNames;
+        this.maxOccurrences = maxOccurrences;
+        this.unsatisfiedKeys = limitedKeys.size();
+        this.splitKeyRoot = splitKeyRoot;
+    }
+
+    /**
+     * Indexes every field name of the {@code document} together with the paths of the fields.
+     *
+     * @param   document   the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter  presents the values of the {@code document} as json values
+     *
+     * @return  the index of all field names
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter) {
+        return of(document, converter, ArrayParallelism.NONE);
+    }
+
+    /**
+     * Same as {@link #of(Object, UnaryOperator)} but walks large arrays in parallel.
+     *
+     * @param   document          the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter         presents the values of the {@code document} as json values
+     * @param   arrayParallelism  decides which arrays are walked in parallel
+     *
+     * @return  the index of all field names
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter,
+            final ArrayParallelism arrayParallelism) {
+        final FieldIndex index = new FieldIndex(converter, null, true, true, arrayParallelism, null);
+        index.walk(document, PathNode.ROOT, emptyList());
+        return index;
+    }
+
+    /**
+     * Indexes only the field names needed by the given {@code keys} and the splits of their keys made of more than
+     * two parts.
+     *
+     * @param   document    the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter   presents the values of the {@code document} as json values
+     * @param   keys        the compiled keys to look for
+     * @param   trackPaths  if {@code true} the paths of the found fields are kept as well
+     *
+     * @return  the index of the field names of the {@code keys}
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter, final CompiledKeySet keys,
+            final boolean trackPaths) {
+        return of(document, converter, keys, trackPaths, ArrayParallelism.NONE);
+    }
+
+    /**
+     * Same as {@link #of(Object, UnaryOperator, CompiledKeySet, boolean)} but walks large arrays in parallel.
+     *
+     * @param   document          the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter         presents the values of the {@code document} as json values
+     * @param   keys              the compiled keys to look for
+     * @param   trackPaths        if {@code true} the paths of the found fields are kept as well
+     * @param   arrayParallelism  decides which arrays are walked in parallel
+     *
+     * @return  the index of the field names of the {@code keys}
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter, final CompiledKeySet keys,
+            final boolean trackPaths, final ArrayParallelism arrayParallelism) {
+        final KeyNames names = KeyNames.of(keys);
+        final FieldIndex index = new FieldIndex(converter, names, false, trackPaths, arrayParallelism,
+                rootOf(names.getSplitKeyTrie()));
+        for (final String fieldName : names.getFieldNames()) {
+            index.occurrencesByName.put(fieldName, new ArrayList<>());
+        }
+
+        index.walk(document, trackPaths ? PathNode.ROOT : null, emptyList());
+        return index;
+    }
+
+    /**
+     * Same as {@link #of(Object, UnaryOperator, CompiledKeySet, boolean, ArrayParallelism)} without paths, but a
+     * scalar value found again under the same field name is not added, so the index grows with the number of distinct
+     * values instead of the number of fields.
+     *
+     * @param   document          the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter         presents the values of the {@code document} as json values
+     * @param   keys              the compiled keys to look for
+     * @param   arrayParallelism  decides which arrays are walked in parallel, the parts of an array may hold the same
+     *                            scalar values
+     *
+     * @return  the index of the field names of the {@code keys}
+     */
+    static FieldIndex ofUniqueValues(final Object document, final UnaryOperator<Object> converter,
+            final CompiledKeySet keys, final ArrayParallelism arrayParallelism) {
+        final KeyNames names = KeyNames.of(keys);
+        final FieldIndex index = new FieldIndex(converter, names, false, false, arrayParallelism,
+                rootOf(names.getSplitKeyTrie()));
+        index.scalarValuesByName = new HashMap<>();
+        for (final String fieldName : names.getFieldNames()) {
+            index.occurrencesByName.put(fieldName, new ArrayList<>());
+        }
+
+        index.walk(document, null, emptyList());
+        return index;
+    }
+
+    /**
+     * Hands the fields matched by the lookup keys of the {@code keys} to the {@code sink} as they are found, in the
+     * order of the deep scan, and indexes only the first parts of the split keys and the splits of the keys made of
+     * more than two parts. Arrays are walked sequentially, so that the {@code sink} is called by the current thread
+     * only.
+     *
+     * @param   document   the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter  presents the values of the {@code document} as json values
+     * @param   keys       the compiled keys to look for
+     * @param   withPaths  if {@code true} the paths of the found fields are handed over and kept as well
+     * @param   sink       receives the matches of the lookup keys under the requested keys
+     *
+     * @return  the index of the fields needed to resolve the split keys which are not {@link #hasEmitted(String)
+     *          found exactly}
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter, final CompiledKeySet keys,
+            final boolean withPaths, final KeyMatchSink sink) {
+        final KeyNames names = KeyNames.of(keys);
+        final FieldIndex index = new FieldIndex(converter, names, false, withPaths, ArrayParallelism.NONE,
+                rootOf(names.getSplitKeyTrie()));
+        index.sink = sink;
+        index.sinkKeysByName = new HashMap<>();
+        index.emittedNames = new HashSet<>();
+        for (final String lookupKey : keys.getLookupKeys()) {
+            index.sinkKeysByName.computeIfAbsent(names.nameOf(lookupKey), name -> new ArrayList<>(1)).add(keys.keyOf(
+                    lookupKey));
+        }
+
+        for (final String firstPart : names.getSecondPartsByFirstPart().keySet()) {
+            index.occurrencesByName.put(firstPart, new ArrayList<>());
+        }
+
+        index.walk(document, withPaths ? PathNode.ROOT : null, emptyList());
+        return index;
+    }
+
+    /**
+     * Indexes the field names needed by the {@code keys} until every lookup key has been found
+     * {@code maxOccurrences} times. The first part of a split key is collected as long as the walk goes on, as all of
+     * its occurrences are needed if the exact key is not found. Arrays are walked sequentially.
+     *
+     * @param   document        the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter       presents the values of the {@code document} as json values
+     * @param   keys            the compiled keys to look for
+     * @param   trackPaths      if {@code true} the paths of the found fields are kept as well
+     * @param   maxOccurrences  the number of occurrences of every lookup key after which the walk stops
+     *
+     * @return  the index of the field names of the {@code keys}, holding at least the first {@code maxOccurrences}
+     *          occurrences of every lookup key in the order of the deep scan
+     */
+    static FieldIndex of(final Object document, final UnaryOperator<Object> converter, final CompiledKeySet keys,
+            final boolean trackPaths, final int maxOccurrences) {
+        final KeyNames names = KeyNames.of(keys);
+        final Set<String> limitedKeys = new HashSet<>();
+        keys.getLookupKeys().forEach(lookupKey -> limitedKeys.add(names.nameOf(lookupKey)));
+
+        final Set<String> cappedNames = new HashSet<>(limitedKeys);
+        cappedNames.removeAll(names.getSecondPartsByFirstPart().keySet());
+
+        final FieldIndex index = new FieldIndex(converter, names, false, trackPaths, ArrayParallelism.NONE,
+                rootOf(names.getSplitKeyTrie()), limitedKeys, cappedNames, maxOccurrences);
+        for (final String fieldName : names.getFieldNames()) {
+            index.occurrencesByName.put(fieldName, new ArrayList<>());
+        }
+
+        index.walk(document, trackPaths ? PathNode.ROOT : null, emptyList());
+        return index;
+    }
+
+    /**
+     * Adds the splits of the keys made of more than two parts to an index of all field names, which cannot hold them
+     * as they depend on the keys. The names are matched as they are.
+     *
+     * @param   document   the indexed document
+     * @param   splitKeys  the keys made of more than two parts to match the splits of
+     *
+     * @return  an index with the occurrences of this index and the occurrences of the split keys, or this index if
+     *          there are no {@code splitKeys}
+     */
+    FieldIndex withSplitKeys(final Object document, final SplitKeyTrie splitKeys) {
+        if (splitKeys.isEmpty()) {
+            return this;
+        }
+
+        final FieldIndex index = new FieldIndex(converter, null, false, trackPaths, arrayParallelism,
+                rootOf(splitKeys));
+        index.walk(document, trackPaths ? PathNode.ROOT : null, emptyList());
+        index.occurrencesByName.putAll(occurrencesByName);
+        return index;
+    }
+
+    /**
+     * @param   name  the name of a field as it is matched, see {@link KeyNames#nameOf(String)}
+     *
+     * @return  {@code true} if the index handed fields of the {@code name} to a {@link KeyMatchSink}
+     */
+    boolean hasEmitted(final String name) {
+        return emittedNames != null && emittedNames.contains(name);
+    }
+
+    /**
+     * @param   fieldName  name of the field as it is matched, see {@link KeyNames#nameOf(String)}
+     *
+     * @return  an always {@code non-null} list of the occurrences of the field
+     */
+    List<FieldOccurrence> occurrencesOf(final String fieldName) {
+        return occurrencesByName.getOrDefault(fieldName, emptyList());
+    }
+
+    /**
+     * @param   lookupKey  a lookup key made of more than two parts
+     *
+     * @return  an always {@code non-null} list of the fields which end a split of the key
+     */
+    List<FieldOccurrence> splitOccurrencesOf(final String lookupKey) {
+        return splitOccurrencesByKey.getOrDefault(lookupKey, emptyList());
+    }
+
+    /**
+     * @param   object  an object of the indexed document
+     * @param   name    the name of a field as it is matched, see {@link KeyNames#nameOf(String)}
+     *
+     * @return  the name of the first field of the {@code object} which is matched by the {@code name}, {@code null} if
+     *          there is none
+     */
+    String fieldNameIn(final Map<?, ?> object, final String name) {
+        if (names == null || !names.ignoresNamingConvention()) {
+            return object.containsKey(name) ? name : null;
+        }
+
+        for (final Object key : object.keySet()) {
+            final String fieldName = String.valueOf(key);
+            if (name.equals(names.nameOf(fieldName))) {
+                return fieldName;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param   value  a value of the indexed document
+     *
+     * @return  the value as it is presented in the occurrences of this index
+     */
+    Object valueOf(final Object value) {
+        return converter.apply(value);
+    }
+
+    /**
+     * @param   value  a value of the indexed document which is handed out as a match
+     *
+     * @return  the value as it would have been parsed from json, a copy if the document is a payload given as
+     *          {@link Map}
+     */
+    Object matchOf(final Object value) {
+        return MapPayloadConverter.matchOf(converter, value);
+    }
+
+    /**
+     * @param  splitKeyNodes  the nodes of the split key trie reached by the fields enclosing the {@code node}
+     */
+    private void walk(final Object node, final PathNode path, final List<SplitKeyTrie.Node> splitKeyNodes) {
+        if (node instanceof Map) {
+            final Map<?, ?> object = (Map<?, ?>) node;
+            for (final Entry<?, ?> field : object.entrySet()) {
+                final String fieldName = String.valueOf(field.getKey());
+                final String name = nameOf(fieldName);
+                if (sink != null) {
+                    emit(name, field.getValue(), trackPaths ? path.field(fieldName) : null);
+                }
+
+                final List<FieldOccurrence> occurrences = occurrencesFor(name);
+                if (occurrences != null && (occurrences.size() < maxOccurrences || !cappedNames.contains(name))) {
+                    final Object value = converter.apply(field.getValue());
+                    if (isNewValue(name, value)) {
+                        occurrences.add(new FieldOccurrence(value, trackPaths ? path.field(fieldName) : null, object));
+                        if (occurrences.size() == maxOccurrences && limitedKeys.contains(name)) {
+                            unsatisfiedKeys--;
+                        }
+                    }
+                }
+
+                for (final SplitKeyTrie.Node splitKeyNode : splitKeyNodes) {
+                    final SplitKeyTrie.Node child = splitKeyNode.childOf(name);
+                    if (child != null && !child.getLookupKeys().isEmpty()) {
+                        final FieldOccurrence occurrence = new FieldOccurrence(converter.apply(field.getValue()),
+                                trackPaths ? path.field(fieldName) : null, object);
+                        for (final String lookupKey : child.getLookupKeys()) {
+                            splitOccurrencesByKey.computeIfAbsent(lookupKey, key -> new ArrayList<>()).add(occurrence);
+                        }
+                    }
+                }
+            }
+
+            for (final Entry<?, ?> field : object.entrySet()) {
+                if (isComplete()) {
+                    return;
+                }
+
+                final Object value = nodeOf(field.getValue());
+                if (isContainer(value)) {
+                    final String fieldName = String.valueOf(field.getKey());
+                    walk(value, trackPaths ? path.field(fieldName) : null,
+                        childNodesOf(splitKeyNodes, nameOf(fieldName)));
+                }
+            }
+        } else if (node instanceof List && arrayParallelism.appliesTo((List<?>) node)) {
+            final List<?> array = (List<?>) node;
+            append(arrayParallelism.invoke(new ArrayWalk(this, array, path, splitKeyNodes, 0, array.size(),
+                        arrayParallelism.chunkSizeOf(array.size()))));
+        } else if (node instanceof List) {
+            int index = 0;
+            for (final Object listElement : (List<?>) node) {
+                if (isComplete()) {
+                    return;
+                }
+
+                final Object element = nodeOf(listElement);
+                if (isContainer(element)) {
+                    walk(element, trackPaths ? path.element(index) : null, splitKeyNodes);
+                }
+
+                index++;
+            }
+        }
+    }
+
+    /**
+     * @return  the nodes of the split key trie from which the fields nested in the value of the field matched by the
+     *          given {@code name} are matched, a split may start at any field
+     */
+    private List<SplitKeyTrie.Node> childNodesOf(final List<SplitKeyTrie.Node> splitKeyNodes, final String name) {
+        if (splitKeyRoot == null) {
+            return emptyList();
+        }
+
+        List<SplitKeyTrie.Node> childNodes = emptyList();
+        final SplitKeyTrie.Node start = splitKeyRoot.childOf(name);
+        if (start != null && start.hasChildren()) {
+            childNodes = new ArrayList<>(splitKeyNodes.size() + 1);
+            childNodes.add(start);
+        }
+
+        for (final SplitKeyTrie.Node splitKeyNode : splitKeyNodes) {
+            final SplitKeyTrie.Node child = splitKeyNode.childOf(name);
+            if (child != null && child.hasChildren()) {
+                if (childNodes.isEmpty()) {
+                    childNodes = new ArrayList<>(splitKeyNodes.size());
+                }
+
+                childNodes.add(child);
+            }
+        }
+
+        return childNodes;
+    }
+
+    /**
+     * @return  {@code false} if only unique values are indexed and the {@code value} is a scalar value which has
+     *          already been found under the {@code name}
+     */
+    private boolean isNewValue(final String name, final Object value) {
+        if (scalarValuesByName == null || isContainer(value)) {
+            return true;
+        }
+
+        return scalarValuesByName.computeIfAbsent(name, fieldName -> new UniqueValueSet()).add(value);
+    }
+
+    /**
+     * Hands the value of a field to the sink under every requested key which matches the {@code name}.
+     */
+    private void emit(final String name, final Object value, final PathNode path) {
+        final List<String> sinkKeys = sinkKeysByName.get(name);
+        if (sinkKeys != null) {
+            emittedNames.add(name);
+
+            final Object match = matchOf(value);
+            final String matchPath = path == null ? null : path.toString();
+            for (final String key : sinkKeys) {
+                sink.onMatch(key, matchPath, match);
+            }
+        }
+    }
+
+    /**
+     * @return  {@code true} if the index is limited and every limited key has been found often enough
+     */
+    private boolean isComplete() {
+        return unsatisfiedKeys == 0 && !limitedKeys.isEmpty();
+    }
+
+    /**
+     * @return  an empty index of the same field names, to be filled with the occurrences of a part of an array
+     */
+    private FieldIndex emptyPart() {
+        final FieldIndex part = new FieldIndex(converter, names, indexAllNames, trackPaths, arrayParallelism,
+                splitKeyRoot);
+        if (scalarValuesByName != null) {
+            part.scalarValuesByName = new HashMap<>();
+        }
+
+        if (!indexAllNames) {
+            for (final String fieldName : occurrencesByName.keySet()) {
+                part.occurrencesByName.put(fieldName, new ArrayList<>());
+            }
+        }
+
+        return part;
+    }
+
+    private void walkElements(final List<?> array, final PathNode path, final List<SplitKeyTrie.Node> splitKeyNodes,
+            final int from, final int to) {
+        for (int index = from; index < to; index++) {
+            final Object element = nodeOf(array.get(index));
+            if (isContainer(element)) {
+                walk(element, trackPaths ? path.element(index) : null, splitKeyNodes);
+            }
+        }
+    }
+
+    /**
+     * Appends the occurrences of the {@code part}, which follows all the occurrences of this index in the document.
+     */
+    private void append(final FieldIndex part) {
+        append(occurrencesByName, part.occurrencesByName);
+        append(splitOccurrencesByKey, part.splitOccurrencesByKey);
+    }
+
+    private static void append(final Map<String, List<FieldOccurrence>> occurrencesByName,
+            final Map<String, List<FieldOccurrence>> partOccurrencesByName) {
+        for (final Entry<String, List<FieldOccurrence>> occurrences : partOccurrencesByName.entrySet()) {
+            if (!occurrences.getValue().isEmpty()) {
+                occurrencesByName.computeIfAbsent(occurrences.getKey(), name -> new ArrayList<>()).addAll(
+                    occurrences.getValue());
+            }
+        }
+    }
+
+    private String nameOf(final String fieldName) {
+        return names == null ? fieldName : names.nameOf(fieldName);
+    }
+
+    private List<FieldOccurrence> occurrencesFor(final String fieldName) {
+        if (indexAllNames) {
+            return occurrencesByName.computeIfAbsent(fieldName, name -> new ArrayList<>());
+        }
+
+        return occurrencesByName.get(fieldName);
+    }
+
+    /**
+     * Values which can never contain fields are not converted for the walk, only when they are found.
+     */
+    private Object nodeOf(final Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+
+        return converter.apply(value);
+    }
+
+    private static SplitKeyTrie.Node rootOf(final SplitKeyTrie splitKeys) {
+        return splitKeys.isEmpty() ? null : splitKeys.getRoot();
+    }
+
+    private static boolean isContainer(final Object node) {
+        return node instanceof Map || node instanceof List;
+    }
+
+    /**
+     * Indexes the elements {@code from} (inclusive) {@code to} (exclusive) of an array. Ranges larger than the chunk
+     * size are split in halves, the first half is forked while the current worker goes on with the second one.
+     */
+    private static final class ArrayWalk extends RecursiveTask<FieldIndex> {
+
+        private static final long serialVersionUID = 2709419262906542473L;
+
+        private final transient FieldIndex index;
+        private final transient List<?> array;
+        private final transient PathNode path;
+        private final transient List<SplitKeyTrie.Node> splitKeyNodes;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private ArrayWalk(final FieldIndex index, final List<?> array, final PathNode path,
+                final List<SplitKeyTrie.Node> splitKeyNodes, final int from, final int to, final int chunkSize) {
+            this.index = index;
+            this.array = array;
+            this.path = path;
+            this.splitKeyNodes = splitKeyNodes;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected FieldIndex compute() {
+            if (to - from <= chunkSize) {
+                final FieldIndex part = index.emptyPart();
+                part.walkElements(array, path, splitKeyNodes, from, to);
+                return part;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final ArrayWalk first = new ArrayWalk(index, array, path, splitKeyNodes, from, middle, chunkSize);
+            first.fork();
+
+            final FieldIndex secondPart = new ArrayWalk(index, array, path, splitKeyNodes, middle, to, chunkSize)
+                    .compute();
+            final FieldIndex firstPart = first.join();
+            firstPart.append(secondPart);
+            return firstPart;
+        }
+    }
+}
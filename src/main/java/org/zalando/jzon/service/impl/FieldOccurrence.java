@@ -0,0 +1,35 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.Map;
+
+/**
+ * A field found in a json document together with its value, the object it was found in and, if it was tracked, its
+ * path.
+ */
+final class FieldOccurrence {
+
+    private final Object value;
+    private final PathNode path;
+    private final Map<?, ?> object;
+
+    FieldOccurrence(final Object value, final PathNode path, final Map<?, ?> object) {
+        this.value = value;
+        this.path = path;
+        this.object = object;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    PathNode getPath() {
+        return path;
+    }
+
+    /**
+     * @return  the object holding the field, as found in the document, i.e. its values are not converted
+     */
+    Map<?, ?> getObject() {
+        return object;
+    }
+}
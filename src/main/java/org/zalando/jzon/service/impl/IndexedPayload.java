@@ -0,0 +1,168 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.PreparedPayload;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * A json document which builds the index of its field names on the first query and keeps it for all the following
+ * ones. Building the index has no side effects, hence instances can be shared between threads.
+ *
+ * <p>Indexes which depend on the compiled keys of a query are kept as well, by the instance of the compiled keys, for
+ * a few key sets. Further key sets are indexed anew on every query.</p>
+ */
+final class IndexedPayload implements PreparedPayload {
+
+    static final IndexedPayload EMPTY = new IndexedPayload(null);
+
+    private static final int MAX_KEYED_INDEXES = 8;
+
+    private final Object document;
+    private final UnaryOperator<Object> converter;
+    private final Configuration configuration;
+    private final ArrayParallelism arrayParallelism;
+    private volatile FieldIndex index;
+    private final Map<CompiledKeySet, FieldIndex> keyedIndexes = new IdentityHashMap<>();
+
+    /**
+     * @param  document  the document as parsed by the default JsonPath configuration
+     */
+    IndexedPayload(final Object document) {
+        this(document, ArrayParallelism.NONE);
+    }
+
+    /**
+     * @param  document          the document as parsed by the default JsonPath configuration
+     * @param  arrayParallelism  decides which arrays are walked in parallel when the index is built
+     */
+    IndexedPayload(final Object document, final ArrayParallelism arrayParallelism) {
+        this(document, UnaryOperator.identity(), Configuration.defaultConfiguration(), arrayParallelism);
+    }
+
+    /**
+     * @param  document       the document made of {@link java.util.Map Maps}, {@link java.util.List Lists} and any
+     *                        other values
+     * @param  converter      presents the values of the {@code document} as json values
+     * @param  configuration  the JsonPath configuration for reading the {@code document}
+     */
+    IndexedPayload(final Object document, final UnaryOperator<Object> converter, final Configuration configuration) {
+        this(document, converter, configuration, ArrayParallelism.NONE);
+    }
+
+    /**
+     * @param  document          the document made of {@link java.util.Map Maps}, {@link java.util.List Lists} and any
+     *                           other values
+     * @param  converter         presents the values of the {@code document} as json values
+     * @param  configuration     the JsonPath configuration for reading the {@code document}
+     * @param  arrayParallelism  decides which arrays are walked in parallel when the index is built
+     */
+    IndexedPayload(final Object document, final UnaryOperator<Object> converter, final Configuration configuration,
+            final ArrayParallelism arrayParallelism) {
+        this.document = document;
+        this.converter = converter;
+        this.configuration = configuration;
+        this.arrayParallelism = arrayParallelism;
+    }
+
+    /**
+     * @return  this document parsed from json as a payload which copies the objects and arrays it hands out as matches,
+     *          so that it can be kept and queried again whatever is done with them
+     */
+    IndexedPayload kept() {
+        if (isEmpty()) {
+            return this;
+        }
+
+        return new IndexedPayload(document, MapPayloadConverter.KEPT_DOCUMENT, configuration, arrayParallelism);
+    }
+
+    boolean isEmpty() {
+        return document == null;
+    }
+
+    Object getDocument() {
+        return document;
+    }
+
+    UnaryOperator<Object> getConverter() {
+        return converter;
+    }
+
+    /**
+     * @param   value  a value of the document which is handed out as a match
+     *
+     * @return  the value as it would have been parsed from json, a copy if the document is a payload given as
+     *          {@link java.util.Map}
+     */
+    Object matchOf(final Object value) {
+        return MapPayloadConverter.matchOf(converter, value);
+    }
+
+    DocumentContext getContext() {
+        return JsonPath.using(configuration).parse(document);
+    }
+
+    FieldIndex getIndex() {
+        FieldIndex currentIndex = index;
+        if (currentIndex == null) {
+            currentIndex = FieldIndex.of(document, converter, arrayParallelism);
+            index = currentIndex;
+        }
+
+        return currentIndex;
+    }
+
+    /**
+     * @param   keys  the compiled keys to look for
+     *
+     * @return  the index of all field names, together with the splits of those {@code keys} which are made of more
+     *          than two parts; the index of all field names holds them as they are, so keys
+     *          {@link CompiledKeySet#ignoresNamingConvention() ignoring the naming convention} get an index of their
+     *          own
+     */
+    FieldIndex getIndex(final CompiledKeySet keys) {
+        final SplitKeyTrie splitKeyTrie = KeyNames.of(keys).getSplitKeyTrie();
+        if (!keys.ignoresNamingConvention() && splitKeyTrie.isEmpty()) {
+            return getIndex();
+        }
+
+        synchronized (keyedIndexes) {
+            final FieldIndex keyedIndex = keyedIndexes.get(keys);
+            if (keyedIndex != null) {
+                return keyedIndex;
+            }
+        }
+
+        if (keys.ignoresNamingConvention()) {
+            return keep(keys, FieldIndex.of(document, converter, keys, true, arrayParallelism));
+        }
+
+        return keep(keys, getIndex().withSplitKeys(document, splitKeyTrie));
+    }
+
+    /**
+     * @return  the index kept for the {@code keys}, which is the given {@code keyedIndex} unless another thread has
+     *          kept one first
+     */
+    private FieldIndex keep(final CompiledKeySet keys, final FieldIndex keyedIndex) {
+        synchronized (keyedIndexes) {
+            final FieldIndex keptIndex = keyedIndexes.get(keys);
+            if (keptIndex != null) {
+                return keptIndex;
+            }
+
+            if (keyedIndexes.size() < MAX_KEYED_INDEXES) {
+                keyedIndexes.put(keys, keyedIndex);
+            }
+
+            return keyedIndex;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.zalando.jzon.service.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * A bounded cache of compiled {@link JsonPath JsonPaths} which can be shared by the parsers and modifiers of a
+ * {@link PayloadKeyFactory}. The least recently used paths are evicted once the maximum size is reached. The cache is
+ * safe to be used by several threads at once.
+ *
+ * <p>The hit, miss and eviction counts tell whether the cache is big enough for the paths in use.</p>
+ */
+public final class JsonPathCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final int maximumSize;
+    private final Cache<String, JsonPath> compiledPaths;
+
+    /**
+     * @param  maximumSize  the maximum number of compiled paths to keep
+     */
+    public JsonPathCache(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the cache cannot be negative!");
+        }
+
+        this.maximumSize = maximumSize;
+        this.compiledPaths = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @param   path  the path to compile
+     *
+     * @return  the compiled path, taken from the cache if it has been compiled before
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if the {@code path} is not valid
+     */
+    JsonPath compile(final String path) {
+        JsonPath jsonPath = compiledPaths.getIfPresent(path);
+        if (jsonPath == null) {
+            jsonPath = JsonPath.compile(path);
+            compiledPaths.put(path, jsonPath);
+        }
+
+        return jsonPath;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long size() {
+        return compiledPaths.size();
+    }
+
+    public long getHitCount() {
+        return compiledPaths.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return compiledPaths.stats().missCount();
+    }
+
+    public long getEvictionCount() {
+        return compiledPaths.stats().evictionCount();
+    }
+}
@@ -0,0 +1,123 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A bounded cache of the locations at which compiled keys were found in payloads of a caller supplied shape, e.g. the
+ * event type, which can be shared by the parsers of a {@link PayloadKeyFactory}. A payload of a known shape is read
+ * along the remembered locations only; if they do not fit it any longer, it is walked as a whole and the locations are
+ * learned again from it. The least recently used shapes are evicted once the maximum size is reached. The cache is safe
+ * to be used by several threads at once.
+ *
+ * <p>The hit and miss counts tell how often payloads were read along the remembered locations and how often they had
+ * to be walked, the eviction count whether the cache is big enough for the shapes in use.</p>
+ */
+public final class KeyLocationCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private final int maximumSize;
+    private final Cache<ShapeKey, KeyLocations> locationsByShape;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param  maximumSize  the maximum number of shapes to keep the locations of
+     */
+    public KeyLocationCache(final int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("The maximum size of the cache cannot be negative!");
+        }
+
+        this.maximumSize = maximumSize;
+        this.locationsByShape = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @return  the locations of the {@code keys} learned for the shape, {@code null} if there are none
+     */
+    KeyLocations get(final String shapeId, final CompiledKeySet keys) {
+        return locationsByShape.getIfPresent(new ShapeKey(shapeId, keys));
+    }
+
+    /**
+     * Remembers the {@code locations} of the {@code keys} for the shape, replacing the ones learned before. If the
+     * {@code locations} are {@code null} the shape cannot be read along locations and is forgotten.
+     */
+    void put(final String shapeId, final CompiledKeySet keys, final KeyLocations locations) {
+        if (locations == null) {
+            locationsByShape.invalidate(new ShapeKey(shapeId, keys));
+        } else {
+            locationsByShape.put(new ShapeKey(shapeId, keys), locations);
+        }
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long size() {
+        return locationsByShape.size();
+    }
+
+    /**
+     * @return  the number of payloads which were read along the remembered locations
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return  the number of payloads which were walked as a whole, as their shape was unknown or had drifted
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return locationsByShape.stats().evictionCount();
+    }
+
+    /**
+     * The locations depend on the keys as well. Compiled keys are {@link CompiledKeySet#equals(Object) equal} if they
+     * look for the same keys, so every instance compiled from the same keys shares the locations of a shape.
+     */
+    private static final class ShapeKey {
+
+        private final String shapeId;
+        private final CompiledKeySet keys;
+
+        private ShapeKey(final String shapeId, final CompiledKeySet keys) {
+            this.shapeId = shapeId;
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof ShapeKey)) {
+                return false;
+            }
+
+            final ShapeKey shapeKey = (ShapeKey) other;
+            return shapeId.equals(shapeKey.shapeId) && keys.equals(shapeKey.keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * shapeId.hashCode() + keys.hashCode();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+/**
+ * The locations at which the matches of compiled keys were found in one payload, merged into a prefix tree so that
+ * the values of payloads of the same shape can be read along them instead of walking the whole payload.
+ *
+ * <p>Only the objects and arrays on the way to a match are checked: every object must have the learned fields and the
+ * same number of fields as before, every array the same number of elements. Arrays whose elements all held matches
+ * at the same relative locations are learned as such, so their elements are read one by one whatever their number.
+ * If a payload does not fit, the shape is taken to have drifted and {@code null} is returned.</p>
+ *
+ * <p>This is what makes reading along the locations cheap, and it is its limit as well: a key which appears below an
+ * object or array that held no match in the learned payload, e.g. because a field kept its name but now holds an
+ * object with the key, is not found until the shape drifts.</p>
+ */
+final class KeyLocations {
+
+    private final Node root = new Node();
+
+    private KeyLocations() {
+        super();
+    }
+
+    /**
+     * @param   document    the json document the matches were found in
+     * @param   converter   presents the values of the {@code document} as json values
+     * @param   keys        the compiled keys the matches were found for
+     * @param   keysByPath  the requested keys by the paths of their matches in the order they were found in, as handed
+     *                      to a {@code KeyMatchSink}
+     *
+     * @return  the locations of the matches, {@code null} if one of the keys was not found or one of the paths is not
+     *          made of property names and array indexes only
+     */
+    static KeyLocations of(final Object document, final UnaryOperator<Object> converter, final CompiledKeySet keys,
+            final List<Entry<String, String>> keysByPath) {
+        final Set<String> foundKeys = new HashSet<>();
+        for (final Entry<String, String> keyByPath : keysByPath) {
+            foundKeys.add(keyByPath.getKey());
+        }
+
+        final KeyNames names = KeyNames.of(keys);
+        for (final String lookupKey : keys.getLookupKeys()) {
+            if (!names.isMalformed(lookupKey) && !foundKeys.contains(keys.keyOf(lookupKey))) {
+                return null;
+            }
+        }
+
+        final KeyLocations locations = new KeyLocations();
+        for (final Entry<String, String> keyByPath : keysByPath) {
+            final List<Object> segments = PathTrie.segmentsOf(keyByPath.getValue());
+            if (segments == null) {
+                return null;
+            }
+
+            locations.add(segments, keyByPath.getKey());
+        }
+
+        locations.root.learnSizesFrom(document, converter);
+        locations.root.mergeElements();
+        return locations;
+    }
+
+    /**
+     * @param   document   a json document of the same shape as the learned one
+     * @param   converter  presents the values of the {@code document} as json values
+     *
+     * @return  the values at the learned locations by their requested keys in the order they were learned in,
+     *          {@code null} if the shape of the {@code document} differs from the learned one
+     */
+    Map<String, Object[]> readFrom(final Object document, final UnaryOperator<Object> converter) {
+        final Map<String, List<Object>> foundValues = new HashMap<>();
+        if (!root.readFrom(document, converter, foundValues)) {
+            return null;
+        }
+
+        final Map<String, Object[]> valuesByKey = new HashMap<>();
+        for (final Entry<String, List<Object>> keyValues : foundValues.entrySet()) {
+            valuesByKey.put(keyValues.getKey(), keyValues.getValue().toArray());
+        }
+
+        return valuesByKey;
+    }
+
+    private void add(final List<Object> segments, final String key) {
+        Node node = root;
+        for (final Object segment : segments) {
+            node = node.childOf(segment);
+        }
+
+        if (node.slotKeys.isEmpty()) {
+            node.slotKeys = new ArrayList<>(1);
+        }
+
+        node.slotKeys.add(key);
+    }
+
+    private static final class Node {
+
+        /**
+         * The nodes of the fields in the order of the fields of the learned payload, so that the values of every key
+         * are read in the order in which the payload is walked.
+         */
+        private Map<String, Node> fields = new LinkedHashMap<>();
+        private final Map<Integer, Node> elements = new TreeMap<>();
+        private Node everyElement;
+        private List<String> slotKeys = emptyList();
+        private int size = -1;
+
+        private Node childOf(final Object segment) {
+            if (segment instanceof Integer) {
+                return elements.computeIfAbsent((Integer) segment, index -> new Node());
+            }
+
+            return fields.computeIfAbsent((String) segment, name -> new Node());
+        }
+
+        private void learnSizesFrom(final Object value, final UnaryOperator<Object> converter) {
+            if (!fields.isEmpty() && value instanceof Map) {
+                final Map<?, ?> object = (Map<?, ?>) value;
+                size = object.size();
+                if (fields.size() > 1) {
+                    final Map<String, Node> orderedFields = new LinkedHashMap<>();
+                    for (final Object name : object.keySet()) {
+                        final Node field = fields.get(String.valueOf(name));
+                        if (field != null) {
+                            orderedFields.put(String.valueOf(name), field);
+                        }
+                    }
+
+                    fields = orderedFields;
+                }
+
+                for (final Entry<String, Node> field : fields.entrySet()) {
+                    field.getValue().learnSizesFrom(converter.apply(object.get(field.getKey())), converter);
+                }
+            } else if (!elements.isEmpty() && value instanceof List) {
+                final List<?> array = (List<?>) value;
+                size = array.size();
+                for (final Entry<Integer, Node> element : elements.entrySet()) {
+                    element.getValue().learnSizesFrom(converter.apply(array.get(element.getKey())), converter);
+                }
+            }
+        }
+
+        /**
+         * Replaces the nodes of the elements of an array by one node for every element if each element held matches
+         * and all of them at the same relative locations.
+         */
+        private void mergeElements() {
+            fields.values().forEach(Node::mergeElements);
+            elements.values().forEach(Node::mergeElements);
+            if (elements.isEmpty() || elements.size() != size) {
+                return;
+            }
+
+            final Node firstElement = elements.get(0);
+            for (final Node element : elements.values()) {
+                if (!element.isLike(firstElement)) {
+                    return;
+                }
+            }
+
+            everyElement = firstElement;
+            elements.clear();
+        }
+
+        private boolean isLike(final Node other) {
+            if (size != other.size || !slotKeys.equals(other.slotKeys) || !fields.keySet().equals(other.fields.keySet())
+                    || !elements.keySet().equals(other.elements.keySet())
+                    || (everyElement == null ? other.everyElement != null
+                                             : other.everyElement == null || !everyElement.isLike(other.everyElement))) {
+                return false;
+            }
+
+            for (final Entry<String, Node> field : fields.entrySet()) {
+                if (!field.getValue().isLike(other.fields.get(field.getKey()))) {
+                    return false;
+                }
+            }
+
+            for (final Entry<Integer, Node> element : elements.entrySet()) {
+                if (!element.getValue().isLike(other.elements.get(element.getKey()))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**
+         * @return  {@code false} if a location is missing or an object or array on the way has another size
+         */
+        private boolean readFrom(final Object value, final UnaryOperator<Object> converter,
+                final Map<String, List<Object>> foundValues) {
+            for (final String key : slotKeys) {
+                foundValues.computeIfAbsent(key, requestedKey -> new ArrayList<>()).add(
+                    MapPayloadConverter.matchOf(converter, value));
+            }
+
+            if (!fields.isEmpty()) {
+                if (!(value instanceof Map) || ((Map<?, ?>) value).size() != size) {
+                    return false;
+                }
+
+                final Map<?, ?> object = (Map<?, ?>) value;
+                for (final Entry<String, Node> field : fields.entrySet()) {
+                    final Object fieldValue = object.get(field.getKey());
+                    if ((fieldValue == null && !object.containsKey(field.getKey()))
+                            || !field.getValue().readFrom(converter.apply(fieldValue), converter, foundValues)) {
+                        return false;
+                    }
+                }
+            } else if (!elements.isEmpty()) {
+                if (!(value instanceof List) || ((List<?>) value).size() != size) {
+                    return false;
+                }
+
+                final List<?> array = (List<?>) value;
+                for (final Entry<Integer, Node> element : elements.entrySet()) {
+                    if (!element.getValue().readFrom(converter.apply(array.get(element.getKey())), converter,
+                                foundValues)) {
+                        return false;
+                    }
+                }
+            } else if (everyElement != null) {
+                if (!(value instanceof List)) {
+                    return false;
+                }
+
+                for (final Object element : (List<?>) value) {
+                    if (!everyElement.readFrom(converter.apply(element), converter, foundValues)) {
+                        return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import static org.zalando.jzon.service.PayloadKeyParser.SEPARATOR;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * The names the resolvers match for a {@link CompiledKeySet}: the lookup keys and the parts of the split keys as they
+ * are matched, the keys which cannot be split and the {@link SplitKeyTrie} of the keys made of more than two parts.
+ * They are derived once per key set and kept as long as the key set is in use, so that a key set kept in a constant
+ * is only split once.
+ *
+ * <p>Instances are safe to be shared between threads.</p>
+ */
+final class KeyNames {
+
+    /**
+     * The derived names by the key sets they were derived from, compared by identity and dropped along with them.
+     */
+    private static final LoadingCache<CompiledKeySet, KeyNames> NAMES_BY_KEYS = CacheBuilder.newBuilder().weakKeys()
+            .build(CacheLoader.from(KeyNames::new));
+
+    /**
+     * The number of distinct field names whose canonical names are kept at most, the least recently used ones are
+     * evicted first, so that payloads with ever new field names cannot grow the names without bounds.
+     */
+    private static final int MAX_CANONICAL_NAMES = 10_000;
+
+    private final boolean ignoresNamingConvention;
+    private final Cache<String, String> canonicalNamesByFieldName;
+    private final Set<String> fieldNames;
+    private final Map<String, String[]> splitKeysByLookupKey;
+    private final Map<String, Set<String>> secondPartsByFirstPart;
+    private final Set<String> malformedKeys;
+    private final SplitKeyTrie splitKeyTrie;
+
+    private KeyNames(final CompiledKeySet keys) {
+        this.ignoresNamingConvention = keys.ignoresNamingConvention();
+        this.canonicalNamesByFieldName = ignoresNamingConvention
+            ? CacheBuilder.newBuilder().maximumSize(MAX_CANONICAL_NAMES).<String, String>build() : null;
+
+        final Map<String, String[]> compiledSplitKeys = new HashMap<>();
+        final Map<String, Set<String>> compiledSecondParts = new HashMap<>();
+        final Set<String> compiledMalformedKeys = new HashSet<>();
+        final Set<String> multiPartKeys = new HashSet<>();
+        final Set<String> compiledFieldNames = new HashSet<>();
+        for (final String lookupKey : keys.getLookupKeys()) {
+            compiledFieldNames.add(nameOf(lookupKey));
+
+            final String[] splitKey = lookupKey.split(SEPARATOR);
+            if (splitKey.length == 2 && !splitKey[0].isEmpty()) {
+                final String[] splitName = {nameOf(splitKey[0]), nameOf(splitKey[1])};
+                compiledSplitKeys.put(lookupKey, splitName);
+                compiledSecondParts.computeIfAbsent(splitName[0], firstPart -> new HashSet<>()).add(splitName[1]);
+            } else if (splitKey.length == 1 && lookupKey.contains(SEPARATOR)) {
+                compiledMalformedKeys.add(lookupKey);
+            } else if (splitKey.length > 2 && isSplitIntoNonEmptyParts(lookupKey, splitKey.length)) {
+                multiPartKeys.add(lookupKey);
+            }
+        }
+
+        compiledFieldNames.addAll(compiledSecondParts.keySet());
+        compiledSecondParts.replaceAll((firstPart, secondParts) -> unmodifiableSet(secondParts));
+
+        this.fieldNames = unmodifiableSet(compiledFieldNames);
+        this.splitKeysByLookupKey = compiledSplitKeys;
+        this.secondPartsByFirstPart = unmodifiableMap(compiledSecondParts);
+        this.malformedKeys = compiledMalformedKeys;
+        this.splitKeyTrie = new SplitKeyTrie(multiPartKeys, this::nameOf);
+    }
+
+    /**
+     * @param   keys  the compiled keys
+     *
+     * @return  the names derived from the {@code keys}, the same instance for every call with the same key set
+     */
+    static KeyNames of(final CompiledKeySet keys) {
+        return NAMES_BY_KEYS.getUnchecked(keys);
+    }
+
+    /**
+     * @return  {@code true} if no part of the {@code lookupKey} is empty, i.e. it neither starts nor ends with the
+     *          separator and has no two separators in a row
+     */
+    private static boolean isSplitIntoNonEmptyParts(final String lookupKey, final int partCount) {
+        final String[] parts = lookupKey.split(SEPARATOR, -1);
+        if (parts.length != partCount) {
+            return false;
+        }
+
+        for (final String part : parts) {
+            if (part.isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return  {@code true} if field names are matched regardless of their naming convention
+     */
+    boolean ignoresNamingConvention() {
+        return ignoresNamingConvention;
+    }
+
+    /**
+     * @param   fieldName  the name of a field of a payload or one of the lookup keys
+     *
+     * @return  the name under which the {@code fieldName} is matched: its canonical name if the naming convention is
+     *          ignored, otherwise the {@code fieldName} itself
+     */
+    String nameOf(final String fieldName) {
+        if (!ignoresNamingConvention) {
+            return fieldName;
+        }
+
+        final String cachedName = canonicalNamesByFieldName.getIfPresent(fieldName);
+        if (cachedName != null) {
+            return cachedName;
+        }
+
+        final String canonicalName = canonicalNameOf(fieldName);
+        canonicalNamesByFieldName.put(fieldName, canonicalName);
+        return canonicalName;
+    }
+
+    /**
+     * @return  the {@code fieldName} in lower case without underscores and hyphens, the {@code fieldName} itself if it
+     *          is canonical already
+     */
+    private static String canonicalNameOf(final String fieldName) {
+        int i = 0;
+        while (i < fieldName.length() && isCanonical(fieldName.charAt(i))) {
+            i++;
+        }
+
+        if (i == fieldName.length()) {
+            return fieldName;
+        }
+
+        final StringBuilder canonicalName = new StringBuilder(fieldName.length()).append(fieldName, 0, i);
+        for (; i < fieldName.length(); i++) {
+            final char c = fieldName.charAt(i);
+            if (c != '_' && c != '-') {
+                canonicalName.append(Character.toLowerCase(c));
+            }
+        }
+
+        return canonicalName.toString();
+    }
+
+    private static boolean isCanonical(final char c) {
+        return c != '_' && c != '-' && Character.toLowerCase(c) == c;
+    }
+
+    /**
+     * @return  the field names which are needed to resolve the lookup keys, i.e. the lookup keys themselves and the
+     *          first parts of the split keys, as they are {@link #nameOf(String) matched}
+     */
+    Set<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * @param   lookupKey  one of the lookup keys
+     *
+     * @return  the first part of the {@code lookupKey} as it is {@link #nameOf(String) matched} if the key can be split
+     *          (e.g. {@code customer} for {@code customer_number}) otherwise {@code null}
+     */
+    String firstPartOf(final String lookupKey) {
+        final String[] splitKey = splitKeysByLookupKey.get(lookupKey);
+        return splitKey == null ? null : splitKey[0];
+    }
+
+    /**
+     * @param   lookupKey  one of the lookup keys
+     *
+     * @return  the second part of the {@code lookupKey} as it is {@link #nameOf(String) matched} if the key can be
+     *          split (e.g. {@code number} for {@code customer_number}) otherwise {@code null}
+     */
+    String secondPartOf(final String lookupKey) {
+        final String[] splitKey = splitKeysByLookupKey.get(lookupKey);
+        return splitKey == null ? null : splitKey[1];
+    }
+
+    /**
+     * @return  the trie of the lookup keys made of more than two parts, which are split at any of their separators
+     */
+    SplitKeyTrie getSplitKeyTrie() {
+        return splitKeyTrie;
+    }
+
+    /**
+     * @return  the second parts of all split keys by their first parts, as they are {@link #nameOf(String) matched}
+     */
+    Map<String, Set<String>> getSecondPartsByFirstPart() {
+        return secondPartsByFirstPart;
+    }
+
+    /**
+     * @param   lookupKey  one of the lookup keys
+     *
+     * @return  {@code true} if the {@code lookupKey} contains the separator but cannot be split (e.g.
+     *          {@code customer_})
+     */
+    boolean isMalformed(final String lookupKey) {
+        return malformedKeys.contains(lookupKey);
+    }
+}
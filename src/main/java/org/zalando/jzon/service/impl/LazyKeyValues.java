@@ -0,0 +1,92 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+/**
+ * The found values of compiled keys, each resolved on the first {@link #get(Object) get} of its key and kept for the
+ * following ones. The document is indexed once on the first {@code get} of any key, keys which are never read are
+ * never resolved. Iterating over the map or asking for its size resolves all of the keys.
+ *
+ * <p>The map cannot be changed. It can be read by several threads, a key read by two of them at once is resolved
+ * once.</p>
+ */
+final class LazyKeyValues extends AbstractMap<String, Object[]> {
+
+    /**
+     * Marks a key which was resolved but not found, as the map of the resolved keys cannot hold {@code null}.
+     */
+    private static final Object[] NOT_FOUND = {};
+
+    private final CompiledKeySet keys;
+    private final Supplier<FieldIndex> indexSupplier;
+    private final boolean asPathList;
+    private final ConcurrentMap<String, Object[]> valuesByKey = new ConcurrentHashMap<>();
+    private volatile FieldIndex index;
+
+    /**
+     * @param  keys           the compiled keys to look for
+     * @param  indexSupplier  indexes the document, it contains at least the field names needed by the {@code keys}
+     *                        with their paths if {@code asPathList} is {@code true}
+     * @param  asPathList     if {@code true} the paths of the found keys are returned otherwise their values
+     */
+    LazyKeyValues(final CompiledKeySet keys, final Supplier<FieldIndex> indexSupplier, final boolean asPathList) {
+        this.keys = keys;
+        this.indexSupplier = indexSupplier;
+        this.asPathList = asPathList;
+    }
+
+    @Override
+    public Object[] get(final Object key) {
+        if (!(key instanceof String) || keys.lookupKeyOf((String) key) == null) {
+            return null;
+        }
+
+        final Object[] values = valuesByKey.computeIfAbsent((String) key, this::resolve);
+        return values == NOT_FOUND ? null : values;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Set<Entry<String, Object[]>> entrySet() {
+        final Map<String, Object[]> resolvedKeyValues = new HashMap<>();
+        for (final String lookupKey : keys.getLookupKeys()) {
+            final String key = keys.keyOf(lookupKey);
+            final Object[] values = get(key);
+            if (values != null) {
+                resolvedKeyValues.put(key, values);
+            }
+        }
+
+        return unmodifiableMap(resolvedKeyValues).entrySet();
+    }
+
+    private Object[] resolve(final String key) {
+        final Object[] values = SinglePassKeyResolver.resolve(keys, keys.lookupKeyOf(key), getIndex(), asPathList,
+                Integer.MAX_VALUE);
+        return values == null ? NOT_FOUND : values;
+    }
+
+    private FieldIndex getIndex() {
+        FieldIndex currentIndex = index;
+        if (currentIndex == null) {
+            currentIndex = indexSupplier.get();
+            index = currentIndex;
+        }
+
+        return currentIndex;
+    }
+}
@@ -0,0 +1,175 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.minidev.json.JSONArray;
+
+/**
+ * Presents the values of a payload given as {@link Map} the same way as if the payload had been serialized to json and
+ * parsed again, without doing so. Maps, lists and the values json is made of are returned as they are. Arrays and other
+ * collections are returned as lists, numbers as the type the json parser would have created for their text and any
+ * other value is converted by the {@link ObjectMapper}. Values nested in maps, lists and arrays are not converted
+ * before they are read, so that nothing needs to be copied while the payload is searched.
+ *
+ * <p>Only the values handed out as matches are copied, see {@link #matchOf(UnaryOperator, Object)}, so that they have
+ * the same types as if the payload had been parsed from json and do not change with the payload.</p>
+ */
+final class MapPayloadConverter implements UnaryOperator<Object> {
+
+    /**
+     * Presents the values of a document parsed from json as they are, but has {@link #matchOf(UnaryOperator, Object)}
+     * copy the maps and lists handed out as matches. Used for documents which are kept to be queried again, so that
+     * changing a match changes neither the document nor its index.
+     */
+    static final UnaryOperator<Object> KEPT_DOCUMENT = value -> value;
+
+    private static final int INT_BITS = 31;
+    private static final int LONG_BITS = 63;
+    private static final int MAX_DOUBLE_LENGTH = 18;
+
+    private final ObjectMapper objectMapper;
+
+    MapPayloadConverter(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Object apply(final Object value) {
+        if (value == null || value instanceof Map || value instanceof List || value instanceof String
+                || value instanceof Integer || value instanceof Boolean) {
+            return value;
+        }
+
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value);
+        }
+
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+
+        if (value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return integralOf(BigInteger.valueOf(((Number) value).longValue()));
+        }
+
+        if (value instanceof BigInteger) {
+            return integralOf((BigInteger) value);
+        }
+
+        if (value instanceof BigDecimal && ((BigDecimal) value).scale() == 0) {
+            return integralOf(((BigDecimal) value).toBigInteger());
+        }
+
+        if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            return decimalOf(value.toString());
+        }
+
+        if (value instanceof Character) {
+            return value.toString();
+        }
+
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+
+        final Object converted = convert(value);
+        if (converted != null && converted.getClass() == value.getClass()) {
+            return converted;
+        }
+
+        return apply(converted);
+    }
+
+    /**
+     * @param   converter  presents the values of a document as json values
+     * @param   value      a value of the document which is handed out as a match
+     *
+     * @return  the value as presented by the {@code converter}, copied if it is read from a payload given as
+     *          {@link Map} or from a {@link #KEPT_DOCUMENT kept document}
+     */
+    static Object matchOf(final UnaryOperator<Object> converter, final Object value) {
+        if (converter instanceof MapPayloadConverter || converter == KEPT_DOCUMENT) {
+            return copyOf(converter, value);
+        }
+
+        return converter.apply(value);
+    }
+
+    /**
+     * @param   converter  presents the values of a document as json values
+     * @param   value      a value of the document
+     *
+     * @return  the value as the json parser would have created it: maps are copied into {@link LinkedHashMap
+     *          LinkedHashMaps} and lists into {@link JSONArray JSONArrays}, with all their nested values converted
+     */
+    private static Object copyOf(final UnaryOperator<Object> converter, final Object value) {
+        final Object json = converter.apply(value);
+        if (json instanceof Map) {
+            final Map<String, Object> object = new LinkedHashMap<>();
+            for (final Entry<?, ?> field : ((Map<?, ?>) json).entrySet()) {
+                object.put(String.valueOf(field.getKey()), copyOf(converter, field.getValue()));
+            }
+
+            return object;
+        }
+
+        if (json instanceof List) {
+            final JSONArray array = new JSONArray();
+            for (final Object element : (List<?>) json) {
+                array.add(copyOf(converter, element));
+            }
+
+            return array;
+        }
+
+        return json;
+    }
+
+    private Object convert(final Object value) {
+        try {
+            return objectMapper.convertValue(value, Object.class);
+        } catch (final IllegalArgumentException e) {
+            throw new JsonParsingException(format("Cannot convert value [%s] of the payload", value), e);
+        }
+    }
+
+    /**
+     * @param   value  the text of a decimal number
+     *
+     * @return  the number the json parser creates for the text, a {@link BigDecimal} if it is too long for a double
+     */
+    static Object decimalOf(final String value) {
+        if (value.length() > MAX_DOUBLE_LENGTH) {
+            return new BigDecimal(value);
+        }
+
+        return Double.valueOf(value);
+    }
+
+    private static Object integralOf(final BigInteger value) {
+        if (value.bitLength() <= INT_BITS) {
+            return value.intValue();
+        }
+
+        if (value.bitLength() <= LONG_BITS) {
+            return value.longValue();
+        }
+
+        return value;
+    }
+}
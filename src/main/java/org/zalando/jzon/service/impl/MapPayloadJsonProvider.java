@@ -0,0 +1,35 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import com.jayway.jsonpath.spi.json.JsonSmartJsonProvider;
+
+/**
+ * Lets JsonPath read a payload given as {@link Map} in place. The values read are presented by the given converter
+ * the same way as if the payload had been serialized to json and parsed again.
+ */
+final class MapPayloadJsonProvider extends JsonSmartJsonProvider {
+
+    private final UnaryOperator<Object> converter;
+
+    MapPayloadJsonProvider(final UnaryOperator<Object> converter) {
+        this.converter = converter;
+    }
+
+    @Override
+    public Object getMapValue(final Object obj, final String key) {
+        final Map<?, ?> map = (Map<?, ?>) obj;
+        if (!map.containsKey(key)) {
+            return UNDEFINED;
+        }
+
+        return converter.apply(map.get(key));
+    }
+
+    @Override
+    public Object getArrayIndex(final Object obj, final int idx) {
+        return converter.apply(((List<?>) obj).get(idx));
+    }
+}
@@ -0,0 +1,123 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+
+import java.io.IOException;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.PayloadKeyBatchExtractor;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.RecordSink;
+
+/**
+ * A {@link PayloadKeyBatchExtractor} which maps the file into memory window by window and hands each record to a
+ * {@link PayloadKeyParser} as a slice of the mapped window. Files larger than a window, also larger than 2 GB, are read
+ * in consecutive windows each of which starts with the first record not completed by the previous one. A record which
+ * does not fit into a window enlarges it up to {@link #MAXIMUM_WINDOW_SIZE}.
+ *
+ * <p>The mapped windows are released by the garbage collector, there is no way to unmap them explicitly.</p>
+ */
+public final class MappedPayloadKeyBatchExtractor implements PayloadKeyBatchExtractor {
+
+    static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+    static final int MAXIMUM_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private final PayloadKeyParser payloadKeyParser;
+    private final int windowSize;
+
+    MappedPayloadKeyBatchExtractor(final PayloadKeyParser payloadKeyParser) {
+        this(payloadKeyParser, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedPayloadKeyBatchExtractor(final PayloadKeyParser payloadKeyParser, final int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException(format("The window size [%d] must be positive", windowSize));
+        }
+
+        this.payloadKeyParser = payloadKeyParser;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public long extract(final Path file, final CompiledKeySet keys, final boolean asPathList, final RecordSink sink) {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            final long fileSize = channel.size();
+            long windowStart = 0;
+            int currentWindowSize = windowSize;
+            int scanStart = 0;
+            long lineNumber = 0;
+            long recordCount = 0;
+            while (windowStart < fileSize) {
+                final int length = (int) Math.min(currentWindowSize, fileSize - windowStart);
+                final MappedByteBuffer window = channel.map(READ_ONLY, windowStart, length);
+                int lineStart = 0;
+                for (int i = scanStart; i < length; i++) {
+                    if (window.get(i) == '\n') {
+                        lineNumber++;
+                        if (extractRecord(window, lineStart, i, lineNumber, keys, asPathList, sink)) {
+                            recordCount++;
+                        }
+
+                        lineStart = i + 1;
+                    }
+                }
+
+                if (windowStart + length == fileSize) {
+                    if (lineStart < length
+                            && extractRecord(window, lineStart, length, lineNumber + 1, keys, asPathList, sink)) {
+                        recordCount++;
+                    }
+
+                    break;
+                }
+
+                if (lineStart > 0) {
+                    windowStart += lineStart;
+                    currentWindowSize = windowSize;
+                    scanStart = 0;
+                } else if (currentWindowSize < MAXIMUM_WINDOW_SIZE) {
+                    currentWindowSize = (int) Math.min(2L * currentWindowSize, MAXIMUM_WINDOW_SIZE);
+                    scanStart = length;
+                } else {
+                    throw new JsonParsingException(format("Line %d of file [%s] is longer than %d bytes",
+                            lineNumber + 1, file, MAXIMUM_WINDOW_SIZE));
+                }
+            }
+
+            return recordCount;
+        } catch (final IOException e) {
+            throw new JsonParsingException(format("Cannot read file [%s]", file), e);
+        }
+    }
+
+    private boolean extractRecord(final MappedByteBuffer window, final int start, final int end,
+            final long lineNumber, final CompiledKeySet keys, final boolean asPathList, final RecordSink sink) {
+        int recordEnd = end;
+        while (recordEnd > start && isWhitespace(window.get(recordEnd - 1))) {
+            recordEnd--;
+        }
+
+        if (recordEnd == start) {
+            return false;
+        }
+
+        final ByteBuffer record = window.duplicate();
+        ((Buffer) record).limit(recordEnd);
+        ((Buffer) record).position(start);
+        sink.accept(lineNumber, payloadKeyParser.parse(keys, record, asPathList));
+        return true;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
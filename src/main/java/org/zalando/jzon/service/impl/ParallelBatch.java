@@ -0,0 +1,92 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Parses a batch of payloads on a {@link ForkJoinPool}. The payloads are split in halves by their {@link Spliterator}
+ * until a part is small enough to be parsed as one chunk; the first half is forked, so that idle workers can steal it,
+ * while the current worker goes on with the second one. The results are joined in the encounter order of the
+ * payloads.
+ */
+final class ParallelBatch {
+
+    /**
+     * The number of payloads below which a chunk is not split any further.
+     */
+    static final int MINIMUM_CHUNK_SIZE = 16;
+
+    /**
+     * The number of chunks per worker of the pool if the number of payloads is known, as in the parallel streams.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private ParallelBatch() {
+        super();
+    }
+
+    /**
+     * @param   pool          the pool which parses the payloads
+     * @param   payloads      the payloads
+     * @param   chunkParsers  creates a parser for each chunk, which may keep state between the payloads of the chunk
+     *
+     * @return  the result of each payload in the encounter order of the {@code payloads}
+     */
+    static <T, R> List<R> parseAll(final ForkJoinPool pool, final Spliterator<T> payloads,
+            final Supplier<Function<T, R>> chunkParsers) {
+        final long chunkSize = chunkSizeOf(payloads.estimateSize(), pool.getParallelism());
+        return pool.invoke(new ChunkTask<>(payloads, chunkParsers, chunkSize));
+    }
+
+    private static long chunkSizeOf(final long payloadCount, final int parallelism) {
+        if (payloadCount == Long.MAX_VALUE) {
+            return MINIMUM_CHUNK_SIZE;
+        }
+
+        return Math.max(MINIMUM_CHUNK_SIZE, payloadCount / ((long) parallelism * CHUNKS_PER_WORKER));
+    }
+
+    private static final class ChunkTask<T, R> extends RecursiveTask<List<R>> {
+
+        private static final long serialVersionUID = -4409364416434390402L;
+
+        private final transient Spliterator<T> payloads;
+        private final transient Supplier<Function<T, R>> chunkParsers;
+        private final long chunkSize;
+
+        private ChunkTask(final Spliterator<T> payloads, final Supplier<Function<T, R>> chunkParsers,
+                final long chunkSize) {
+            this.payloads = payloads;
+            this.chunkParsers = chunkParsers;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected List<R> compute() {
+            if (payloads.estimateSize() > chunkSize) {
+                final Spliterator<T> prefix = payloads.trySplit();
+                if (prefix != null) {
+                    final ChunkTask<T, R> first = new ChunkTask<>(prefix, chunkParsers, chunkSize);
+                    first.fork();
+
+                    final List<R> secondResults = new ChunkTask<>(payloads, chunkParsers, chunkSize).compute();
+                    final List<R> firstResults = first.join();
+                    final List<R> results = new ArrayList<>(firstResults.size() + secondResults.size());
+                    results.addAll(firstResults);
+                    results.addAll(secondResults);
+                    return results;
+                }
+            }
+
+            final Function<T, R> chunkParser = chunkParsers.get();
+            final List<R> results = new ArrayList<>();
+            payloads.forEachRemaining(payload -> results.add(chunkParser.apply(payload)));
+            return results;
+        }
+    }
+}
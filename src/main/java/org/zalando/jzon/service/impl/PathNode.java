@@ -0,0 +1,137 @@
+package org.zalando.jzon.service.impl;
+
+import java.util.Objects;
+
+import org.zalando.jzon.service.JsonLocation;
+
+/**
+ * A node of the path of a value in a json document. Nodes point to their parent so that all the values found under the
+ * same object or array share the nodes of their common prefix. The bracket notation (e.g. {@code $['items'][0]}) is
+ * only built when asked for.
+ */
+final class PathNode implements JsonLocation {
+
+    static final PathNode ROOT = new PathNode(null, null, -1);
+
+    private final PathNode parent;
+    private final String fieldName;
+    private final int index;
+    private final int depth;
+
+    private PathNode(final PathNode parent, final String fieldName, final int index) {
+        this.parent = parent;
+        this.fieldName = fieldName;
+        this.index = index;
+        this.depth = parent == null ? 0 : parent.depth + 1;
+    }
+
+    PathNode field(final String name) {
+        return new PathNode(this, name, -1);
+    }
+
+    PathNode element(final int elementIndex) {
+        return new PathNode(this, null, elementIndex);
+    }
+
+    @Override
+    public PathNode getParent() {
+        return parent;
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Counts where the {@code text} starts in the bracket notation of this path without building it. The text must not
+     * contain quotes or brackets, so every occurrence lies within the {@code $}, a field name or an index.
+     *
+     * @return  the number of positions in the bracket notation at which the {@code text} starts
+     */
+    int countOf(final String text) {
+        int count = 0;
+        for (PathNode node = this; node != null; node = node.parent) {
+            final String segment;
+            if (node.parent == null) {
+                segment = "$";
+            } else if (node.fieldName == null) {
+                segment = Integer.toString(node.index);
+            } else {
+                segment = node.fieldName;
+            }
+
+            for (int from = segment.indexOf(text); from >= 0; from = segment.indexOf(text, from + 1)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (!(other instanceof PathNode)) {
+            return false;
+        }
+
+        PathNode node = this;
+        PathNode otherNode = (PathNode) other;
+        if (node.depth != otherNode.depth) {
+            return false;
+        }
+
+        while (node != otherNode) {
+            if (node.index != otherNode.index || !Objects.equals(node.fieldName, otherNode.fieldName)) {
+                return false;
+            }
+
+            node = node.parent;
+            otherNode = otherNode.parent;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (PathNode node = this; node != null; node = node.parent) {
+            hashCode = 31 * hashCode + (node.fieldName == null ? node.index : node.fieldName.hashCode());
+        }
+
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    StringBuilder appendTo(final StringBuilder path) {
+        if (parent == null) {
+            return path.append('$');
+        }
+
+        parent.appendTo(path);
+        if (fieldName == null) {
+            return path.append('[').append(index).append(']');
+        }
+
+        return path.append("['").append(fieldName).append("']");
+    }
+}
@@ -0,0 +1,263 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.zalando.jzon.service.CompiledPaths;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+
+/**
+ * The paths to be removed from payloads merged into a prefix tree, so that all of them are removed in one depth first
+ * walk over the payload. Only definite paths made of property names and array indexes (e.g.
+ * {@code $['customers'][3]['email']} or {@code $.customers[3].email}) are merged; any other path (wildcards, deep
+ * scans, filters, ...) is deleted by JsonPath after the walk.
+ *
+ * <p>Array indexes refer to the elements of the payload as it is passed in: the elements of an array are removed from
+ * the highest index to the lowest one once everything nested in them has been removed.</p>
+ */
+final class PathTrie implements CompiledPaths {
+
+    private final Set<String> paths;
+    private final Node root = new Node("$");
+    private final List<JsonPath> otherPaths = new ArrayList<>();
+
+    private PathTrie(final Set<String> paths) {
+        this.paths = paths;
+    }
+
+    /**
+     * @param   paths          the paths to be removed
+     * @param   jsonPathCache  the cache to compile the paths with which cannot be merged
+     *
+     * @return  the trie of the {@code paths}
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    static PathTrie of(final Set<String> paths, final JsonPathCache jsonPathCache) {
+        final PathTrie trie = new PathTrie(unmodifiableSet(new LinkedHashSet<>(paths)));
+        for (final String path : trie.paths) {
+            final List<Object> segments = segmentsOf(path);
+            if (segments == null) {
+                trie.otherPaths.add(jsonPathCache.compile(path));
+            } else {
+                trie.add(segments);
+            }
+        }
+
+        return trie;
+    }
+
+    @Override
+    public Set<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Removes all paths of this trie from the {@code document}. Like a JsonPath delete, a path is ignored if its last
+     * property or any of its array indexes is not found, but fails if one of its parent properties is missing or not of
+     * the expected type. The failure is reported once everything else has been removed.
+     *
+     * @param   document  the document to remove the paths from
+     *
+     * @throws  PathNotFoundException  if the parent of a path cannot be found in the {@code document}
+     */
+    void removeFrom(final DocumentContext document) {
+        final List<String> missingPaths = new ArrayList<>();
+        root.removeFrom(document.json(), missingPaths);
+        for (final JsonPath path : otherPaths) {
+            document.delete(path);
+        }
+
+        if (!missingPaths.isEmpty()) {
+            throw new PathNotFoundException(format("Missing property in path %s", missingPaths.get(0)));
+        }
+    }
+
+    private void add(final List<Object> segments) {
+        Node node = root;
+        for (final Object segment : segments) {
+            node = node.childOf(segment);
+        }
+
+        node.isRemoved = true;
+    }
+
+    /**
+     * @return  the property names ({@link String}) and array indexes ({@link Integer}) of a definite path or
+     *          {@code null} if the path is of any other kind
+     */
+    static List<Object> segmentsOf(final String path) {
+        if (!path.startsWith("$")) {
+            return null;
+        }
+
+        final List<Object> segments = new ArrayList<>();
+        int position = 1;
+        while (position < path.length()) {
+            final char current = path.charAt(position);
+            if (current == '.') {
+                position++;
+                if (position < path.length() && path.charAt(position) == '[') {
+                    continue;
+                }
+
+                int end = position;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+
+                final String name = path.substring(position, end);
+                if (!isPlainName(name)) {
+                    return null;
+                }
+
+                segments.add(name);
+                position = end;
+            } else if (current == '[') {
+                final int end = path.indexOf(']', position);
+                if (end < 0) {
+                    return null;
+                }
+
+                final String selector = path.substring(position + 1, end);
+                if (isQuotedName(selector)) {
+                    segments.add(selector.substring(1, selector.length() - 1));
+                } else if (isIndex(selector)) {
+                    segments.add(Integer.valueOf(selector));
+                } else {
+                    return null;
+                }
+
+                position = end + 1;
+            } else {
+                return null;
+            }
+        }
+
+        return segments.isEmpty() ? null : segments;
+    }
+
+    private static boolean isPlainName(final String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length(); i++) {
+            final char character = name.charAt(i);
+            if (!Character.isLetterOrDigit(character) && character != '_' && character != '-') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isQuotedName(final String selector) {
+        if (selector.length() < 2) {
+            return false;
+        }
+
+        final char quote = selector.charAt(0);
+        return (quote == '\'' || quote == '"') && selector.charAt(selector.length() - 1) == quote
+                && selector.indexOf(quote, 1) == selector.length() - 1 && selector.indexOf('\\') < 0;
+    }
+
+    private static boolean isIndex(final String selector) {
+        if (selector.isEmpty() || selector.length() > 9) {
+            return false;
+        }
+
+        for (int i = 0; i < selector.length(); i++) {
+            if (!Character.isDigit(selector.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static final class Node {
+
+        private final String path;
+        private final Map<String, Node> fields = new LinkedHashMap<>();
+        private final NavigableMap<Integer, Node> elements = new TreeMap<>();
+        private boolean isRemoved;
+
+        private Node(final String path) {
+            this.path = path;
+        }
+
+        private Node childOf(final Object segment) {
+            if (segment instanceof Integer) {
+                return elements.computeIfAbsent((Integer) segment, index -> new Node(path + "[" + index + "]"));
+            }
+
+            return fields.computeIfAbsent((String) segment, name -> new Node(path + "['" + name + "']"));
+        }
+
+        private boolean hasChildren() {
+            return !fields.isEmpty() || !elements.isEmpty();
+        }
+
+        private void removeFrom(final Object value, final List<String> missingPaths) {
+            if (!fields.isEmpty()) {
+                if (value instanceof Map) {
+                    removeFieldsFrom((Map<?, ?>) value, missingPaths);
+                } else {
+                    missingPaths.add(path);
+                }
+            }
+
+            if (!elements.isEmpty()) {
+                if (value instanceof List) {
+                    removeElementsFrom((List<?>) value, missingPaths);
+                } else {
+                    missingPaths.add(path);
+                }
+            }
+        }
+
+        private void removeFieldsFrom(final Map<?, ?> object, final List<String> missingPaths) {
+            for (final Entry<String, Node> field : fields.entrySet()) {
+                final Node child = field.getValue();
+                if (!object.containsKey(field.getKey())) {
+                    if (child.hasChildren()) {
+                        missingPaths.add(child.path);
+                    }
+                } else if (child.isRemoved) {
+                    object.remove(field.getKey());
+                } else {
+                    child.removeFrom(object.get(field.getKey()), missingPaths);
+                }
+            }
+        }
+
+        private void removeElementsFrom(final List<?> array, final List<String> missingPaths) {
+            for (final Entry<Integer, Node> element : elements.entrySet()) {
+                if (!element.getValue().isRemoved && element.getKey() < array.size()) {
+                    element.getValue().removeFrom(array.get(element.getKey()), missingPaths);
+                }
+            }
+
+            for (final Entry<Integer, Node> element : elements.descendingMap().entrySet()) {
+                if (element.getValue().isRemoved && element.getKey() < array.size()) {
+                    array.remove(element.getKey().intValue());
+                }
+            }
+        }
+    }
+}
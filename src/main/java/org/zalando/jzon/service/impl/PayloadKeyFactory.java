@@ -1,5 +1,10 @@
 package org.zalando.jzon.service.impl;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.zalando.jzon.service.AsyncPayloadKeyParser;
+import org.zalando.jzon.service.PayloadKeyBatchExtractor;
 import org.zalando.jzon.service.PayloadKeyModifier;
 import org.zalando.jzon.service.PayloadKeyParser;
 
@@ -7,11 +12,95 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 public final class PayloadKeyFactory {
 
+    private final JsonPathCache jsonPathCache;
+    private final KeyLocationCache keyLocationCache;
+
+    public PayloadKeyFactory() {
+        this(new JsonPathCache(JsonPathCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * @param  jsonPathCache  the cache of compiled paths shared by all parsers and modifiers of this factory
+     */
+    public PayloadKeyFactory(final JsonPathCache jsonPathCache) {
+        this(jsonPathCache, new KeyLocationCache(KeyLocationCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * @param  jsonPathCache     the cache of compiled paths shared by all parsers and modifiers of this factory
+     * @param  keyLocationCache  the cache of the key locations per payload shape shared by all parsers of this factory
+     */
+    public PayloadKeyFactory(final JsonPathCache jsonPathCache, final KeyLocationCache keyLocationCache) {
+        this.jsonPathCache = jsonPathCache;
+        this.keyLocationCache = keyLocationCache;
+    }
+
     public PayloadKeyParser getPayloadKeyParser(final ObjectMapper objectMapper) {
-        return new DefaultPayloadKeyParser(objectMapper);
+        return new DefaultPayloadKeyParser(objectMapper, jsonPathCache, ArrayParallelism.NONE, keyLocationCache);
+    }
+
+    /**
+     * @param   objectMapper  the mapper which converts the values of payloads given as Map
+     * @param   pool          the pool which walks the elements of large arrays of the payloads
+     *
+     * @return  a parser which resolves the keys in the elements of arrays of at least 10000 elements in parallel. The
+     *          results are the same as the ones of {@link #getPayloadKeyParser(ObjectMapper)}. Payloads whose matches
+     *          are handed to a {@link org.zalando.jzon.service.KeyMatchSink} are walked sequentially, as the sink is
+     *          called during the walk.
+     */
+    public PayloadKeyParser getParallelPayloadKeyParser(final ObjectMapper objectMapper, final ForkJoinPool pool) {
+        return getParallelPayloadKeyParser(objectMapper, pool, ArrayParallelism.DEFAULT_MINIMUM_ARRAY_SIZE);
+    }
+
+    /**
+     * @param   objectMapper      the mapper which converts the values of payloads given as Map
+     * @param   pool              the pool which walks the elements of large arrays of the payloads
+     * @param   minimumArraySize  the number of elements from which on the elements of an array are walked in parallel
+     *
+     * @return  a parser which resolves the keys in the elements of large arrays in parallel
+     *
+     * @throws  IllegalArgumentException  if the {@code minimumArraySize} is not positive
+     */
+    public PayloadKeyParser getParallelPayloadKeyParser(final ObjectMapper objectMapper, final ForkJoinPool pool,
+            final int minimumArraySize) {
+        return new DefaultPayloadKeyParser(objectMapper, jsonPathCache, new ArrayParallelism(pool, minimumArraySize),
+                keyLocationCache);
+    }
+
+    public PayloadKeyParser getStreamingPayloadKeyParser(final ObjectMapper objectMapper) {
+        return new StreamingPayloadKeyParser(objectMapper, jsonPathCache, keyLocationCache);
+    }
+
+    /**
+     * @param   objectMapper  the mapper whose factory reads the records
+     *
+     * @return  an extractor which reads the records of a file token by token with a {@link StreamingPayloadKeyParser}
+     */
+    public PayloadKeyBatchExtractor getPayloadKeyBatchExtractor(final ObjectMapper objectMapper) {
+        return new MappedPayloadKeyBatchExtractor(getStreamingPayloadKeyParser(objectMapper));
+    }
+
+    /**
+     * @param   payloadKeyParser  the parser which does the work, e.g. the one of
+     *                            {@link #getStreamingPayloadKeyParser(ObjectMapper)}
+     * @param   executor          runs the calls of the parser, e.g. a pool or an executor starting a thread per task
+     *
+     * @return  a parser which runs the calls of the {@code payloadKeyParser} on the {@code executor}
+     */
+    public AsyncPayloadKeyParser getAsyncPayloadKeyParser(final PayloadKeyParser payloadKeyParser,
+            final Executor executor) {
+        return new DefaultAsyncPayloadKeyParser(payloadKeyParser, executor);
     }
 
     public PayloadKeyModifier getPayloadKeyModifier() {
-        return new DefaultKeyModifier();
+        return new DefaultKeyModifier(jsonPathCache);
+    }
+
+    public JsonPathCache getJsonPathCache() {
+        return jsonPathCache;
+    }
+
+    public KeyLocationCache getKeyLocationCache() {
+        return keyLocationCache;
     }
 }
@@ -0,0 +1,89 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Presents payloads given as bytes as {@link InputStream InputStreams}, without copying the bytes.
+ */
+final class PayloadStreams {
+
+    private PayloadStreams() {
+        super();
+    }
+
+    /**
+     * @param   bytes   the payload
+     * @param   offset  the index of the first byte of the payload
+     * @param   length  the number of bytes of the payload
+     *
+     * @return  a stream of the {@code length} bytes starting at {@code offset}
+     *
+     * @throws  IndexOutOfBoundsException  if {@code offset} and {@code length} do not denote a range of {@code bytes}
+     */
+    static InputStream inputStreamOf(final byte[] bytes, final int offset, final int length) {
+        checkRange(bytes, offset, length);
+        return new ByteArrayInputStream(bytes, offset, length);
+    }
+
+    /**
+     * @param   buffer  the payload, heap or direct
+     *
+     * @return  a stream of the bytes between the position and the limit of the {@code buffer}. The position of the
+     *          {@code buffer} itself is not changed.
+     */
+    static InputStream inputStreamOf(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+        }
+
+        return new ByteBufferInputStream(buffer.duplicate());
+    }
+
+    static void checkRange(final byte[] bytes, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException(format("Range [%d, %d + %d) is out of bounds for length %d", offset,
+                    offset, length, bytes.length));
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            checkRange(bytes, offset, length);
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.zalando.jzon.service.impl;
+
+import java.math.BigInteger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.zalando.jzon.service.KeyMatchSink;
+import org.zalando.jzon.service.TypedKeyValues;
+
+/**
+ * Collects the values of the keys into growing primitive arrays, one per type and key. The streaming parser decodes
+ * numbers straight into them, values of a parsed document are unboxed as they are handed over as matches.
+ */
+final class PrimitiveKeyValues implements TypedKeyValues, KeyMatchSink {
+
+    private static final long[] NO_LONGS = {};
+    private static final double[] NO_DOUBLES = {};
+    private static final String[] NO_STRINGS = {};
+
+    private final Map<String, Values> valuesByKey = new HashMap<>();
+
+    @Override
+    public void onMatch(final String key, final String path, final Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            addLong(key, ((Number) value).longValue());
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            addLong(key, ((BigInteger) value).longValue());
+        } else if (value instanceof Number) {
+            addDouble(key, ((Number) value).doubleValue());
+        } else if (value instanceof String) {
+            addString(key, (String) value);
+        }
+    }
+
+    /**
+     * Adds an integral number, which is one of the doubles of the {@code key} as well.
+     */
+    void addLong(final String key, final long value) {
+        final Values values = valuesOf(key);
+        if (values.longCount == values.longs.length) {
+            values.longs = Arrays.copyOf(values.longs, Math.max(4, values.longCount * 2));
+        }
+
+        values.longs[values.longCount++] = value;
+        values.addDouble(value);
+    }
+
+    void addDouble(final String key, final double value) {
+        valuesOf(key).addDouble(value);
+    }
+
+    void addString(final String key, final String value) {
+        final Values values = valuesOf(key);
+        if (values.stringCount == values.strings.length) {
+            values.strings = Arrays.copyOf(values.strings, Math.max(4, values.stringCount * 2));
+        }
+
+        values.strings[values.stringCount++] = value;
+    }
+
+    @Override
+    public long[] getLongs(final String key) {
+        final Values values = valuesByKey.get(key);
+        return values == null ? NO_LONGS : Arrays.copyOf(values.longs, values.longCount);
+    }
+
+    @Override
+    public double[] getDoubles(final String key) {
+        final Values values = valuesByKey.get(key);
+        return values == null ? NO_DOUBLES : Arrays.copyOf(values.doubles, values.doubleCount);
+    }
+
+    @Override
+    public String[] getStrings(final String key) {
+        final Values values = valuesByKey.get(key);
+        return values == null ? NO_STRINGS : Arrays.copyOf(values.strings, values.stringCount);
+    }
+
+    private Values valuesOf(final String key) {
+        return valuesByKey.computeIfAbsent(key, name -> new Values());
+    }
+
+    private static final class Values {
+
+        private long[] longs = NO_LONGS;
+        private int longCount;
+        private double[] doubles = NO_DOUBLES;
+        private int doubleCount;
+        private String[] strings = NO_STRINGS;
+        private int stringCount;
+
+        private void addDouble(final double value) {
+            if (doubleCount == doubles.length) {
+                doubles = Arrays.copyOf(doubles, Math.max(4, doubleCount * 2));
+            }
+
+            doubles[doubleCount++] = value;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+
+/**
+ * The paths to be read from a payload merged into a prefix tree, so that all of them are read in one walk down the
+ * branches of the payload they lead to. Like in the {@link PathTrie}, only definite paths made of property names and
+ * array indexes are merged; any other path is read by JsonPath after the walk. Paths which are written differently but
+ * lead to the same value (e.g. {@code $.customer.number} and {@code $['customer']['number']}) share their nodes.
+ */
+final class ReadPathTrie {
+
+    private final Node root = new Node();
+    private final Map<String, JsonPath> otherPaths = new HashMap<>();
+
+    private ReadPathTrie() {
+        super();
+    }
+
+    /**
+     * @param   paths          the paths to be read
+     * @param   jsonPathCache  the cache to compile the paths with which cannot be merged
+     *
+     * @return  the trie of the {@code paths}
+     *
+     * @throws  com.jayway.jsonpath.InvalidPathException  if one of the paths is not valid
+     */
+    static ReadPathTrie of(final Collection<String> paths, final JsonPathCache jsonPathCache) {
+        final ReadPathTrie trie = new ReadPathTrie();
+        for (final String path : paths) {
+            final List<Object> segments = PathTrie.segmentsOf(path);
+            if (segments == null) {
+                trie.otherPaths.put(path, jsonPathCache.compile(path));
+            } else {
+                trie.add(segments, path);
+            }
+        }
+
+        return trie;
+    }
+
+    /**
+     * Reads all paths of this trie from the {@code payload}. A definite path whose property or array index is not
+     * found, or whose parent is not of the expected type, is left out; so is any other path JsonPath cannot find.
+     *
+     * @param   payload  the parsed payload, not empty
+     *
+     * @return  the found values by the paths they were read with
+     */
+    Map<String, Object> readFrom(final IndexedPayload payload) {
+        final Map<String, Object> valuesByPath = new HashMap<>();
+        root.readFrom(payload.getDocument(), payload.getConverter(), valuesByPath);
+        if (!otherPaths.isEmpty()) {
+            final DocumentContext document = payload.getContext();
+            for (final Entry<String, JsonPath> path : otherPaths.entrySet()) {
+                try {
+                    valuesByPath.put(path.getKey(), payload.matchOf(document.read(path.getValue())));
+                } catch (@SuppressWarnings("unused") final PathNotFoundException e) {
+                    // a missing path is left out of the result
+                }
+            }
+        }
+
+        return valuesByPath;
+    }
+
+    private void add(final List<Object> segments, final String path) {
+        Node node = root;
+        for (final Object segment : segments) {
+            node = node.childOf(segment);
+        }
+
+        if (node.paths.isEmpty()) {
+            node.paths = new ArrayList<>(1);
+        }
+
+        node.paths.add(path);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> fields = new HashMap<>();
+        private final Map<Integer, Node> elements = new HashMap<>();
+        private List<String> paths = emptyList();
+
+        private Node childOf(final Object segment) {
+            if (segment instanceof Integer) {
+                return elements.computeIfAbsent((Integer) segment, index -> new Node());
+            }
+
+            return fields.computeIfAbsent((String) segment, name -> new Node());
+        }
+
+        /**
+         * @param  value  the value at this node as it is presented by the {@code converter}
+         */
+        private void readFrom(final Object value, final UnaryOperator<Object> converter,
+                final Map<String, Object> valuesByPath) {
+            for (final String path : paths) {
+                valuesByPath.put(path, MapPayloadConverter.matchOf(converter, value));
+            }
+
+            if (!fields.isEmpty() && value instanceof Map) {
+                final Map<?, ?> object = (Map<?, ?>) value;
+                for (final Entry<String, Node> field : fields.entrySet()) {
+                    if (object.containsKey(field.getKey())) {
+                        field.getValue().readFrom(converter.apply(object.get(field.getKey())), converter,
+                            valuesByPath);
+                    }
+                }
+            }
+
+            if (!elements.isEmpty() && value instanceof List) {
+                final List<?> array = (List<?>) value;
+                for (final Entry<Integer, Node> element : elements.entrySet()) {
+                    if (element.getKey() < array.size()) {
+                        element.getValue().readFrom(converter.apply(array.get(element.getKey())), converter,
+                            valuesByPath);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package org.zalando.jzon.service.impl;
+
+import static java.lang.String.format;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.JsonLocation;
+import org.zalando.jzon.service.KeyMatchSink;
+
+/**
+ * Resolves all the requested keys of a json document in one depth first walk. The outcome is the same as running a
+ * {@code $..key} deep scan for every key and, only if the exact key was found nowhere in the document, looking for the
+ * split form of it (e.g. {@code customer} followed by {@code number} for {@code customer_number}). Keys made of more
+ * than two parts may be split at any of their separators, their splits are found by the {@link FieldIndex} and their
+ * values are returned as they are, like those of the exact keys.
+ *
+ * <p>Matches of a key are reported in the order of the deep scan, i.e. a match on an object comes before the matches
+ * nested in the values of that object.</p>
+ */
+final class SinglePassKeyResolver {
+
+    private static final Logger LOGGER = getLogger(SinglePassKeyResolver.class);
+
+    private SinglePassKeyResolver() {
+        super();
+    }
+
+    /**
+     * @param   keys        the keys to look for, none of them is allowed to be blank
+     * @param   document    the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter   presents the values of the {@code document} as json values
+     * @param   asPathList  if {@code true} the paths of the found keys are returned otherwise their values
+     *
+     * @return  a map holding the found values or paths for every key which was found in the {@code document}
+     */
+    static Map<String, Object[]> resolve(final Set<String> keys, final Object document,
+            final UnaryOperator<Object> converter, final boolean asPathList) {
+        return resolve(CompiledKeySet.of(keys), document, converter, asPathList);
+    }
+
+    /**
+     * @param   keys        the compiled keys to look for
+     * @param   document    the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param   converter   presents the values of the {@code document} as json values
+     * @param   asPathList  if {@code true} the paths of the found keys are returned otherwise their values
+     *
+     * @return  a map holding the found values or paths for every lookup key which was found in the {@code document}
+     */
+    static Map<String, Object[]> resolve(final CompiledKeySet keys, final Object document,
+            final UnaryOperator<Object> converter, final boolean asPathList) {
+        return resolve(keys, FieldIndex.of(document, converter, keys, asPathList), asPathList);
+    }
+
+    /**
+     * @param   keys        the compiled keys to look for
+     * @param   index       an index which contains at least the field names needed by the {@code keys}
+     * @param   asPathList  if {@code true} the paths of the found keys are returned otherwise their values
+     *
+     * @return  a map holding the found values or paths for every lookup key which was found in the {@code index}
+     */
+    static Map<String, Object[]> resolve(final CompiledKeySet keys, final FieldIndex index,
+            final boolean asPathList) {
+        return resolve(keys, index, asPathList, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #resolve(CompiledKeySet, FieldIndex, boolean)} but returns only the first {@code maxMatches}
+     * values of every key.
+     *
+     * @param   keys        the compiled keys to look for
+     * @param   index       an index which contains at least the field names needed by the {@code keys}, it may be
+     *                      {@link FieldIndex#of(Object, UnaryOperator, CompiledKeySet, boolean, int) limited} to the
+     *                      same number of matches
+     * @param   asPathList  if {@code true} the paths of the found keys are returned otherwise their values
+     * @param   maxMatches  the maximum number of values returned for a key
+     *
+     * @return  a map holding the first found values or paths for every lookup key which was found in the
+     *          {@code index}
+     */
+    static Map<String, Object[]> resolve(final CompiledKeySet keys, final FieldIndex index, final boolean asPathList,
+            final int maxMatches) {
+        final Map<String, Object[]> resolvedKeyValues = new HashMap<>();
+        for (final String key : keys.getLookupKeys()) {
+            final Object[] values = resolve(keys, key, index, asPathList, maxMatches);
+            if (values != null) {
+                resolvedKeyValues.put(key, values);
+            }
+        }
+
+        return resolvedKeyValues;
+    }
+
+    /**
+     * Resolves a single one of the {@code keys}, the others are left alone.
+     *
+     * @param   keys        the compiled keys the {@code index} was built for
+     * @param   lookupKey   one of the lookup keys of the {@code keys}
+     * @param   index       an index which contains at least the field names needed by the {@code keys}
+     * @param   asPathList  if {@code true} the paths of the found key are returned otherwise its values
+     * @param   maxMatches  the maximum number of values returned
+     *
+     * @return  the found values or paths of the {@code lookupKey}, {@code null} if it was not found
+     */
+    static Object[] resolve(final CompiledKeySet keys, final String lookupKey, final FieldIndex index,
+            final boolean asPathList, final int maxMatches) {
+        final Object[] matches = matchesOf(keys, lookupKey, index, asPathList, maxMatches);
+        if (asPathList && matches != null) {
+            for (int i = 0; i < matches.length; i++) {
+                matches[i] = matches[i].toString();
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Same as {@link #resolve(CompiledKeySet, FieldIndex, boolean)} for paths, but keeps them as the nodes they were
+     * found at.
+     *
+     * @param   keys   the compiled keys to look for
+     * @param   index  an index which contains at least the field names needed by the {@code keys} with their paths
+     *
+     * @return  a map holding the locations of every key which was found in the {@code index} by the requested key,
+     *          i.e. not by its replacement key
+     */
+    static Map<String, JsonLocation[]> resolveLocations(final CompiledKeySet keys, final FieldIndex index) {
+        final Map<String, JsonLocation[]> resolvedKeyLocations = new HashMap<>();
+        for (final String lookupKey : keys.getLookupKeys()) {
+            final Object[] locations = matchesOf(keys, lookupKey, index, true, Integer.MAX_VALUE);
+            if (locations != null) {
+                resolvedKeyLocations.put(keys.keyOf(lookupKey),
+                    Arrays.copyOf(locations, locations.length, JsonLocation[].class));
+            }
+        }
+
+        return resolvedKeyLocations;
+    }
+
+    /**
+     * @return  the found values or the {@link PathNode PathNodes} of the {@code lookupKey}, {@code null} if it was not
+     *          found
+     */
+    private static Object[] matchesOf(final CompiledKeySet keys, final String lookupKey, final FieldIndex index,
+            final boolean asPathList, final int maxMatches) {
+        final KeyNames names = KeyNames.of(keys);
+        final List<FieldOccurrence> exactOccurrences = index.occurrencesOf(names.nameOf(lookupKey));
+        if (!exactOccurrences.isEmpty()) {
+            return valuesOf(index, exactOccurrences, asPathList, maxMatches);
+        }
+
+        final List<FieldOccurrence> splitOccurrences = index.splitOccurrencesOf(lookupKey);
+        if (!splitOccurrences.isEmpty()) {
+            return valuesOf(index, splitOccurrences, asPathList, maxMatches);
+        }
+
+        final String firstPart = names.firstPartOf(lookupKey);
+        if (firstPart != null) {
+            final List<Object> result = resolveSplitKey(index, index.occurrencesOf(firstPart),
+                    names.secondPartOf(lookupKey), asPathList);
+            if (!result.isEmpty()) {
+                return firstValuesOf(result, maxMatches);
+            }
+        } else if (names.isMalformed(lookupKey)) {
+            LOGGER.error("The provided key [{}] is malformed", lookupKey);
+        }
+
+        return null;
+    }
+
+    /**
+     * Same as {@link #resolve(CompiledKeySet, Object, UnaryOperator, boolean)} but hands every match to the
+     * {@code sink} instead of collecting them. The matches of the exact keys are handed over while the document is
+     * walked, the ones of the split keys after the walk if their exact key was found nowhere. A value of a split key
+     * which is a list is handed over element by element, as it is returned as values, each element with its own path.
+     *
+     * @param  keys       the compiled keys to look for
+     * @param  document   the json document made of {@link Map Maps}, {@link List Lists} and scalar values
+     * @param  converter  presents the values of the {@code document} as json values
+     * @param  withPaths  if {@code true} the paths of the matches are handed over as well
+     * @param  sink       receives the matches under the requested keys
+     */
+    static void resolve(final CompiledKeySet keys, final Object document, final UnaryOperator<Object> converter,
+            final boolean withPaths, final KeyMatchSink sink) {
+        final FieldIndex index = FieldIndex.of(document, converter, keys, withPaths, sink);
+        final KeyNames names = KeyNames.of(keys);
+        for (final String lookupKey : keys.getLookupKeys()) {
+            if (!index.hasEmitted(names.nameOf(lookupKey))) {
+                emitSplitKey(keys, lookupKey, index, withPaths, sink);
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #resolve(CompiledKeySet, FieldIndex, boolean)} but hands every match to the {@code sink} instead
+     * of collecting them, all matches of a key one after the other.
+     *
+     * @param  keys       the compiled keys to look for
+     * @param  index      an index which contains at least the field names needed by the {@code keys}, with their paths
+     *                    if {@code withPaths} is {@code true}
+     * @param  withPaths  if {@code true} the paths of the matches are handed over as well
+     * @param  sink       receives the matches under the requested keys
+     */
+    static void resolve(final CompiledKeySet keys, final FieldIndex index, final boolean withPaths,
+            final KeyMatchSink sink) {
+        final KeyNames names = KeyNames.of(keys);
+        for (final String lookupKey : keys.getLookupKeys()) {
+            final List<FieldOccurrence> occurrences = index.occurrencesOf(names.nameOf(lookupKey));
+            if (occurrences.isEmpty()) {
+                emitSplitKey(keys, lookupKey, index, withPaths, sink);
+                continue;
+            }
+
+            final String key = keys.keyOf(lookupKey);
+            for (final FieldOccurrence occurrence : occurrences) {
+                sink.onMatch(key, withPaths ? occurrence.getPath().toString() : null,
+                    index.matchOf(occurrence.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Hands the matches of the split forms of a lookup key whose exact key was not found to the {@code sink}.
+     */
+    private static void emitSplitKey(final CompiledKeySet keys, final String lookupKey, final FieldIndex index,
+            final boolean withPaths, final KeyMatchSink sink) {
+        final String key = keys.keyOf(lookupKey);
+        final List<FieldOccurrence> splitOccurrences = index.splitOccurrencesOf(lookupKey);
+        if (!splitOccurrences.isEmpty()) {
+            for (final FieldOccurrence occurrence : splitOccurrences) {
+                sink.onMatch(key, withPaths ? occurrence.getPath().toString() : null,
+                    index.matchOf(occurrence.getValue()));
+            }
+
+            return;
+        }
+
+        final KeyNames names = KeyNames.of(keys);
+        final String firstPart = names.firstPartOf(lookupKey);
+        if (firstPart != null) {
+            emitSplitKey(index, index.occurrencesOf(firstPart), names.secondPartOf(lookupKey), key, withPaths, sink);
+        } else if (names.isMalformed(lookupKey)) {
+            LOGGER.error("The provided key [{}] is malformed", lookupKey);
+        }
+    }
+
+    /**
+     * @see  #resolveSplitKey(FieldIndex, List, String, boolean)
+     */
+    private static void emitSplitKey(final FieldIndex index, final List<FieldOccurrence> partialOccurrences,
+            final String secondPart, final String key, final boolean withPaths, final KeyMatchSink sink) {
+        for (final FieldOccurrence partial : partialOccurrences) {
+            final String fieldName = fieldNameIn(index, partial.getValue(), secondPart);
+            if (fieldName == null) {
+                emitSplitKeyInChildren(index, partialOccurrences, secondPart, key, withPaths, sink);
+                return;
+            }
+
+            final PathNode path = withPaths ? partial.getPath().field(fieldName) : null;
+            final Object value = index.valueOf(((Map<?, ?>) partial.getValue()).get(fieldName));
+            if (value instanceof List) {
+                int elementIndex = 0;
+                for (final Object element : (List<?>) value) {
+                    sink.onMatch(key, withPaths ? path.element(elementIndex).toString() : null,
+                        index.matchOf(element));
+                    elementIndex++;
+                }
+            } else {
+                sink.onMatch(key, withPaths ? path.toString() : null, index.matchOf(value));
+            }
+        }
+    }
+
+    private static void emitSplitKeyInChildren(final FieldIndex index, final List<FieldOccurrence> partialOccurrences,
+            final String secondPart, final String key, final boolean withPaths, final KeyMatchSink sink) {
+        for (final FieldOccurrence partial : partialOccurrences) {
+            if (partial.getValue() instanceof Map) {
+                for (final Entry<?, ?> field : ((Map<?, ?>) partial.getValue()).entrySet()) {
+                    final Object child = index.valueOf(field.getValue());
+                    final String fieldName = fieldNameIn(index, child, secondPart);
+                    if (fieldName != null) {
+                        sink.onMatch(key,
+                            withPaths
+                                ? partial.getPath().field(String.valueOf(field.getKey())).field(fieldName).toString()
+                                : null, index.matchOf(((Map<?, ?>) child).get(fieldName)));
+                    }
+                }
+            } else if (partial.getValue() instanceof List) {
+                int elementIndex = 0;
+                for (final Object element : (List<?>) partial.getValue()) {
+                    final Object child = index.valueOf(element);
+                    final String fieldName = fieldNameIn(index, child, secondPart);
+                    if (fieldName != null) {
+                        sink.onMatch(key,
+                            withPaths ? partial.getPath().element(elementIndex).field(fieldName).toString() : null,
+                            index.matchOf(((Map<?, ?>) child).get(fieldName)));
+                    }
+
+                    elementIndex++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves the second part of a split key on the values found for its first part. As long as all of these values
+     * are objects containing the second part it is read from them directly, otherwise it is looked up in the immediate
+     * children of every value.
+     */
+    private static List<Object> resolveSplitKey(final FieldIndex index, final List<FieldOccurrence> partialOccurrences,
+            final String secondPart, final boolean asPathList) {
+        final List<Object> result = new ArrayList<>();
+        for (final FieldOccurrence partial : partialOccurrences) {
+            final String fieldName = fieldNameIn(index, partial.getValue(), secondPart);
+            if (fieldName == null) {
+                resolveSplitKeyInChildren(index, partialOccurrences, secondPart, asPathList, result);
+                return result;
+            }
+
+            if (asPathList) {
+                result.add(partial.getPath().field(fieldName));
+            } else {
+                final Object value = index.valueOf(((Map<?, ?>) partial.getValue()).get(fieldName));
+                if (value instanceof List) {
+                    for (final Object element : (List<?>) value) {
+                        result.add(index.matchOf(element));
+                    }
+                } else {
+                    result.add(index.matchOf(value));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static void resolveSplitKeyInChildren(final FieldIndex index,
+            final List<FieldOccurrence> partialOccurrences, final String secondPart, final boolean asPathList,
+            final List<Object> result) {
+        for (final FieldOccurrence partial : partialOccurrences) {
+            if (partial.getValue() instanceof Map) {
+                for (final Entry<?, ?> field : ((Map<?, ?>) partial.getValue()).entrySet()) {
+                    final Object child = index.valueOf(field.getValue());
+                    final String fieldName = fieldNameIn(index, child, secondPart);
+                    if (fieldName != null) {
+                        result.add(asPathList
+                                ? partial.getPath().field(String.valueOf(field.getKey())).field(fieldName)
+                                : index.matchOf(((Map<?, ?>) child).get(fieldName)));
+                    }
+                }
+            } else if (partial.getValue() instanceof List) {
+                int elementIndex = 0;
+                for (final Object element : (List<?>) partial.getValue()) {
+                    final Object child = index.valueOf(element);
+                    final String fieldName = fieldNameIn(index, child, secondPart);
+                    if (fieldName != null) {
+                        result.add(asPathList ? partial.getPath().element(elementIndex).field(fieldName)
+                                              : index.matchOf(((Map<?, ?>) child).get(fieldName)));
+                    }
+
+                    elementIndex++;
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws  IllegalArgumentException  if {@code maxMatches} is not positive
+     */
+    static void checkMaxMatches(final int maxMatches) {
+        if (maxMatches <= 0) {
+            throw new IllegalArgumentException(format("The maximum number of matches [%d] must be positive",
+                    maxMatches));
+        }
+    }
+
+    /**
+     * @return  the first {@code maxMatches} of the found values or paths
+     */
+    static Object[] firstValuesOf(final List<Object> result, final int maxMatches) {
+        if (result.size() > maxMatches) {
+            return result.subList(0, maxMatches).toArray();
+        }
+
+        return result.toArray();
+    }
+
+    private static Object[] valuesOf(final FieldIndex index, final List<FieldOccurrence> occurrences,
+            final boolean asPathList, final int maxMatches) {
+        final Object[] values = new Object[Math.min(occurrences.size(), maxMatches)];
+        for (int i = 0; i < values.length; i++) {
+            final FieldOccurrence occurrence = occurrences.get(i);
+            values[i] = asPathList ? occurrence.getPath() : index.matchOf(occurrence.getValue());
+        }
+
+        return values;
+    }
+
+    /**
+     * @return  the name of the field of the {@code node} which is matched by the {@code secondPart}, {@code null} if
+     *          the node is no object or has no such field
+     */
+    private static String fieldNameIn(final FieldIndex index, final Object node, final String secondPart) {
+        return node instanceof Map ? index.fieldNameIn((Map<?, ?>) node, secondPart) : null;
+    }
+}
@@ -0,0 +1,120 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptySet;
+
+import static org.zalando.jzon.service.PayloadKeyParser.SEPARATOR;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * The keys made of more than two parts (e.g. {@code shipping_address_zip_code}) merged into a prefix tree of their
+ * parts. A key may be split into nested fields at any of its separators ({@code shipping.address.zip_code},
+ * {@code shipping_address.zip_code}, {@code shipping.address_zip.code}, ...), so instead of listing all of these splits
+ * the trie is followed field by field: every node knows the nodes reached by each run of the following parts, a field
+ * name moves on by all of its parts with one lookup, and a split is found if a field ends a key which was entered by an
+ * enclosing field.
+ *
+ * <p>Following a field name costs one lookup, no matter how many keys or splits there are. Instances are immutable.
+ * </p>
+ */
+final class SplitKeyTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * @param  keys   the keys to merge, every one of them made of more than two non-empty parts
+     * @param  names  gives the name under which a run of parts joined by the separator is matched
+     */
+    SplitKeyTrie(final Set<String> keys, final UnaryOperator<String> names) {
+        final Map<String, Node> nodesByPrefix = new HashMap<>();
+        for (final String key : keys) {
+            final String[] parts = key.split(SEPARATOR, -1);
+            final Node[] nodes = new Node[parts.length + 1];
+            nodes[0] = root;
+
+            final StringBuilder prefix = new StringBuilder();
+            for (int i = 0; i < parts.length; i++) {
+                prefix.append(parts[i]);
+                nodes[i + 1] = nodesByPrefix.computeIfAbsent(names.apply(prefix.toString()), name -> new Node());
+                prefix.append(SEPARATOR);
+            }
+
+            for (int from = 0; from < parts.length; from++) {
+                final StringBuilder run = new StringBuilder();
+                for (int to = from; to < parts.length; to++) {
+                    run.append(parts[to]);
+                    nodes[from].children.put(names.apply(run.toString()), nodes[to + 1]);
+                    run.append(SEPARATOR);
+                }
+            }
+
+            nodes[parts.length].addLookupKey(key);
+        }
+    }
+
+    /**
+     * @return  {@code true} if the trie holds no keys
+     */
+    boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    /**
+     * @return  the node to follow the field names of the outermost fields from
+     */
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * The parts of the keys up to a separator. A node is reached by the field names of directly nested fields, when
+     * they are joined by the separator they make up the parts from the root to the node.
+     */
+    static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Set<String> lookupKeys = emptySet();
+
+        private Node() {
+            super();
+        }
+
+        /**
+         * @param   fieldName  the name of a field nested directly in the value of the field which led to this node, as
+         *                     it is {@link KeyNames#nameOf(String) matched}
+         *
+         * @return  the node reached by all parts of the {@code fieldName}, or {@code null} if no key continues with
+         *          them
+         */
+        Node childOf(final String fieldName) {
+            return children.get(fieldName);
+        }
+
+        /**
+         * @return  the lookup keys which end at this node, empty if the node is only part of longer keys; keys which
+         *          only differ in their naming convention may end at the same node if it is ignored
+         */
+        Set<String> getLookupKeys() {
+            return lookupKeys;
+        }
+
+        /**
+         * @return  {@code true} if at least one key continues after this node
+         */
+        boolean hasChildren() {
+            return !children.isEmpty();
+        }
+
+        private void addLookupKey(final String lookupKey) {
+            if (lookupKeys.isEmpty()) {
+                lookupKeys = new HashSet<>(1);
+            }
+
+            lookupKeys.add(lookupKey);
+        }
+    }
+}
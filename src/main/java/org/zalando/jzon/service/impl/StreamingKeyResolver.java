@@ -0,0 +1,958 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.reverseOrder;
+import static java.util.Comparator.comparingLong;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.IOException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.KeyMatchSink;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import net.minidev.json.JSONArray;
+
+/**
+ * Resolves the requested keys while reading the tokens of a json document, without building the document. Only the
+ * containers which are currently open are kept, together with the occurrences of the requested field names. Values are
+ * only created for the fields which are asked for, hence the memory needed depends on the depth of the document and
+ * the size of the found values instead of the size of the document.
+ *
+ * <p>The outcome is the same as the one of {@link SinglePassKeyResolver}: every field of an object is reported before
+ * the fields nested in its values. As the tokens arrive in document order, occurrences are tagged with the number of
+ * the object they were found in, objects being numbered in the order they start, and sorted by it at the end.</p>
+ *
+ * <p>Every open container keeps the nodes of the {@link SplitKeyTrie} reached by the fields enclosing it, so that the
+ * splits of the keys made of more than two parts are matched on the field names as they arrive.</p>
+ *
+ * <p>A deep scan may find a key at any depth, so no subtree can be left out without reading it. Unmatched subtrees
+ * are read token by token without decoding their values.</p>
+ *
+ * <p>Matches handed to a {@link KeyMatchSink} are handed over as soon as no object is open anymore, as no match still
+ * to come can precede them then: the matches inside the elements of a root array element by element, those of a root
+ * object at its end. The split forms of a key are only looked at once the whole document has been read.</p>
+ *
+ * <p>If the number of matches per key is limited, reading stops once every key has that many matches which cannot be
+ * preceded by matches still to come. A later match can only precede the found ones if it is a field of an object which
+ * is still open and was started before them, thus matches nested in a root object are only settled at its end, while
+ * fields of the root object and matches inside the elements of a root array are settled right away.</p>
+ *
+ * <p>A resolver {@link #decodingPrimitives(CompiledKeySet) decoding primitives} reads the scalar values of the matches
+ * straight from the tokens into primitive fields, without creating objects for them. Matches whose values are
+ * containers are left out, their values are not built.</p>
+ */
+final class StreamingKeyResolver {
+
+    private static final Logger LOGGER = getLogger(StreamingKeyResolver.class);
+    private static final String NAN = "NaN";
+
+    private final CompiledKeySet keys;
+    private final KeyNames names;
+    private final boolean trackPaths;
+    private final boolean collectValues;
+    private final int maxMatches;
+    private final Map<String, List<Occurrence>> occurrencesByName = new HashMap<>();
+    private final Map<String, List<Occurrence>> splitOccurrencesByKey = new HashMap<>();
+    private final SplitKeyTrie.Node splitKeyRoot;
+    private final Map<String, Set<String>> secondPartsByFirstPart;
+    private final Map<String, List<PartialOccurrence>> partialsByFirstPart = new HashMap<>();
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final List<Consumer<Object>> pendingTargets = new ArrayList<>();
+    private final boolean decodesPrimitives;
+    private final List<Occurrence> pendingPrimitives = new ArrayList<>();
+    private final Map<String, PriorityQueue<Long>> firstObjectNumbersByKey = new HashMap<>();
+    private final Set<String> emittedNames = new HashSet<>();
+    private KeyMatchSink sink;
+    private PartialOccurrence pendingPartial;
+    private List<SplitKeyTrie.Node> pendingSplitKeyNodes = emptyList();
+    private ValueBuilder builder;
+    private long objectCount;
+    private int openObjectCount;
+    private int limitedKeyCount;
+    private boolean isComplete;
+
+    /**
+     * @param  keys        the compiled keys to look for
+     * @param  asPathList  if {@code true} the paths of the found keys are returned otherwise their values
+     */
+    StreamingKeyResolver(final CompiledKeySet keys, final boolean asPathList) {
+        this(keys, asPathList, !asPathList);
+    }
+
+    /**
+     * @param  keys           the compiled keys to look for
+     * @param  trackPaths     if {@code true} the paths of the found keys are kept
+     * @param  collectValues  if {@code true} the values of the found keys are kept, they are returned instead of the
+     *                        paths
+     */
+    StreamingKeyResolver(final CompiledKeySet keys, final boolean trackPaths, final boolean collectValues) {
+        this(keys, trackPaths, collectValues, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param  keys           the compiled keys to look for
+     * @param  trackPaths     if {@code true} the paths of the found keys are kept
+     * @param  collectValues  if {@code true} the values of the found keys are kept, they are returned instead of the
+     *                        paths
+     * @param  maxMatches     the maximum number of values {@link #resolve(JsonParser)} returns for a key, reading stops
+     *                        once every key has been settled, matches handed to a sink are not limited
+     */
+    StreamingKeyResolver(final CompiledKeySet keys, final boolean trackPaths, final boolean collectValues,
+            final int maxMatches) {
+        this(keys, trackPaths, collectValues, maxMatches, false);
+    }
+
+    private StreamingKeyResolver(final CompiledKeySet keys, final boolean trackPaths, final boolean collectValues,
+            final int maxMatches, final boolean decodesPrimitives) {
+        this.keys = keys;
+        this.names = KeyNames.of(keys);
+        this.decodesPrimitives = decodesPrimitives;
+        this.trackPaths = trackPaths;
+        this.collectValues = collectValues;
+        this.maxMatches = maxMatches;
+        this.secondPartsByFirstPart = names.getSecondPartsByFirstPart();
+        this.splitKeyRoot = names.getSplitKeyTrie().isEmpty() ? null : names.getSplitKeyTrie().getRoot();
+        for (final String key : keys.getLookupKeys()) {
+            final String name = names.nameOf(key);
+            occurrencesByName.put(name, new ArrayList<>());
+            if (maxMatches != Integer.MAX_VALUE) {
+                firstObjectNumbersByKey.put(name, new PriorityQueue<>(reverseOrder()));
+            }
+        }
+
+        for (final String firstPart : secondPartsByFirstPart.keySet()) {
+            partialsByFirstPart.put(firstPart, new ArrayList<>());
+        }
+    }
+
+    /**
+     * @param   keys  the compiled keys to look for
+     *
+     * @return  a resolver which hands the values to {@link #resolve(JsonParser, PrimitiveKeyValues)} as primitives
+     */
+    static StreamingKeyResolver decodingPrimitives(final CompiledKeySet keys) {
+        return new StreamingKeyResolver(keys, false, true, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Reads all the tokens of the {@code parser}. An instance resolves one document at a time, it can be reused for
+     * further documents of the same keys once the previous one has been resolved.
+     *
+     * @param   parser  the parser positioned before the first token of the document
+     *
+     * @return  a map holding the found values or paths for every lookup key which was found in the document
+     *
+     * @throws  IOException  if the document cannot be read or is not valid json
+     */
+    Map<String, Object[]> resolve(final JsonParser parser) throws IOException {
+        read(parser, null);
+        return resultsByKey();
+    }
+
+    /**
+     * Same as {@link #resolve(JsonParser)} but hands the matches to the {@code sink} as soon as they are settled, i.e.
+     * whenever no object is open anymore, the matches of the split keys once the document has been read. The values of
+     * the matches have to be {@link #StreamingKeyResolver(CompiledKeySet, boolean, boolean) collected}.
+     *
+     * @param   parser  the parser positioned before the first token of the document
+     * @param   sink    receives the matches under the requested keys
+     *
+     * @throws  IOException  if the document cannot be read or is not valid json
+     */
+    void resolve(final JsonParser parser, final KeyMatchSink sink) throws IOException {
+        read(parser, sink);
+        emitTo(sink);
+    }
+
+    /**
+     * Same as {@link #resolve(JsonParser, KeyMatchSink)} but adds the scalar values to the {@code values}, the
+     * resolver has to be {@link #decodingPrimitives(CompiledKeySet) decoding primitives}.
+     *
+     * @param   parser  the parser positioned before the first token of the document
+     * @param   values  receives the values under the requested keys
+     *
+     * @throws  IOException  if the document cannot be read or is not valid json
+     */
+    void resolve(final JsonParser parser, final PrimitiveKeyValues values) throws IOException {
+        read(parser, null);
+        emitTo(values);
+    }
+
+    /**
+     * @param  matchSink  receives the matches which are settled while reading, {@code null} if they are collected
+     */
+    private void read(final JsonParser parser, final KeyMatchSink matchSink) throws IOException {
+        reset();
+        sink = matchSink;
+
+        JsonToken token;
+        while (!isComplete && (token = parser.nextToken()) != null) {
+            switch (token) {
+
+                case FIELD_NAME :
+                    onField(parser.getCurrentName());
+                    break;
+
+                case START_OBJECT :
+                case START_ARRAY :
+                    onStart(token == JsonToken.START_OBJECT);
+                    break;
+
+                case END_OBJECT :
+                case END_ARRAY :
+                    onEnd();
+                    break;
+
+                default :
+                    onScalar(parser, token);
+            }
+
+            if (frames.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Forgets the previous document, which may not have been read completely. The lists of occurrences are kept.
+     */
+    private void reset() {
+        occurrencesByName.values().forEach(List::clear);
+        partialsByFirstPart.values().forEach(List::clear);
+        splitOccurrencesByKey.clear();
+        firstObjectNumbersByKey.values().forEach(PriorityQueue::clear);
+        emittedNames.clear();
+        frames.clear();
+        pendingTargets.clear();
+        pendingPrimitives.clear();
+        pendingPartial = null;
+        pendingSplitKeyNodes = emptyList();
+        builder = null;
+        objectCount = 0;
+        openObjectCount = 0;
+        limitedKeyCount = 0;
+        isComplete = false;
+    }
+
+    /**
+     * @param  fieldName  the name of the field as it is read, the lookups use the name under which it is
+     *                    {@link KeyNames#nameOf(String) matched}, the paths and values the name as it is
+     */
+    private void onField(final String fieldName) {
+        final Frame frame = frames.peek();
+        frame.fieldName = fieldName;
+        if (builder != null) {
+            builder.field(fieldName);
+        }
+
+        final String name = names.nameOf(fieldName);
+        final List<Occurrence> occurrences = occurrencesByName.get(name);
+        if (occurrences != null && isAmongFirstMatches(name, frame.number)) {
+            final Occurrence occurrence = new Occurrence(frame.number, pathOf(frame, fieldName));
+            occurrences.add(occurrence);
+            if (collectValues) {
+                awaitValueOf(occurrence);
+            }
+        }
+
+        final Set<String> secondParts = secondPartsByFirstPart.get(name);
+        if (secondParts != null) {
+            pendingPartial = new PartialOccurrence(frame.number, pathOf(frame, fieldName), secondParts);
+            partialsByFirstPart.get(name).add(pendingPartial);
+        }
+
+        for (final PartialOccurrence partial : frame.ownerPartials) {
+            if (partial.secondParts.contains(name)) {
+                final Map<String, Object> ownValues = partial.ownValues;
+                if (collectValues) {
+                    pendingTargets.add(value -> ownValues.put(name, value));
+                } else {
+                    ownValues.put(name, null);
+                }
+
+                if (!name.equals(fieldName)) {
+                    partial.ownFieldNames.put(name, fieldName);
+                }
+            }
+        }
+
+        if (splitKeyRoot != null) {
+            onSplitKeyField(frame, fieldName, name);
+        }
+
+        for (final PartialOccurrence partial : frame.parentPartials) {
+            if (partial.secondParts.contains(name)) {
+                final Occurrence child = new Occurrence(frame.number, pathOf(frame, fieldName));
+                partial.childOccurrencesOf(name).add(child);
+                if (collectValues) {
+                    awaitValueOf(child);
+                }
+            }
+        }
+
+        checkComplete();
+    }
+
+    /**
+     * Records the field if it ends a split key within the current object and keeps the nodes of the split key trie
+     * from which the fields of its value are matched.
+     */
+    private void onSplitKeyField(final Frame frame, final String fieldName, final String name) {
+        final SplitKeyTrie.Node start = splitKeyRoot.childOf(name);
+        if (start != null && start.hasChildren()) {
+            pendingSplitKeyNodes = new ArrayList<>(frame.splitKeyNodes.size() + 1);
+            pendingSplitKeyNodes.add(start);
+        }
+
+        for (final SplitKeyTrie.Node splitKeyNode : frame.splitKeyNodes) {
+            final SplitKeyTrie.Node child = splitKeyNode.childOf(name);
+            if (child == null) {
+                continue;
+            }
+
+            if (!child.getLookupKeys().isEmpty()) {
+                final Occurrence occurrence = new Occurrence(frame.number, pathOf(frame, fieldName));
+                for (final String lookupKey : child.getLookupKeys()) {
+                    splitOccurrencesByKey.computeIfAbsent(lookupKey, key -> new ArrayList<>()).add(occurrence);
+                }
+
+                if (collectValues) {
+                    awaitValueOf(occurrence);
+                }
+            }
+
+            if (child.hasChildren()) {
+                if (pendingSplitKeyNodes.isEmpty()) {
+                    pendingSplitKeyNodes = new ArrayList<>(frame.splitKeyNodes.size());
+                }
+
+                pendingSplitKeyNodes.add(child);
+            }
+        }
+    }
+
+    private void onStart(final boolean isObject) {
+        final Frame parent = frames.peek();
+        final PathNode path = trackPaths ? childPathOf(parent) : null;
+        final Frame frame = new Frame(isObject, isObject ? ++objectCount : 0, path);
+        if (pendingPartial != null) {
+            frame.ownerPartials = new ArrayList<>(1);
+            frame.ownerPartials.add(pendingPartial);
+            pendingPartial = null;
+        }
+
+        if (parent != null) {
+            frame.parentPartials = parent.ownerPartials;
+        }
+
+        if (!pendingSplitKeyNodes.isEmpty()) {
+            frame.splitKeyNodes = pendingSplitKeyNodes;
+            pendingSplitKeyNodes = emptyList();
+        } else if (parent != null && !parent.isObject) {
+            frame.splitKeyNodes = parent.splitKeyNodes;
+        }
+
+        frames.push(frame);
+        if (isObject) {
+            openObjectCount++;
+        }
+
+        pendingPrimitives.clear();
+        if (builder == null && !pendingTargets.isEmpty()) {
+            builder = new ValueBuilder();
+        }
+
+        if (builder != null) {
+            deliver(builder.start(isObject));
+        }
+    }
+
+    private void onEnd() {
+        final Frame frame = frames.pop();
+        if (builder != null && builder.end()) {
+            builder = null;
+        }
+
+        if (frame.isObject && --openObjectCount == 0 && sink != null) {
+            emitSettledTo(sink);
+        }
+
+        checkComplete();
+    }
+
+    private void onScalar(final JsonParser parser, final JsonToken token) throws IOException {
+        final Frame parent = frames.peek();
+        if (parent != null && !parent.isObject) {
+            parent.elementCount++;
+        }
+
+        pendingPartial = null;
+        pendingSplitKeyNodes = emptyList();
+        if (!pendingPrimitives.isEmpty()) {
+            deliverPrimitive(parser, token);
+        }
+
+        if (builder == null && pendingTargets.isEmpty()) {
+            return;
+        }
+
+        final Object value = scalarOf(parser, token);
+        if (builder != null) {
+            builder.add(value);
+        }
+
+        deliver(value);
+        checkComplete();
+    }
+
+    /**
+     * Keeps the object numbers of the first matches of a limited key, i.e. the {@code maxMatches} lowest ones, as the
+     * matches are sorted by them at the end. A match is left out if it would be sorted behind all of them.
+     *
+     * @return  {@code true} if the match in the object with the given {@code objectNumber} is kept
+     */
+    private boolean isAmongFirstMatches(final String key, final long objectNumber) {
+        final PriorityQueue<Long> firstObjectNumbers = firstObjectNumbersByKey.get(key);
+        if (firstObjectNumbers == null) {
+            return true;
+        }
+
+        if (firstObjectNumbers.size() < maxMatches) {
+            firstObjectNumbers.add(objectNumber);
+            if (firstObjectNumbers.size() == maxMatches) {
+                limitedKeyCount++;
+            }
+
+            return true;
+        }
+
+        if (objectNumber < firstObjectNumbers.peek()) {
+            firstObjectNumbers.poll();
+            firstObjectNumbers.add(objectNumber);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Stops reading once every key has {@code maxMatches} matches which are complete and no match still to come can
+     * be sorted before them, that is none of them was found in an object started after the first open object.
+     */
+    private void checkComplete() {
+        if (limitedKeyCount < firstObjectNumbersByKey.size() || firstObjectNumbersByKey.isEmpty() || builder != null
+                || !pendingTargets.isEmpty() || !pendingPrimitives.isEmpty()) {
+            return;
+        }
+
+        final long firstOpenObjectNumber = firstOpenObjectNumber();
+        for (final PriorityQueue<Long> firstObjectNumbers : firstObjectNumbersByKey.values()) {
+            if (firstObjectNumbers.peek() > firstOpenObjectNumber) {
+                return;
+            }
+        }
+
+        isComplete = true;
+    }
+
+    private long firstOpenObjectNumber() {
+        final Iterator<Frame> outermostFirst = frames.descendingIterator();
+        while (outermostFirst.hasNext()) {
+            final Frame frame = outermostFirst.next();
+            if (frame.isObject) {
+                return frame.number;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    private void awaitValueOf(final Occurrence occurrence) {
+        if (decodesPrimitives) {
+            pendingPrimitives.add(occurrence);
+        } else {
+            pendingTargets.add(occurrence::setValue);
+        }
+    }
+
+    /**
+     * Decodes the scalar value of the current token once for all the occurrences waiting for it, integral numbers
+     * which do not fit into a {@code long} as doubles.
+     */
+    private void deliverPrimitive(final JsonParser parser, final JsonToken token) throws IOException {
+        switch (token) {
+
+            case VALUE_NUMBER_INT :
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                    final double value = parser.getDoubleValue();
+                    pendingPrimitives.forEach(occurrence -> occurrence.setDouble(value));
+                } else {
+                    final long value = parser.getLongValue();
+                    pendingPrimitives.forEach(occurrence -> occurrence.setLong(value));
+                }
+
+                break;
+
+            case VALUE_NUMBER_FLOAT :
+                if (isNamedNumber(parser.getText())) {
+                    final Object namedNumber = scalarOf(parser, token);
+                    pendingPrimitives.forEach(occurrence -> occurrence.setValue(namedNumber));
+                } else {
+                    final double value = parser.getDoubleValue();
+                    pendingPrimitives.forEach(occurrence -> occurrence.setDouble(value));
+                }
+
+                break;
+
+            case VALUE_STRING :
+                final String text = parser.getText();
+                pendingPrimitives.forEach(occurrence -> occurrence.setValue(text));
+                break;
+
+            default :
+                break;
+        }
+
+        pendingPrimitives.clear();
+    }
+
+    private void deliver(final Object value) {
+        for (final Consumer<Object> target : pendingTargets) {
+            target.accept(value);
+        }
+
+        pendingTargets.clear();
+    }
+
+    private PathNode childPathOf(final Frame parent) {
+        if (parent == null) {
+            return PathNode.ROOT;
+        }
+
+        if (parent.isObject) {
+            return parent.path.field(parent.fieldName);
+        }
+
+        return parent.path.element(parent.elementCount++);
+    }
+
+    private PathNode pathOf(final Frame frame, final String fieldName) {
+        return trackPaths ? frame.path.field(fieldName) : null;
+    }
+
+    private Map<String, Object[]> resultsByKey() {
+        final Map<String, Object[]> resolvedKeyValues = new HashMap<>();
+        for (final String key : keys.getLookupKeys()) {
+            final List<Occurrence> exactOccurrences = occurrencesByName.get(names.nameOf(key));
+            if (!exactOccurrences.isEmpty()) {
+                exactOccurrences.sort(comparingLong(occurrence -> occurrence.objectNumber));
+                resolvedKeyValues.put(key, valuesOf(exactOccurrences));
+                continue;
+            }
+
+            final List<Occurrence> splitOccurrences = splitOccurrencesByKey.get(key);
+            if (splitOccurrences != null) {
+                splitOccurrences.sort(comparingLong(occurrence -> occurrence.objectNumber));
+                resolvedKeyValues.put(key, valuesOf(splitOccurrences));
+                continue;
+            }
+
+            final String firstPart = names.firstPartOf(key);
+            if (firstPart != null) {
+                final List<PartialOccurrence> partials = partialsByFirstPart.get(firstPart);
+                partials.sort(comparingLong(partial -> partial.objectNumber));
+
+                final List<Object> result = resolveSplitKey(partials, names.secondPartOf(key));
+                if (!result.isEmpty()) {
+                    resolvedKeyValues.put(key, SinglePassKeyResolver.firstValuesOf(result, maxMatches));
+                }
+            } else if (names.isMalformed(key)) {
+                LOGGER.error("The provided key [{}] is malformed", key);
+            }
+        }
+
+        return resolvedKeyValues;
+    }
+
+    /**
+     * Hands the exact matches found so far to the {@code matchSink} and forgets them. Only called while no object is
+     * open, hence the matches still to come are found in objects started later and are sorted behind them.
+     */
+    private void emitSettledTo(final KeyMatchSink matchSink) {
+        for (final String lookupKey : keys.getLookupKeys()) {
+            final String name = names.nameOf(lookupKey);
+            final List<Occurrence> occurrences = occurrencesByName.get(name);
+            if (!occurrences.isEmpty()) {
+                final String key = keys.keyOf(lookupKey);
+                occurrences.sort(comparingLong(occurrence -> occurrence.objectNumber));
+                for (final Occurrence occurrence : occurrences) {
+                    matchSink.onMatch(key, pathStringOf(occurrence.path), occurrence.value);
+                }
+
+                emittedNames.add(name);
+            }
+        }
+
+        occurrencesByName.values().forEach(List::clear);
+    }
+
+    private void emitTo(final KeyMatchSink matchSink) {
+        emitSettledTo(matchSink);
+        for (final String lookupKey : keys.getLookupKeys()) {
+            if (emittedNames.contains(names.nameOf(lookupKey))) {
+                continue;
+            }
+
+            final String key = keys.keyOf(lookupKey);
+            final List<Occurrence> occurrences = splitOccurrencesByKey.getOrDefault(lookupKey, emptyList());
+            if (!occurrences.isEmpty()) {
+                occurrences.sort(comparingLong(occurrence -> occurrence.objectNumber));
+                for (final Occurrence occurrence : occurrences) {
+                    matchSink.onMatch(key, pathStringOf(occurrence.path), occurrence.value);
+                }
+
+                continue;
+            }
+
+            final String firstPart = names.firstPartOf(lookupKey);
+            if (firstPart != null) {
+                final List<PartialOccurrence> partials = partialsByFirstPart.get(firstPart);
+                partials.sort(comparingLong(partial -> partial.objectNumber));
+                emitSplitKey(partials, names.secondPartOf(lookupKey), key, matchSink);
+            } else if (names.isMalformed(lookupKey)) {
+                LOGGER.error("The provided key [{}] is malformed", lookupKey);
+            }
+        }
+    }
+
+    private void emitTo(final PrimitiveKeyValues values) {
+        for (final String lookupKey : keys.getLookupKeys()) {
+            final String key = keys.keyOf(lookupKey);
+            List<Occurrence> occurrences = occurrencesByName.get(names.nameOf(lookupKey));
+            if (occurrences.isEmpty()) {
+                occurrences = splitOccurrencesByKey.getOrDefault(lookupKey, emptyList());
+            }
+
+            if (!occurrences.isEmpty()) {
+                occurrences.sort(comparingLong(occurrence -> occurrence.objectNumber));
+                for (final Occurrence occurrence : occurrences) {
+                    occurrence.addTo(key, values);
+                }
+
+                continue;
+            }
+
+            final String firstPart = names.firstPartOf(lookupKey);
+            if (firstPart != null) {
+                final List<PartialOccurrence> partials = partialsByFirstPart.get(firstPart);
+                partials.sort(comparingLong(partial -> partial.objectNumber));
+                emitSplitKey(partials, names.secondPartOf(lookupKey), key, values);
+            } else if (names.isMalformed(lookupKey)) {
+                LOGGER.error("The provided key [{}] is malformed", lookupKey);
+            }
+        }
+    }
+
+    /**
+     * @see  #resolveSplitKey(List, String)
+     */
+    private void emitSplitKey(final List<PartialOccurrence> partials, final String secondPart, final String key,
+            final PrimitiveKeyValues values) {
+        for (final PartialOccurrence partial : partials) {
+            if (!partial.ownValues.containsKey(secondPart)) {
+                for (final PartialOccurrence eachPartial : partials) {
+                    for (final Occurrence child : eachPartial.childOccurrencesOf(secondPart)) {
+                        child.addTo(key, values);
+                    }
+                }
+
+                return;
+            }
+
+            final Object value = partial.ownValues.get(secondPart);
+            if (value instanceof List) {
+                for (final Object element : (List<?>) value) {
+                    values.onMatch(key, null, element);
+                }
+            } else {
+                values.onMatch(key, null, value);
+            }
+        }
+    }
+
+    /**
+     * @see  #resolveSplitKey(List, String)
+     */
+    private void emitSplitKey(final List<PartialOccurrence> partials, final String secondPart, final String key,
+            final KeyMatchSink sink) {
+        for (final PartialOccurrence partial : partials) {
+            if (!partial.ownValues.containsKey(secondPart)) {
+                for (final PartialOccurrence eachPartial : partials) {
+                    for (final Occurrence child : eachPartial.childOccurrencesOf(secondPart)) {
+                        sink.onMatch(key, pathStringOf(child.path), child.value);
+                    }
+                }
+
+                return;
+            }
+
+            final PathNode path = trackPaths ? partial.ownPathOf(secondPart) : null;
+            final Object value = partial.ownValues.get(secondPart);
+            if (value instanceof List) {
+                int elementIndex = 0;
+                for (final Object element : (List<?>) value) {
+                    sink.onMatch(key, trackPaths ? path.element(elementIndex).toString() : null, element);
+                    elementIndex++;
+                }
+            } else {
+                sink.onMatch(key, pathStringOf(path), value);
+            }
+        }
+    }
+
+    private String pathStringOf(final PathNode path) {
+        return trackPaths ? path.toString() : null;
+    }
+
+    /**
+     * @see  SinglePassKeyResolver
+     */
+    private List<Object> resolveSplitKey(final List<PartialOccurrence> partials, final String secondPart) {
+        final List<Object> result = new ArrayList<>();
+        for (final PartialOccurrence partial : partials) {
+            if (!partial.ownValues.containsKey(secondPart)) {
+                for (final PartialOccurrence eachPartial : partials) {
+                    for (final Occurrence child : eachPartial.childOccurrencesOf(secondPart)) {
+                        result.add(collectValues ? child.value : child.path.toString());
+                    }
+                }
+
+                return result;
+            }
+
+            if (!collectValues) {
+                result.add(partial.ownPathOf(secondPart).toString());
+            } else {
+                final Object value = partial.ownValues.get(secondPart);
+                if (value instanceof List) {
+                    result.addAll((List<?>) value);
+                } else {
+                    result.add(value);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private Object[] valuesOf(final List<Occurrence> occurrences) {
+        final Object[] values = new Object[Math.min(occurrences.size(), maxMatches)];
+        for (int i = 0; i < values.length; i++) {
+            final Occurrence occurrence = occurrences.get(i);
+            values[i] = collectValues ? occurrence.value : occurrence.path.toString();
+        }
+
+        return values;
+    }
+
+    private static Object scalarOf(final JsonParser parser, final JsonToken token) throws IOException {
+        switch (token) {
+
+            case VALUE_STRING :
+                return parser.getText();
+
+            case VALUE_NUMBER_INT :
+                return parser.getNumberValue();
+
+            case VALUE_NUMBER_FLOAT :
+                return decimalOf(parser.getText());
+
+            case VALUE_TRUE :
+                return Boolean.TRUE;
+
+            case VALUE_FALSE :
+                return Boolean.FALSE;
+
+            case VALUE_EMBEDDED_OBJECT :
+                return parser.getEmbeddedObject();
+
+            default :
+                return null;
+        }
+    }
+
+    /**
+     * @return  the number as json-smart reads it: {@code NaN} as a {@link Float}, the infinities spelled out as they
+     *          are written
+     */
+    private static Object decimalOf(final String text) {
+        if (!isNamedNumber(text)) {
+            return MapPayloadConverter.decimalOf(text);
+        }
+
+        return NAN.equals(text) ? (Object) Float.NaN : text;
+    }
+
+    /**
+     * @return  {@code true} if the number is one of the names Jackson accepts for the values which are not numbers,
+     *          e.g. {@code NaN} or {@code -Infinity}
+     */
+    private static boolean isNamedNumber(final String text) {
+        final char last = text.charAt(text.length() - 1);
+        return last == 'N' || last == 'F' || last == 'y';
+    }
+
+    private static final class Frame {
+
+        private final boolean isObject;
+        private final long number;
+        private final PathNode path;
+        private String fieldName;
+        private int elementCount;
+        private List<PartialOccurrence> ownerPartials = emptyList();
+        private List<PartialOccurrence> parentPartials = emptyList();
+        private List<SplitKeyTrie.Node> splitKeyNodes = emptyList();
+
+        private Frame(final boolean isObject, final long number, final PathNode path) {
+            this.isObject = isObject;
+            this.number = number;
+            this.path = path;
+        }
+    }
+
+    private static final class Occurrence {
+
+        private static final byte NONE = 0;
+        private static final byte LONG = 1;
+        private static final byte DOUBLE = 2;
+
+        private final long objectNumber;
+        private final PathNode path;
+        private Object value;
+        private byte primitiveType = NONE;
+        private long longValue;
+        private double doubleValue;
+
+        private Occurrence(final long objectNumber, final PathNode path) {
+            this.objectNumber = objectNumber;
+            this.path = path;
+        }
+
+        private void setValue(final Object value) {
+            this.value = value;
+        }
+
+        private void setLong(final long value) {
+            this.longValue = value;
+            this.primitiveType = LONG;
+        }
+
+        private void setDouble(final double value) {
+            this.doubleValue = value;
+            this.primitiveType = DOUBLE;
+        }
+
+        /**
+         * Adds the value decoded as a primitive, or the scalar value.
+         */
+        private void addTo(final String key, final PrimitiveKeyValues values) {
+            if (primitiveType == LONG) {
+                values.addLong(key, longValue);
+            } else if (primitiveType == DOUBLE) {
+                values.addDouble(key, doubleValue);
+            } else {
+                values.onMatch(key, null, value);
+            }
+        }
+    }
+
+    /**
+     * An occurrence of the first part of a split key. It keeps the values (or paths) of the second parts found in the
+     * value itself and in the objects directly inside of the value.
+     */
+    private static final class PartialOccurrence {
+
+        private final long objectNumber;
+        private final PathNode path;
+        private final Set<String> secondParts;
+        private final Map<String, Object> ownValues = new HashMap<>();
+        private final Map<String, String> ownFieldNames = new HashMap<>(2);
+        private final Map<String, List<Occurrence>> childOccurrences = new HashMap<>();
+
+        private PartialOccurrence(final long objectNumber, final PathNode path, final Set<String> secondParts) {
+            this.objectNumber = objectNumber;
+            this.path = path;
+            this.secondParts = secondParts;
+        }
+
+        private List<Occurrence> childOccurrencesOf(final String secondPart) {
+            return childOccurrences.computeIfAbsent(secondPart, name -> new ArrayList<>());
+        }
+
+        /**
+         * @return  the path of the own field matched by the {@code secondPart}, named as it was read
+         */
+        private PathNode ownPathOf(final String secondPart) {
+            return path.field(ownFieldNames.getOrDefault(secondPart, secondPart));
+        }
+    }
+
+    /**
+     * Builds the value of a found container from the tokens as they are read. Containers nested in it are created
+     * before they are filled, so that keys found inside of a value which is being built share its containers. Objects
+     * and arrays are created with the same types as the json parser of JsonPath creates them.
+     */
+    private static final class ValueBuilder {
+
+        private final Deque<Object> containers = new ArrayDeque<>();
+        private String fieldName;
+
+        private void field(final String name) {
+            fieldName = name;
+        }
+
+        private Object start(final boolean isObject) {
+            final Object container = isObject ? new LinkedHashMap<String, Object>() : new JSONArray();
+            add(container);
+            containers.push(container);
+            return container;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(final Object value) {
+            final Object parent = containers.peek();
+            if (parent instanceof Map) {
+                ((Map<String, Object>) parent).put(fieldName, value);
+            } else if (parent != null) {
+                ((List<Object>) parent).add(value);
+            }
+        }
+
+        /**
+         * @return  {@code true} if the value is complete
+         */
+        private boolean end() {
+            containers.pop();
+            return containers.isEmpty();
+        }
+    }
+}
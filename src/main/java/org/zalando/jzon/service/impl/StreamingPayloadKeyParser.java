@@ -0,0 +1,438 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyMap;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import static org.zalando.jzon.service.KeyMapper.mappedKnownValuesOf;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.JsonLocation;
+import org.zalando.jzon.service.KeyMapping;
+import org.zalando.jzon.service.KeyMatchSink;
+import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.PreparedPayload;
+import org.zalando.jzon.service.TypedKeyValues;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link PayloadKeyParser} which reads payloads given as String or as bytes token by token instead of parsing them
+ * into a document first. It returns the same results as {@link DefaultPayloadKeyParser} while keeping only the
+ * currently open objects and arrays and the found values in memory, which pays off for large payloads of which only a
+ * few keys are needed.
+ *
+ * <p>Reading stops at the end of the first json value, anything following it is ignored as by json-smart. Besides
+ * json, the payloads may have single quotes, unquoted field names, trailing commas, numbers with leading zeros and
+ * {@code NaN} or the infinities as numbers. json-smart accepts more than that, the payloads differ from it in these
+ * cases:</p>
+ *
+ * <ul>
+ *   <li>a field which appears twice in an object is found with both values, json-smart keeps the last one only;</li>
+ *   <li>unquoted values (e.g. {@code {a: b}}), missing values (e.g. {@code [,1]}), comments and numbers written
+ *     otherwise (e.g. {@code .5}, {@code +1} or {@code 0x10}) make the payload invalid, so that nothing is found in
+ *     it, while json-smart reads them as Strings or leaves them out.</li>
+ * </ul>
+ *
+ * <p>Payloads given as {@link Map}, prepared payloads and grouped lookups need the whole document anyway and are
+ * handled by {@link DefaultPayloadKeyParser}.</p>
+ */
+public final class StreamingPayloadKeyParser implements PayloadKeyParser {
+
+    private static final Logger LOGGER = getLogger(StreamingPayloadKeyParser.class);
+    private final JsonFactory jsonFactory;
+    private final PayloadKeyParser documentParser;
+
+    StreamingPayloadKeyParser(final ObjectMapper objectMapper) {
+        this(objectMapper, new JsonPathCache(JsonPathCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    StreamingPayloadKeyParser(final ObjectMapper objectMapper, final JsonPathCache jsonPathCache) {
+        this(objectMapper, jsonPathCache, new KeyLocationCache(KeyLocationCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    /**
+     * @param  keyLocationCache  keeps the locations of the keys in the payloads of a shape
+     */
+    StreamingPayloadKeyParser(final ObjectMapper objectMapper, final JsonPathCache jsonPathCache,
+            final KeyLocationCache keyLocationCache) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.documentParser = new DefaultPayloadKeyParser(objectMapper, jsonPathCache, ArrayParallelism.NONE,
+                keyLocationCache);
+    }
+
+    @Override
+    public PreparedPayload prepare(final String jsonPayload) {
+        return documentParser.prepare(jsonPayload);
+    }
+
+    @Override
+    public PreparedPayload prepare(final Map<String, Object> jsonPayload) {
+        return documentParser.prepare(jsonPayload);
+    }
+
+    @Override
+    public PreparedPayload prepare(final byte[] jsonPayload, final int offset, final int length) {
+        return documentParser.prepare(jsonPayload, offset, length);
+    }
+
+    @Override
+    public PreparedPayload prepare(final ByteBuffer jsonPayload) {
+        return documentParser.prepare(jsonPayload);
+    }
+
+    @Override
+    public PreparedPayload prepare(final InputStream jsonPayload) {
+        return documentParser.prepare(jsonPayload);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> mappedKnownKeys,
+            final Map<String, Object> jsonPayload, final boolean asPathList) {
+        return documentParser.parse(keys, mappedKnownKeys, jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final Set<String> keys, final Map<String, String> mappedKnownKeys,
+            final String jsonPayload, final boolean asPathList) {
+        return parse(CompiledKeySet.of(keys, mappedKnownKeys), jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys, resolve(keys, jsonPayload, asPathList));
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList) {
+        return documentParser.parse(keys, jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList) {
+        return documentParser.parse(keys, jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length, final boolean asPathList) {
+        PayloadStreams.checkRange(jsonPayload, offset, length);
+        return mappedKnownValuesOf(keys,
+                resolve(keys, () -> jsonFactory.createParser(jsonPayload, offset, length), asPathList));
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final ByteBuffer jsonPayload,
+            final boolean asPathList) {
+        if (jsonPayload.hasArray()) {
+            return parse(keys, jsonPayload.array(), jsonPayload.arrayOffset() + jsonPayload.position(),
+                    jsonPayload.remaining(), asPathList);
+        }
+
+        return parse(keys, PayloadStreams.inputStreamOf(jsonPayload), asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final InputStream jsonPayload,
+            final boolean asPathList) {
+        return mappedKnownValuesOf(keys,
+                resolve(keys, () -> jsonFactory.createParser(jsonPayload), asPathList));
+    }
+
+    /**
+     * The matches are handed over once the whole payload has been read, nothing is handed over if it is not valid
+     * json.
+     */
+    @Override
+    public void parse(final CompiledKeySet keys, final String jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        if (isBlank(jsonPayload)) {
+            return;
+        }
+
+        final StreamingKeyResolver resolver = new StreamingKeyResolver(keys, withPaths, true);
+        read(() -> jsonFactory.createParser(jsonPayload), parser -> {
+                resolver.resolve(parser, sink);
+                return null;
+            });
+    }
+
+    @Override
+    public void parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        documentParser.parse(keys, jsonPayload, withPaths, sink);
+    }
+
+    @Override
+    public void parse(final CompiledKeySet keys, final PreparedPayload jsonPayload, final boolean withPaths,
+            final KeyMatchSink sink) {
+        documentParser.parse(keys, jsonPayload, withPaths, sink);
+    }
+
+    /**
+     * Numbers and strings are decoded from the tokens straight into the primitive arrays, without creating objects
+     * for them. Nothing is kept if the payload is not valid json.
+     */
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final String jsonPayload) {
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        if (isBlank(jsonPayload)) {
+            return values;
+        }
+
+        final StreamingKeyResolver resolver = StreamingKeyResolver.decodingPrimitives(keys);
+        read(() -> jsonFactory.createParser(jsonPayload), parser -> {
+                resolver.resolve(parser, values);
+                return null;
+            });
+        return values;
+    }
+
+    /**
+     * The document parser boxes the values of the payload, they are unboxed as they are handed over.
+     */
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final Map<String, Object> jsonPayload) {
+        return documentParser.parseTyped(keys, jsonPayload);
+    }
+
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final PreparedPayload jsonPayload) {
+        return documentParser.parseTyped(keys, jsonPayload);
+    }
+
+    /**
+     * Numbers and strings are decoded from the tokens straight into the primitive arrays, as for a String payload.
+     */
+    @Override
+    public TypedKeyValues parseTyped(final CompiledKeySet keys, final byte[] jsonPayload, final int offset,
+            final int length) {
+        PayloadStreams.checkRange(jsonPayload, offset, length);
+
+        final PrimitiveKeyValues values = new PrimitiveKeyValues();
+        final StreamingKeyResolver resolver = StreamingKeyResolver.decodingPrimitives(keys);
+        read(() -> jsonFactory.createParser(jsonPayload, offset, length), parser -> {
+                resolver.resolve(parser, values);
+                return null;
+            });
+        return values;
+    }
+
+    /**
+     * The values of the keys are kept against one parsed document, so lazy maps are created by the document parser.
+     */
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return documentParser.parseLazily(keys, jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList) {
+        return documentParser.parseLazily(keys, jsonPayload, asPathList);
+    }
+
+    @Override
+    public Map<String, Object[]> parseLazily(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList) {
+        return documentParser.parseLazily(keys, jsonPayload, asPathList);
+    }
+
+    /**
+     * The locations point into one parsed document, which the document parser keeps the nodes of.
+     */
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final String jsonPayload) {
+        return documentParser.parseLocations(keys, jsonPayload);
+    }
+
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload) {
+        return documentParser.parseLocations(keys, jsonPayload);
+    }
+
+    @Override
+    public Map<String, JsonLocation[]> parseLocations(final CompiledKeySet keys, final PreparedPayload jsonPayload) {
+        return documentParser.parseLocations(keys, jsonPayload);
+    }
+
+    /**
+     * The paths are read by walking down one parsed document, which the document parser keeps.
+     */
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final String jsonPayload) {
+        return documentParser.readPaths(paths, jsonPayload);
+    }
+
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final Map<String, Object> jsonPayload) {
+        return documentParser.readPaths(paths, jsonPayload);
+    }
+
+    @Override
+    public Map<String, Object> readPaths(final Collection<String> paths, final PreparedPayload jsonPayload) {
+        return documentParser.readPaths(paths, jsonPayload);
+    }
+
+    /**
+     * The remembered locations are read from a parsed document, so payloads of a shape are read by the document
+     * parser.
+     */
+    @Override
+    public Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys,
+            final String jsonPayload) {
+        return documentParser.parseByShape(shapeId, keys, jsonPayload);
+    }
+
+    @Override
+    public Map<String, Object[]> parseByShape(final String shapeId, final CompiledKeySet keys,
+            final Map<String, Object> jsonPayload) {
+        return documentParser.parseByShape(shapeId, keys, jsonPayload);
+    }
+
+    /**
+     * Reading the payload stops once every key has been found {@code maxMatches} times and none of the matches can be
+     * preceded by a match still to come, the rest of the payload is not checked to be valid json.
+     */
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final String jsonPayload, final boolean asPathList,
+            final int maxMatches) {
+        SinglePassKeyResolver.checkMaxMatches(maxMatches);
+        return mappedKnownValuesOf(keys,
+                resolve(new StreamingKeyResolver(keys, asPathList, !asPathList, maxMatches), jsonPayload));
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final Map<String, Object> jsonPayload,
+            final boolean asPathList, final int maxMatches) {
+        return documentParser.parse(keys, jsonPayload, asPathList, maxMatches);
+    }
+
+    @Override
+    public Map<String, Object[]> parse(final CompiledKeySet keys, final PreparedPayload jsonPayload,
+            final boolean asPathList, final int maxMatches) {
+        return documentParser.parse(keys, jsonPayload, asPathList, maxMatches);
+    }
+
+    @Override
+    public List<Map<String, Object[]>> parseAll(final CompiledKeySet keys, final Spliterator<String> jsonPayloads,
+            final boolean asPathList, final ForkJoinPool pool) {
+        return ParallelBatch.parseAll(pool, jsonPayloads, () -> {
+                    final StreamingKeyResolver resolver = new StreamingKeyResolver(keys, asPathList);
+                    return jsonPayload -> mappedKnownValuesOf(keys, resolve(resolver, jsonPayload));
+                });
+    }
+
+    Map<String, Object[]> parse(final Set<String> keys, final String jsonPayload, final boolean asPathList) {
+        return resolve(CompiledKeySet.of(keys), jsonPayload, asPathList);
+    }
+
+    private Map<String, Object[]> resolve(final CompiledKeySet keys, final String jsonPayload,
+            final boolean asPathList) {
+        return resolve(new StreamingKeyResolver(keys, asPathList), jsonPayload);
+    }
+
+    private Map<String, Object[]> resolve(final StreamingKeyResolver resolver, final String jsonPayload) {
+        if (isBlank(jsonPayload)) {
+            return emptyMap();
+        }
+
+        return resolve(resolver, () -> jsonFactory.createParser(jsonPayload));
+    }
+
+    private Map<String, Object[]> resolve(final CompiledKeySet keys, final ParserSource source,
+            final boolean asPathList) {
+        return resolve(new StreamingKeyResolver(keys, asPathList), source);
+    }
+
+    private Map<String, Object[]> resolve(final StreamingKeyResolver resolver, final ParserSource source) {
+        final Map<String, Object[]> resolvedKeyValues = read(source, resolver::resolve);
+        return resolvedKeyValues == null ? new HashMap<>() : resolvedKeyValues;
+    }
+
+    /**
+     * @return  the result of the {@code reader} or {@code null} if the payload is not valid json
+     */
+    private <T> T read(final ParserSource source, final TokenReader<T> reader) {
+        try (JsonParser parser = source.createParser()) {
+            parser.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+            parser.enable(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES);
+            parser.enable(JsonParser.Feature.ALLOW_TRAILING_COMMA);
+            parser.enable(JsonParser.Feature.ALLOW_NUMERIC_LEADING_ZEROS);
+            parser.enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return reader.read(parser);
+        } catch (final JsonProcessingException e) {
+            LOGGER.trace("Cannot parse payload", e);
+            return null;
+        } catch (final IOException e) {
+            throw new JsonParsingException("Cannot read payload", e);
+        }
+    }
+
+    @Override
+    public Map<String, Set<Object>> parseUnique(final Set<String> keys, final Map<String, String> mappedKnownKeys,
+            final Map<String, Object> jsonPayload) {
+        return documentParser.parseUnique(keys, mappedKnownKeys, jsonPayload);
+    }
+
+    @Override
+    public Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, final Map<String, Object> jsonPayload) {
+        return documentParser.parseUnique(keys, jsonPayload);
+    }
+
+    @Override
+    public Map<String, Set<Object>> parseUnique(final CompiledKeySet keys, final PreparedPayload jsonPayload) {
+        return documentParser.parseUnique(keys, jsonPayload);
+    }
+
+    @Override
+    public List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final Map<String, String> mappedKnownKeys,
+            final Map<String, Object> jsonPayload) {
+        return documentParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, mappedKnownKeys, jsonPayload);
+    }
+
+    @Override
+    public List<Map<String, Object>> parseGrouped(final String groupKey, final Set<String> mandatoryKeys,
+            final Set<String> optionalKeys, final KeyMapping keyMapping, final PreparedPayload jsonPayload) {
+        return documentParser.parseGrouped(groupKey, mandatoryKeys, optionalKeys, keyMapping, jsonPayload);
+    }
+
+    @FunctionalInterface
+    private interface ParserSource {
+
+        JsonParser createParser() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface TokenReader<T> {
+
+        T read(JsonParser parser) throws IOException;
+    }
+}
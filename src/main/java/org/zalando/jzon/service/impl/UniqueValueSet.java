@@ -0,0 +1,195 @@
+package org.zalando.jzon.service.impl;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of found values in one open addressing table with linear probing, without an entry object per value. The
+ * values are compared by {@link Object#equals(Object) equals} like in a {@link java.util.HashSet}, {@code null} is a
+ * value as well. Removed values leave a marker behind until the table is rebuilt on its next growth.
+ *
+ * <p>The set is serializable like a {@link java.util.HashSet}: only its values are written, the table is built anew
+ * when it is read.</p>
+ */
+final class UniqueValueSet extends AbstractSet<Object> implements Serializable {
+
+    private static final long serialVersionUID = 4106817530728465319L;
+
+    private static final Object NULL = new Object();
+    private static final Object REMOVED = new Object();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private transient Object[] table = new Object[INITIAL_CAPACITY];
+    private transient int size;
+    private transient int usedSlots;
+
+    @Override
+    public boolean add(final Object value) {
+        final Object element = value == null ? NULL : value;
+        final int mask = table.length - 1;
+        int slot = spread(element.hashCode()) & mask;
+        int firstRemoved = -1;
+        Object current;
+        while ((current = table[slot]) != null) {
+            if (current == REMOVED) {
+                if (firstRemoved < 0) {
+                    firstRemoved = slot;
+                }
+            } else if (current.equals(element)) {
+                return false;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        size++;
+        if (firstRemoved >= 0) {
+            table[firstRemoved] = element;
+            return true;
+        }
+
+        table[slot] = element;
+        usedSlots++;
+        if (usedSlots * 2 > table.length) {
+            rebuild(size * 4 > table.length ? table.length * 2 : table.length);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean contains(final Object value) {
+        return slotOf(value == null ? NULL : value) >= 0;
+    }
+
+    @Override
+    public boolean remove(final Object value) {
+        final int slot = slotOf(value == null ? NULL : value);
+        if (slot < 0) {
+            return false;
+        }
+
+        removeAt(slot);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Iterator<Object>() {
+
+            private int next = nextSlotFrom(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next < table.length;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                last = next;
+                next = nextSlotFrom(next + 1);
+
+                final Object element = table[last];
+                return element == NULL ? null : element;
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+
+                removeAt(last);
+                last = -1;
+            }
+        };
+    }
+
+    /**
+     * @return  the slot holding the {@code element}, {@code -1} if it is not in the set
+     */
+    private int slotOf(final Object element) {
+        final int mask = table.length - 1;
+        int slot = spread(element.hashCode()) & mask;
+        Object current;
+        while ((current = table[slot]) != null) {
+            if (current != REMOVED && current.equals(element)) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void removeAt(final int slot) {
+        table[slot] = REMOVED;
+        size--;
+    }
+
+    private int nextSlotFrom(final int slot) {
+        int next = slot;
+        while (next < table.length && (table[next] == null || table[next] == REMOVED)) {
+            next++;
+        }
+
+        return next;
+    }
+
+    private void rebuild(final int capacity) {
+        final Object[] elements = table;
+        table = new Object[capacity];
+        usedSlots = size;
+
+        final int mask = capacity - 1;
+        for (final Object element : elements) {
+            if (element != null && element != REMOVED) {
+                int slot = spread(element.hashCode()) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+
+                table[slot] = element;
+            }
+        }
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (final Object value : this) {
+            out.writeObject(value);
+        }
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        table = new Object[INITIAL_CAPACITY];
+
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            add(in.readObject());
+        }
+    }
+
+    private static int spread(final int hashCode) {
+        return hashCode ^ (hashCode >>> 16);
+    }
+}
@@ -0,0 +1,49 @@
+package org.zalando.jzon.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.KnownKeys.KEY_SIMPLE_SKU;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class CompiledKeySetTest {
+
+    private static final String KEY_PRODUCT_ID = "product_id";
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_SHIPPING_ZIP_CODE = "shipping_address_zip_code";
+
+    @Test
+    public void of_looksUpTheReplacementKeys_ifTheyAreProvided() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_SIMPLE_SKU, KEY_SIZE),
+                ImmutableMap.of(KEY_SIMPLE_SKU, KEY_PRODUCT_ID));
+
+        assertThat(keys.getLookupKeys()).containsOnly(KEY_PRODUCT_ID, KEY_SIZE);
+        assertThat(keys.keyOf(KEY_PRODUCT_ID)).isEqualTo(KEY_SIMPLE_SKU);
+        assertThat(keys.keyOf(KEY_SIZE)).isEqualTo(KEY_SIZE);
+    }
+
+    @Test
+    public void ignoringNamingConvention_keepsTheLookupKeysAsTheyAre_ifTheNamingConventionIsIgnored() {
+        final CompiledKeySet keys = CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SHIPPING_ZIP_CODE, "shippingAddress_zip_code"));
+
+        assertThat(keys.ignoresNamingConvention()).isTrue();
+        assertThat(keys.getLookupKeys()).containsOnly(KEY_CUSTOMER_NUMBER, KEY_SHIPPING_ZIP_CODE,
+            "shippingAddress_zip_code");
+    }
+
+    @Test
+    public void of_doesNotIgnoreTheNamingConvention() {
+        assertThat(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)).ignoresNamingConvention()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void of_throwsIllegalArgumentException_ifBlankKeyIsProvided() {
+        CompiledKeySet.of(newHashSet(KEY_SIZE, " "));
+    }
+}
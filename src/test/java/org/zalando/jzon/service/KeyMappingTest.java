@@ -0,0 +1,53 @@
+package org.zalando.jzon.service;
+
+import static java.util.Collections.emptyMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.KnownKeys.KEY_SIMPLE_SKU;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+public class KeyMappingTest {
+
+    private static final String KEY_PRODUCT_ID = "product_id";
+    private static final String KEY_SIZE = "size";
+
+    @Test
+    public void of_mapsTheKeysInBothDirections_ifReplacementKeysAreProvided() {
+        final KeyMapping keyMapping = KeyMapping.of(ImmutableMap.of(KEY_SIMPLE_SKU, KEY_PRODUCT_ID));
+
+        assertThat(keyMapping.lookupKeyOf(KEY_SIMPLE_SKU)).isEqualTo(KEY_PRODUCT_ID);
+        assertThat(keyMapping.keyOf(KEY_PRODUCT_ID)).isEqualTo(KEY_SIMPLE_SKU);
+        assertThat(keyMapping.lookupKeyOf(KEY_SIZE)).isEqualTo(KEY_SIZE);
+        assertThat(keyMapping.keyOf(KEY_SIZE)).isEqualTo(KEY_SIZE);
+    }
+
+    @Test
+    public void keyOf_returnsTheFirstKey_ifSeveralKeysAreReplacedByTheSameKey() {
+        final Map<String, String> replacementKeys = new LinkedHashMap<>();
+        replacementKeys.put(KEY_SIZE, KEY_PRODUCT_ID);
+        replacementKeys.put(KEY_SIMPLE_SKU, KEY_PRODUCT_ID);
+
+        final KeyMapping keyMapping = KeyMapping.of(replacementKeys);
+
+        assertThat(keyMapping.keyOf(KEY_PRODUCT_ID)).isEqualTo(KEY_SIZE);
+        assertThat(keyMapping.keyOf(KEY_PRODUCT_ID)).isEqualTo(KeyMapper.getKeyByMappedKnownKey(replacementKeys,
+                KEY_PRODUCT_ID));
+        assertThat(keyMapping.lookupKeyOf(KEY_SIMPLE_SKU)).isEqualTo(KEY_PRODUCT_ID);
+    }
+
+    @Test
+    public void of_returnsTheEmptyMapping_ifNoReplacementKeysAreProvided() {
+        final KeyMapping keyMapping = KeyMapping.of(emptyMap());
+
+        assertThat(keyMapping).isSameAs(KeyMapping.NONE);
+        assertThat(keyMapping.keyOf(KEY_CUSTOMER_NUMBER)).isEqualTo(KEY_CUSTOMER_NUMBER);
+    }
+}
@@ -18,6 +18,8 @@ import org.junit.Test;
 
 import org.zalando.jzon.service.impl.PayloadKeyFactory;
 
+import com.jayway.jsonpath.PathNotFoundException;
+
 public class PayloadKeyModifierTest {
 
     private PayloadKeyModifier payloadKeyModifier;
@@ -87,4 +89,64 @@ public class PayloadKeyModifierTest {
 
         assertThat(payload.keySet()).containsOnly("size");
     }
+
+    @Test
+    public void removeKeysWithPaths_removesNestedKeysAndArrayElements_ifPathsShareTheirPrefix() throws Exception {
+        final Set<String> toBeRemovedKeyPaths = newHashSet("$['customers'][0]['email']", "$.customers[1].email",
+                "$['customers'][1]['phone']", "$['items'][0]", "$['items'][2]", "$..internal_note");
+
+        //J-
+        final String jsonPayload = "{"
+                +"\"customers\": ["
+                +    "{\"name\": \"jon\", \"email\": \"jon.doe@zalando.de\"},"
+                +    "{\"name\": \"jane\", \"email\": \"jane.doe@zalando.de\", \"phone\": \"123\"}"
+                +    "],"
+                +"\"items\": [\"first\", \"second\", \"third\", {\"internal_note\": \"note\"}]"
+                +"}";
+
+        final String expectedPayload = "{"
+                +"\"customers\": [{\"name\": \"jon\"}, {\"name\": \"jane\"}],"
+                +"\"items\": [\"second\", {}]"
+                +"}";
+        //J+
+        final Map<String, Object> payload = convertToMap(jsonPayload);
+
+        payloadKeyModifier.removeKeysWithPaths(toBeRemovedKeyPaths, payload);
+
+        assertEquals(expectedPayload, toJSON(payload), true);
+    }
+
+    @Test
+    public void removeKeysWithPaths_removesTheCompiledPaths_ifTheyAreUsedForSeveralPayloads() throws Exception {
+        final CompiledPaths toBeRemovedKeyPaths = payloadKeyModifier.compile(newHashSet("$['customer']['email']"));
+
+        final Map<String, Object> firstPayload = convertToMap("{\"customer\": {\"email\": \"a\", \"id\": 1}}");
+        final Map<String, Object> secondPayload = convertToMap("{\"customer\": {\"email\": \"b\", \"id\": 2}}");
+
+        payloadKeyModifier.removeKeysWithPaths(toBeRemovedKeyPaths, firstPayload);
+        payloadKeyModifier.removeKeysWithPaths(toBeRemovedKeyPaths, secondPayload);
+
+        assertEquals("{\"customer\": {\"id\": 1}}", toJSON(firstPayload), true);
+        assertEquals("{\"customer\": {\"id\": 2}}", toJSON(secondPayload), true);
+    }
+
+    @Test
+    public void removeKeysWithPaths_removesTheCompiledPaths_ifTheModifierOnlyRemovesPathsGivenAsSet() throws Exception {
+        final PayloadKeyModifier setOnlyModifier = payloadKeyModifier::removeKeysWithPaths;
+        final CompiledPaths toBeRemovedKeyPaths = setOnlyModifier.compile(newHashSet("$['customer']['email']"));
+
+        final Map<String, Object> payload = convertToMap("{\"customer\": {\"email\": \"a\", \"id\": 1}}");
+
+        setOnlyModifier.removeKeysWithPaths(toBeRemovedKeyPaths, payload);
+
+        assertThat(toBeRemovedKeyPaths.getPaths()).containsExactly("$['customer']['email']");
+        assertEquals("{\"customer\": {\"id\": 1}}", toJSON(payload), true);
+    }
+
+    @Test(expected = PathNotFoundException.class)
+    public void removeKeysWithPaths_throwsPathNotFoundException_ifTheParentOfAPathIsMissing() throws Exception {
+        final Map<String, Object> payload = convertToMap("{\"size\": \"27\"}");
+
+        payloadKeyModifier.removeKeysWithPaths(newHashSet("$['customer']['email']"), payload);
+    }
 }
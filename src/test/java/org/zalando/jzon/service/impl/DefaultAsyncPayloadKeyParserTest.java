@@ -0,0 +1,90 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_HASH;
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.zalando.jzon.service.AsyncPayloadKeyParser;
+import org.zalando.jzon.service.CompiledKeySet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DefaultAsyncPayloadKeyParserTest {
+
+    //J-
+    private static final String PAYLOAD = "{"
+            +"\"order_items\": ["
+            +    "{\"customer_number\": \"12\", \"customer_hash\": \"12anyStupidHash\"},"
+            +    "{\"customer_number\": \"34\"},"
+            +    "{\"customer_number\": \"12\"}"
+            +    "]"
+            +"}";
+    //J+
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    private final AtomicInteger taskCount = new AtomicInteger();
+    private final AsyncPayloadKeyParser asyncPayloadKeyParser = new PayloadKeyFactory().getAsyncPayloadKeyParser(
+            new PayloadKeyFactory().getPayloadKeyParser(new ObjectMapper()), task -> {
+                taskCount.incrementAndGet();
+                executorService.execute(task);
+            });
+
+    @After
+    public void tearDown() {
+        executorService.shutdown();
+    }
+
+    @Test
+    public void parse_completesWithTheValues_onTheGivenExecutor() {
+        final Map<String, Object[]> resultMap = asyncPayloadKeyParser.parse(CompiledKeySet.of(
+                    newHashSet(KEY_CUSTOMER_NUMBER)), PAYLOAD, AS_VALUE_LIST).join();
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("12", "34", "12");
+        assertThat(taskCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseUniqueAndParseGrouped_completeWithTheValues_ifThePayloadIsPreparedAsynchronously() {
+        final Set<String> keys = newHashSet(KEY_CUSTOMER_NUMBER);
+
+        final Map<String, Set<Object>> uniqueValues = asyncPayloadKeyParser.prepare(PAYLOAD).thenCompose(
+                    preparedPayload -> asyncPayloadKeyParser.parseUnique(keys, emptyMap(), preparedPayload)).join();
+        final List<Map<String, Object>> groups = asyncPayloadKeyParser.prepare(PAYLOAD).thenCompose(
+                    preparedPayload ->
+                        asyncPayloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, newHashSet(KEY_CUSTOMER_HASH),
+                            emptySet(), emptyMap(), preparedPayload)).join();
+
+        assertThat(uniqueValues.get(KEY_CUSTOMER_NUMBER)).containsOnly("12", "34");
+        assertThat(groups).hasSize(1);
+        assertThat(groups.get(0)).containsEntry(KEY_CUSTOMER_HASH, "12anyStupidHash");
+    }
+
+    @Test
+    public void parse_completesExceptionally_ifKeyIsBlank() {
+        final CompletableFuture<Map<String, Object[]>> result = asyncPayloadKeyParser.parse(newHashSet(" "),
+                emptyMap(), PAYLOAD, AS_VALUE_LIST);
+
+        assertThatThrownBy(result::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(
+            IllegalArgumentException.class);
+    }
+}
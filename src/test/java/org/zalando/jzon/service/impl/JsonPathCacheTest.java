@@ -0,0 +1,63 @@
+package org.zalando.jzon.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.SerializationHelper.convertToMap;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+
+public class JsonPathCacheTest {
+
+    @Test
+    public void compile_returnsTheCachedPath_ifThePathHasBeenCompiledBefore() {
+        final JsonPathCache jsonPathCache = new JsonPathCache(2);
+
+        final JsonPath firstPath = jsonPathCache.compile("$['customer']['number']");
+        final JsonPath secondPath = jsonPathCache.compile("$['customer']['number']");
+
+        assertThat(secondPath).isSameAs(firstPath);
+        assertThat(jsonPathCache.getMissCount()).isEqualTo(1);
+        assertThat(jsonPathCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void compile_evictsTheLeastRecentlyUsedPath_ifTheMaximumSizeIsReached() {
+        final JsonPathCache jsonPathCache = new JsonPathCache(2);
+
+        jsonPathCache.compile("$['size']");
+        jsonPathCache.compile("$['items']");
+        jsonPathCache.compile("$['size']");
+        jsonPathCache.compile("$['customer']");
+        final JsonPath sizePath = jsonPathCache.compile("$['size']");
+
+        assertThat(sizePath.getPath()).isEqualTo("$['size']");
+        assertThat(jsonPathCache.size()).isEqualTo(2);
+        assertThat(jsonPathCache.getEvictionCount()).isEqualTo(1);
+        assertThat(jsonPathCache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test(expected = InvalidPathException.class)
+    public void compile_throwsInvalidPathException_ifThePathIsNotValid() {
+        new JsonPathCache(2).compile("$['size'");
+    }
+
+    @Test
+    public void removeKeysWithPaths_usesTheCacheOfTheFactory_ifTheSameDeepScanIsRemovedAgain() throws Exception {
+        final PayloadKeyFactory payloadKeyFactory = new PayloadKeyFactory(new JsonPathCache(8));
+        final Map<String, Object> payload = convertToMap("{\"size\": 27, \"items\": []}");
+
+        payloadKeyFactory.getPayloadKeyModifier().removeKeysWithPaths(newHashSet("$..size"), payload);
+        payloadKeyFactory.getPayloadKeyModifier().removeKeysWithPaths(newHashSet("$..size"), payload);
+
+        assertThat(payload).containsOnlyKeys("items");
+        assertThat(payloadKeyFactory.getJsonPathCache().getMissCount()).isEqualTo(1);
+        assertThat(payloadKeyFactory.getJsonPathCache().getHitCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,210 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.Collections.singletonMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.SerializationHelper.convertToMap;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.PayloadKeyParser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class KeyLocationCacheTest {
+
+    private static final CompiledKeySet ORDER_KEYS = CompiledKeySet.of(newHashSet("customer_number", "simple_sku",
+                "size", "order_id"));
+    private static final CompiledKeySet CUSTOMER_KEYS = CompiledKeySet.of(newHashSet("customer_number"));
+
+    //J-
+    private static final String FIRST_ORDER = "{"
+            +"\"order_id\": \"1\","
+            +"\"customer\": {\"number\": \"12345\"},"
+            +"\"items\": [{\"simple_sku\": \"JA222H085-C11000S000\", \"size\": \"M\"},"
+            +           "{\"simple_sku\": \"BA112A01B-B11000M000\", \"size\": [38, 39]}]"
+            +"}";
+    private static final String SECOND_ORDER = "{"
+            +"\"order_id\": \"2\","
+            +"\"customer\": {\"number\": \"67890\"},"
+            +"\"items\": [{\"simple_sku\": \"AD112A0KA-A11000S000\", \"size\": \"L\"},"
+            +           "{\"simple_sku\": \"NI112A06Y-Q11000L000\", \"size\": [42, 43]}]"
+            +"}";
+    private static final String THIRD_ORDER = "{"
+            +"\"order_id\": \"3\","
+            +"\"customer\": {\"number\": \"13579\"},"
+            +"\"items\": [{\"simple_sku\": \"AD112A0KA-A11000S000\", \"size\": \"L\"},"
+            +           "{\"simple_sku\": \"NI112A06Y-Q11000L000\", \"size\": 42},"
+            +           "{\"simple_sku\": \"JA222H085-C11000S000\", \"size\": \"S\"}]"
+            +"}";
+    private static final String DRIFTED_ORDER = "{"
+            +"\"order_id\": \"4\","
+            +"\"customer\": {\"number\": \"24680\", \"email\": \"jane@doe.com\"},"
+            +"\"items\": [{\"simple_sku\": \"AD112A0KA-A11000S000\", \"size\": \"L\"}]"
+            +"}";
+    //J+
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final KeyLocationCache keyLocationCache = new KeyLocationCache(2);
+    private final PayloadKeyParser payloadKeyParser = new DefaultPayloadKeyParser(objectMapper,
+            new JsonPathCache(JsonPathCache.DEFAULT_MAXIMUM_SIZE), ArrayParallelism.NONE, keyLocationCache);
+
+    @Test
+    public void parseByShape_readsTheLearnedLocations_ifThePayloadHasTheSameShape() throws Exception {
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, FIRST_ORDER);
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("order", ORDER_KEYS,
+                convertToMap(SECOND_ORDER));
+
+        assertSameValuesAsParse(resultMap, SECOND_ORDER);
+        assertThat(resultMap.get("customer_number")).containsExactly("67890");
+        assertThat(keyLocationCache.getMissCount()).isEqualTo(1);
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseByShape_walksThePayloadAndLearnsItsLocations_ifTheShapeHasDrifted() {
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, SECOND_ORDER);
+
+        final Map<String, Object[]> driftedResultMap = payloadKeyParser.parseByShape("order", ORDER_KEYS,
+                DRIFTED_ORDER);
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("order", ORDER_KEYS, DRIFTED_ORDER);
+
+        assertSameValuesAsParse(driftedResultMap, DRIFTED_ORDER);
+        assertSameValuesAsParse(resultMap, DRIFTED_ORDER);
+        assertThat(keyLocationCache.getMissCount()).isEqualTo(2);
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseByShape_walksThePayload_ifNoKeyWasFoundInTheLearnedPayload() {
+        payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS, "{\"a\": {}, \"b\": 1}");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS,
+                "{\"a\": {\"customer_number\": 5}, \"b\": 2}");
+
+        assertThat(resultMap.get("customer_number")).containsExactly(5);
+        assertThat(keyLocationCache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void parseByShape_walksThePayload_ifAKeyWasNotFoundInTheLearnedPayload() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet("customer_number", "discount_code"));
+        payloadKeyParser.parseByShape("cart", keys, "{\"customer_number\": \"1\", \"cart\": {\"items\": 1}}");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("cart", keys,
+                "{\"customer_number\": \"2\", \"cart\": {\"discount_code\": \"D\"}}");
+
+        assertThat(resultMap).containsOnlyKeys("customer_number", "discount_code");
+        assertThat(resultMap.get("customer_number")).containsExactly("2");
+        assertThat(resultMap.get("discount_code")).containsExactly("D");
+        assertThat(keyLocationCache.getMissCount()).isEqualTo(2);
+        assertThat(keyLocationCache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void parseByShape_walksThePayload_ifTheKeyIsFoundInANewField() {
+        payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS, "{\"a\": {\"customer_number\": \"1\"}}");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS,
+                "{\"a\": {\"customer_number\": \"3\"}, \"b\": {\"customer_number\": \"4\"}}");
+
+        assertThat(resultMap.get("customer_number")).containsExactly("3", "4");
+        assertThat(keyLocationCache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void parseByShape_walksThePayload_ifTheExactKeyIsFoundNextToTheLearnedSplitKey() {
+        payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS, "{\"customer\": {\"number\": 1}}");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS,
+                "{\"customer\": {\"number\": 1}, \"customer_number\": 9}");
+
+        assertThat(resultMap.get("customer_number")).containsExactly(9);
+        assertThat(keyLocationCache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void parseByShape_readsEveryElementOfTheLearnedArray_ifTheNumberOfElementsHasChanged() {
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, SECOND_ORDER);
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("order", ORDER_KEYS, THIRD_ORDER);
+
+        assertSameValuesAsParse(resultMap, THIRD_ORDER);
+        assertThat(resultMap.get("simple_sku")).hasSize(3);
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseByShape_readsTheValuesInTheOrderOfThePayload_ifSplitKeysAreFoundAfterOtherKeys() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"a\": {\"customer\": {\"number\": 1}},"
+                +"\"b\": {\"simple_sku\": \"S\", \"customer\": {\"number\": 2}}"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet("customer_number", "simple_sku"));
+        payloadKeyParser.parseByShape("order", keys, jsonPayload);
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("order", keys, jsonPayload);
+
+        assertThat(resultMap.get("customer_number")).containsExactly(1, 2);
+        assertThat(resultMap.get("simple_sku")).containsExactly("S");
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void parseByShape_readsTheLearnedLocations_ifTheKeysAreCompiledAgainFromTheSameKeys() {
+        payloadKeyParser.parseByShape("customer", CUSTOMER_KEYS, "{\"customer\": {\"number\": 1}}");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parseByShape("customer",
+                CompiledKeySet.of(newHashSet("customer_number")), "{\"customer\": {\"number\": 2}}");
+        final Map<String, Object[]> replacedResultMap = payloadKeyParser.parseByShape("customer",
+                CompiledKeySet.of(newHashSet("customer_number"), singletonMap("customer_number", "customer_id")),
+                "{\"customer\": {\"number\": 3}, \"customer_id\": 4}");
+
+        assertThat(resultMap.get("customer_number")).containsExactly(2);
+        assertThat(replacedResultMap.get("customer_number")).containsExactly(4);
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(1);
+        assertThat(keyLocationCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void parseByShape_evictsTheLeastRecentlyUsedShape_ifTheMaximumSizeIsReached() {
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, FIRST_ORDER);
+        payloadKeyParser.parseByShape("return", ORDER_KEYS, FIRST_ORDER);
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, FIRST_ORDER);
+        payloadKeyParser.parseByShape("cancellation", ORDER_KEYS, FIRST_ORDER);
+        payloadKeyParser.parseByShape("order", ORDER_KEYS, FIRST_ORDER);
+
+        assertThat(keyLocationCache.size()).isEqualTo(2);
+        assertThat(keyLocationCache.getEvictionCount()).isEqualTo(1);
+        assertThat(keyLocationCache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseByShape_throwsIllegalArgumentException_ifTheShapeIdIsNull() {
+        payloadKeyParser.parseByShape(null, ORDER_KEYS, FIRST_ORDER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void new_throwsIllegalArgumentException_ifTheMaximumSizeIsNegative() {
+        new KeyLocationCache(-1);
+    }
+
+    private void assertSameValuesAsParse(final Map<String, Object[]> resultMap, final String jsonPayload) {
+        final Map<String, Object[]> expectedMap = payloadKeyParser.parse(ORDER_KEYS, jsonPayload, AS_VALUE_LIST);
+
+        assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+        for (final Map.Entry<String, Object[]> expected : expectedMap.entrySet()) {
+            assertThat(resultMap.get(expected.getKey())).containsExactly(expected.getValue());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.zalando.jzon.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import org.junit.Test;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+public class KeyNamesTest {
+
+    private static final String KEY_SIZE = "size";
+    private static final String KEY_SHIPPING_ZIP_CODE = "shipping_address_zip_code";
+
+    @Test
+    public void of_splitsTheKeys_ifTheyConsistOfTwoParts() {
+        final KeyNames names = KeyNames.of(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIZE, "customer_")));
+
+        assertThat(names.firstPartOf(KEY_CUSTOMER_NUMBER)).isEqualTo("customer");
+        assertThat(names.secondPartOf(KEY_CUSTOMER_NUMBER)).isEqualTo("number");
+        assertThat(names.firstPartOf(KEY_SIZE)).isNull();
+        assertThat(names.isMalformed("customer_")).isTrue();
+        assertThat(names.getFieldNames()).containsOnly(KEY_CUSTOMER_NUMBER, KEY_SIZE, "customer_", "customer");
+        assertThat(names.getSecondPartsByFirstPart()).containsOnlyKeys("customer");
+    }
+
+    @Test
+    public void of_mergesTheKeysIntoTheSplitKeyTrie_ifTheyConsistOfMoreThanTwoParts() {
+        final KeyNames names = KeyNames.of(CompiledKeySet.of(newHashSet(KEY_SHIPPING_ZIP_CODE, KEY_CUSTOMER_NUMBER,
+                        "shipping__zip", "_shipping_zip")));
+
+        final SplitKeyTrie.Node shipping = names.getSplitKeyTrie().getRoot().childOf("shipping");
+        assertThat(shipping.childOf("address").childOf("zip_code").getLookupKeys()).containsOnly(KEY_SHIPPING_ZIP_CODE);
+        assertThat(shipping.childOf("address_zip").childOf("code").getLookupKeys()).containsOnly(
+            KEY_SHIPPING_ZIP_CODE);
+        assertThat(shipping.childOf("address_zip").getLookupKeys()).isEmpty();
+        assertThat(shipping.childOf("zip")).isNull();
+        assertThat(names.getSplitKeyTrie().getRoot().childOf("customer")).isNull();
+        assertThat(names.firstPartOf(KEY_SHIPPING_ZIP_CODE)).isNull();
+        assertThat(names.getFieldNames()).containsOnly(KEY_SHIPPING_ZIP_CODE, KEY_CUSTOMER_NUMBER, "shipping__zip",
+            "_shipping_zip", "customer");
+    }
+
+    @Test
+    public void of_matchesTheCanonicalNames_ifTheNamingConventionIsIgnored() {
+        final KeyNames names = KeyNames.of(CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER,
+                        KEY_SHIPPING_ZIP_CODE, "shippingAddress_zip_code")));
+
+        assertThat(names.ignoresNamingConvention()).isTrue();
+        assertThat(names.nameOf("customerNumber")).isEqualTo("customernumber");
+        assertThat(names.nameOf("Customer-Number")).isEqualTo("customernumber");
+        assertThat(names.nameOf("customernumber")).isSameAs(names.nameOf("customernumber"));
+        assertThat(names.getFieldNames()).contains("customernumber", "customer");
+        assertThat(names.secondPartOf(KEY_CUSTOMER_NUMBER)).isEqualTo("number");
+
+        final SplitKeyTrie.Node shippingAddress = names.getSplitKeyTrie().getRoot().childOf("shippingaddress");
+        assertThat(shippingAddress.childOf("zipcode").getLookupKeys()).containsOnly(KEY_SHIPPING_ZIP_CODE,
+            "shippingAddress_zip_code");
+    }
+
+    @Test
+    public void nameOf_keepsCachingTheCanonicalNames_ifManyDistinctFieldNamesWereSeen() {
+        final KeyNames names = KeyNames.of(CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER)));
+        for (int i = 0; i < 20_000; i++) {
+            names.nameOf("field_" + i);
+        }
+
+        assertThat(names.nameOf("customerNumber")).isSameAs(names.nameOf("customerNumber"));
+    }
+
+    @Test
+    public void of_matchesTheNamesAsTheyAre_ifTheNamingConventionIsNotIgnored() {
+        final KeyNames names = KeyNames.of(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)));
+
+        assertThat(names.ignoresNamingConvention()).isFalse();
+        assertThat(names.nameOf("customerNumber")).isEqualTo("customerNumber");
+    }
+
+    @Test
+    public void of_returnsTheSameNames_ifTheSameKeySetIsProvided() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER));
+
+        assertThat(KeyNames.of(keys)).isSameAs(KeyNames.of(keys));
+    }
+}
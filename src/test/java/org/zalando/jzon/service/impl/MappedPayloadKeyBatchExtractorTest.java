@@ -0,0 +1,87 @@
+package org.zalando.jzon.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.zalando.jzon.service.CompiledKeySet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MappedPayloadKeyBatchExtractorTest {
+
+    private static final CompiledKeySet KEYS = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER));
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final StreamingPayloadKeyParser streamingPayloadKeyParser = new StreamingPayloadKeyParser(
+            new ObjectMapper());
+
+    @Test
+    public void extract_handsEveryRecordToTheSink_ifTheRecordsSpanSeveralWindows() throws IOException {
+        //J-
+        final Path file = fileOf("{\"customer_number\": 1}\n"
+                + "{\"customer\": {\"number\": \"Grüße\"}, \"size\": 27, \"items\": [1, 2, 3]}\r\n"
+                + "\n"
+                + "  \r\n"
+                + "{\"customer_number\": 3}\n"
+                + "{\"customer_number\": 5}");
+        //J+
+        final List<Long> lineNumbers = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+
+        final long recordCount = new MappedPayloadKeyBatchExtractor(streamingPayloadKeyParser, 16).extract(file, KEYS,
+                AS_VALUE_LIST, (lineNumber, knownKeyValues) -> {
+                    lineNumbers.add(lineNumber);
+                    values.add(knownKeyValues.get(KEY_CUSTOMER_NUMBER)[0]);
+                });
+
+        assertThat(recordCount).isEqualTo(4);
+        assertThat(lineNumbers).containsExactly(1L, 2L, 5L, 6L);
+        assertThat(values).containsExactly(1, "Grüße", 3, 5);
+    }
+
+    @Test
+    public void extract_handsNoValuesToTheSink_ifARecordIsNotValidJson() throws IOException {
+        final Path file = fileOf("{\"customer_number\": \n{\"customer_number\": 2}\n");
+        final List<Map<String, Object[]>> results = new ArrayList<>();
+
+        final long recordCount = new MappedPayloadKeyBatchExtractor(streamingPayloadKeyParser).extract(file, KEYS,
+                AS_VALUE_LIST, (lineNumber, knownKeyValues) -> results.add(knownKeyValues));
+
+        assertThat(recordCount).isEqualTo(2);
+        assertThat(results.get(0)).isEmpty();
+        assertThat(results.get(1).get(KEY_CUSTOMER_NUMBER)).containsExactly(2);
+    }
+
+    @Test(expected = JsonParsingException.class)
+    public void extract_throwsJsonParsingException_ifTheFileCannotBeRead() {
+        new MappedPayloadKeyBatchExtractor(streamingPayloadKeyParser).extract(temporaryFolder.getRoot().toPath()
+                .resolve("missing.ndjson"), KEYS, AS_VALUE_LIST, (lineNumber, knownKeyValues) -> { });
+    }
+
+    private Path fileOf(final String records) throws IOException {
+        final Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, records.getBytes(UTF_8));
+        return file;
+    }
+}
@@ -1,5 +1,7 @@
 package org.zalando.jzon.service.impl;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 
@@ -22,16 +24,32 @@ import static org.zalando.jzon.service.KnownKeys.KEY_LAST_NAME;
 import static org.zalando.jzon.service.KnownKeys.KEY_SIMPLE_SKU;
 import static org.zalando.jzon.service.PayloadKeyParser.AS_PATH_LIST;
 import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+import static org.zalando.jzon.service.PayloadKeyParser.FIRST_MATCH;
 import static org.zalando.jzon.service.util.CollectionUtil.firstStringValueOf;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,13 +57,18 @@ import org.junit.Test;
 
 import org.springframework.boot.test.rule.OutputCapture;
 
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.JsonLocation;
 import org.zalando.jzon.service.PayloadKeyParser;
+import org.zalando.jzon.service.PreparedPayload;
+import org.zalando.jzon.service.TypedKeyValues;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import com.google.common.collect.ImmutableMap;
 
+import net.minidev.json.JSONArray;
+
 /**
  * @author  Sina Golesorkhi(sina.golesorkhi@zalando.de)
  */
@@ -71,13 +94,46 @@ public class PayloadKeyParserTest {
         objectMapper = mock(ObjectMapper.class);
         payloadKeyParser = new DefaultPayloadKeyParser(objectMapper);
 
-        final ImmutableMap<String, Object> payload = ImmutableMap.of("customer_number", "2");
+        final Object unserializableValue = new Object();
+        final ImmutableMap<String, Object> payload = ImmutableMap.of("customer", unserializableValue);
 
-        when(objectMapper.writeValueAsString(payload)).thenThrow(JsonProcessingException.class);
+        when(objectMapper.convertValue(unserializableValue, Object.class)).thenThrow(IllegalArgumentException.class);
 
         payloadKeyParser.parse(emptySet(), emptyMap(), payload, AS_VALUE_LIST);
     }
 
+    @Test
+    public void parse_searchesTheMapInPlace_ifItContainsValuesWhichAreNotPlainJson() {
+        final List<Object> customers = newArrayList(ImmutableMap.of("number", 12L), ImmutableMap.of("number",
+                    1.5f));
+        final Map<String, Object> payload = ImmutableMap.of("customer", customers.toArray(), "size",
+                newHashSet("27"));
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIZE),
+                emptyMap(), payload, AS_VALUE_LIST);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly(12, 1.5d);
+        assertThat(resultMap.get(KEY_SIZE)).containsExactly(newArrayList("27"));
+    }
+
+    @Test
+    public void parse_returnsCopiesOfTheNestedObjectsOfTheMap_ifTheyAreFound() {
+        final Map<String, Object> customer = new HashMap<>();
+        customer.put("customer_number", "12345");
+        customer.put("sizes", newArrayList("M", "L"));
+
+        final Map<String, Object> payload = ImmutableMap.of("customer", customer);
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(newHashSet("customer", "sizes"), emptyMap(),
+                payload, AS_VALUE_LIST);
+        customer.put("customer_number", "67890");
+
+        assertThat(resultMap.get("customer")[0]).isNotSameAs(customer).isEqualTo(ImmutableMap.of("customer_number",
+                "12345", "sizes", newArrayList("M", "L")));
+        assertThat(resultMap.get("sizes")[0]).isInstanceOf(JSONArray.class);
+        assertThat(firstStringValueOf(resultMap.get("sizes"))).isEqualTo("[\"M\",\"L\"]");
+    }
+
     @Test
     public void parse_returnsCorrectValues_ifTheKeyIsAtRootOfTheJson() {
         //J-
@@ -142,6 +198,30 @@ public class PayloadKeyParserTest {
         assertThat(firstStringValueOf(resultMap.get(KEY_CUSTOMER_EMAIL))).isEqualTo("jon.doe@zalando.de");
     }
 
+    @Test
+    public void parse_usesMappedKeysForLookup_ifCompiledKeysAreProvided() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"size\": \"27\","
+                +"\"customer\": {"
+                +    "\"id\": \"12345\""
+                +    "}"
+                +"}";
+        //J+
+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIZE),
+                ImmutableMap.of(KEY_CUSTOMER_NUMBER, "customer_id"));
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST);
+        final Map<String, Object[]> resultMapOfPreparedPayload = payloadKeyParser.parse(keys,
+                payloadKeyParser.prepare(jsonPayload), AS_VALUE_LIST);
+
+        assertThat(resultMap).containsOnlyKeys(KEY_CUSTOMER_NUMBER, KEY_SIZE);
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+        assertThat(resultMapOfPreparedPayload.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+        assertThat(resultMapOfPreparedPayload.get(KEY_SIZE)).containsExactly("27");
+    }
+
     @Test
     public void parse_returnsCorrectValues_ifTheKeyIsWrappedInAnObjectOnTheSecondLevel() {
         //J-
@@ -696,6 +776,31 @@ public class PayloadKeyParserTest {
         assertEquals(expectedCustomerAddress, firstOrderItem.get(KEY_CUSTOMER_ADDRESS));
     }
 
+    @Test
+    public void parseGrouped_returnsTheGroupsInDeepScanOrder_ifGroupsAreNestedInEachOther() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"order_items\": [{"
+                +    "\"customer_number\": \"12\","
+                +    "\"customer_hash\": \"12anyStupidHash\","
+                +    "\"bundle\": {\"customer_number\": \"23\", \"customer_hash\": \"23anyStupidHash\"}"
+                +    "}, {"
+                +    "\"customer_number\": \"34\","
+                +    "\"customer_email\": \"test3@email.com\""
+                +    "}],"
+                +"\"customer_number\": \"45\","
+                +"\"customer_hash\": \"45anyStupidHash\""
+                +"}";
+        //J+
+
+        final List<Map<String, Object>> resultMap = defaultPayloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER,
+                newHashSet(KEY_CUSTOMER_HASH), newHashSet(KEY_CUSTOMER_EMAIL), jsonPayload);
+
+        assertThat(resultMap).extracting(group -> group.get(KEY_CUSTOMER_NUMBER)).containsExactly("45", "12", "23");
+        assertThat(resultMap).extracting(group -> group.get(KEY_CUSTOMER_HASH)).containsExactly("45anyStupidHash",
+            "12anyStupidHash", "23anyStupidHash");
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void parseUnique_returnsOnlyUniqueValues() {
@@ -738,6 +843,57 @@ public class PayloadKeyParserTest {
         assertThat(resultMap.get(KEY_SIZE)).containsOnly("27");
     }
 
+    @Test
+    public void parseUnique_returnsEveryDistinctValueOnce_ifTheValuesAreRepeatedManyTimes() throws IOException {
+        final StringBuilder jsonPayload = new StringBuilder("{\"order_items\": [");
+        final Object[] sizes = {"27", 42, 42.5, true, null};
+        for (int item = 0; item < 1000; item++) {
+            jsonPayload.append(item == 0 ? "" : ",").append("{\"size\": ")
+                       .append(sizes[item % sizes.length] instanceof String ? "\"27\"" : sizes[item % sizes.length])
+                       .append(", \"customer\": {\"number\": \"").append(item % 3).append("\"}}");
+        }
+
+        final Map<String, Object> payload = convertToMap(jsonPayload.append("]}").toString());
+
+        final Map<String, Set<Object>> resultMap = payloadKeyParser.parseUnique(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SIZE), emptyMap(), payload);
+        final Map<String, Set<Object>> preparedResultMap = payloadKeyParser.parseUnique(
+                CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIZE)), payloadKeyParser.prepare(payload));
+
+        final Map<String, Object[]> duplicatedResultMap = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SIZE), emptyMap(), payload, AS_VALUE_LIST);
+        for (final Map<String, Set<Object>> uniqueValues : newArrayList(resultMap, preparedResultMap)) {
+            assertThat(uniqueValues).containsOnlyKeys(KEY_CUSTOMER_NUMBER, KEY_SIZE);
+            assertThat(uniqueValues.get(KEY_CUSTOMER_NUMBER)).containsOnly("0", "1", "2");
+            assertThat(uniqueValues.get(KEY_SIZE)).hasSize(5).containsOnly(
+                new HashSet<>(Arrays.asList(duplicatedResultMap.get(KEY_SIZE))).toArray());
+            assertThat(uniqueValues.get(KEY_SIZE)).contains((Object) null);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parseUnique_returnsSetsWhichCanBeSerialized_ifTheValuesAreFound() throws Exception {
+        //J-
+        final String jsonPayload = "{\"order_items\": [{\"size\": \"M\"}, {\"size\": 42}, {\"size\": null},"
+                + "{\"size\": \"M\"}]}";
+        //J+
+
+        final Set<Object> sizes = payloadKeyParser.parseUnique(newHashSet(KEY_SIZE), emptyMap(),
+                    convertToMap(jsonPayload)).get(KEY_SIZE);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sizes);
+        }
+
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            final Object deserialized = in.readObject();
+            assertThat(deserialized).isInstanceOf(Set.class).isEqualTo(sizes);
+            assertThat((Set<Object>) deserialized).hasSize(3).containsOnly("M", 42, null);
+        }
+    }
+
     @Test
     public void parse_returnsCorrectValues_ifKnownKeyIsSplitAndNotInPayloadAsPathList() {
         //J-
@@ -757,4 +913,579 @@ public class PayloadKeyParserTest {
         assertEquals(1, resultMap.size());
     }
 
+    @Test
+    public void parse_returnsTheSameValuesForAPreparedPayload_ifItIsQueriedSeveralTimes() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"size\": \"27\","
+                +"\"customer\": {"
+                +    "\"number\": \"12345\""
+                +    "},"
+                +"\"items\": [{"
+                +    "\"simple_sku\": \"JA222H085-C11000S000\""
+                +    "},{"
+                +    "\"simple_sku\": \"BA112A01B-B11000M000\""
+                + "}]"
+                +"}";
+        //J+
+
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare(jsonPayload);
+
+        final Map<String, Object[]> values = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU),
+                emptyMap(), preparedPayload, AS_VALUE_LIST);
+        final Map<String, Object[]> paths = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU),
+                emptyMap(), preparedPayload, AS_PATH_LIST);
+
+        assertThat(values.get(KEY_CUSTOMER_NUMBER)).containsExactly(expectedCustomerNumber);
+        assertThat(values.get(KEY_SIMPLE_SKU)).containsExactly("JA222H085-C11000S000", "BA112A01B-B11000M000");
+        assertThat(paths.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['customer']['number']");
+        assertThat(paths.get(KEY_SIMPLE_SKU)).containsExactly("$['items'][0]['simple_sku']",
+            "$['items'][1]['simple_sku']");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parse_returnsTheSameValuesForAPreparedPayload_ifTheFoundObjectsAndArraysWereChanged() {
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare(
+                "{\"customer\": {\"number\": \"12345\"}, \"items\": [{\"simple_sku\": \"A\"}]}");
+
+        final Map<String, Object[]> values = payloadKeyParser.parse(newHashSet("customer", "items"), emptyMap(),
+                preparedPayload, AS_VALUE_LIST);
+        ((Map<String, Object>) values.get("customer")[0]).put("number", 99);
+        ((List<Object>) values.get("items")[0]).clear();
+
+        final Map<String, Object[]> valuesAfterChange = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SIMPLE_SKU), emptyMap(), preparedPayload, AS_VALUE_LIST);
+
+        assertThat(valuesAfterChange.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+        assertThat(valuesAfterChange.get(KEY_SIMPLE_SKU)).containsExactly("A");
+    }
+
+    @Test
+    public void parse_keepsTheIndexOfTheSplitKeysOfAPreparedPayload_ifItIsQueriedAgainWithTheSameKeys() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet("shipping_address_zip_code", KEY_SIMPLE_SKU));
+        final IndexedPayload preparedPayload = (IndexedPayload) payloadKeyParser.prepare(
+                "{\"shipping\": {\"address\": {\"zip_code\": \"10243\"}}, \"simple_sku\": \"A\"}");
+
+        final Map<String, Object[]> values = payloadKeyParser.parse(keys, preparedPayload, AS_VALUE_LIST);
+        final FieldIndex index = preparedPayload.getIndex(keys);
+
+        assertThat(payloadKeyParser.parse(keys, preparedPayload, AS_PATH_LIST).get("shipping_address_zip_code"))
+            .containsExactly("$['shipping']['address']['zip_code']");
+        assertThat(preparedPayload.getIndex(keys)).isSameAs(index);
+        assertThat(values.get("shipping_address_zip_code")).containsExactly("10243");
+    }
+
+    @Test
+    public void parse_keepsTheIndexOfAPreparedPayload_ifItIsQueriedAgainIgnoringTheNamingConvention() {
+        final CompiledKeySet keys = CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER));
+        final IndexedPayload preparedPayload = (IndexedPayload) payloadKeyParser.prepare(
+                "{\"customerNumber\": \"12345\", \"items\": [{\"CustomerNumber\": \"67890\"}]}");
+
+        final Map<String, Object[]> values = payloadKeyParser.parse(keys, preparedPayload, AS_VALUE_LIST);
+        final FieldIndex index = preparedPayload.getIndex(keys);
+
+        assertThat(payloadKeyParser.parseLocations(keys, preparedPayload).get(KEY_CUSTOMER_NUMBER)).hasSize(2);
+        assertThat(preparedPayload.getIndex(keys)).isSameAs(index);
+        assertThat(values.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345", "67890");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parseUniqueAndParseGrouped_useTheSamePreparedPayload_ifItWasPreparedFromAMap() {
+        //J-
+        final ImmutableMap<String, Object> payload =
+                ImmutableMap.of("order_items",
+                        toArray(ImmutableMap.of("customer_number", "12", "customer_hash", "12anyStupidHash"),
+                                ImmutableMap.of("customer_number", "12"),
+                                ImmutableMap.of("customer_number", "34", "customer_hash", "34anyStupidHash"))
+                        );
+        //J+
+
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare(payload);
+
+        final Map<String, Set<Object>> uniqueValues = payloadKeyParser.parseUnique(newHashSet(KEY_CUSTOMER_NUMBER),
+                emptyMap(), preparedPayload);
+        final List<Map<String, Object>> groups = payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER,
+                newHashSet(KEY_CUSTOMER_HASH), emptySet(), emptyMap(), preparedPayload);
+
+        assertThat(uniqueValues.get(KEY_CUSTOMER_NUMBER)).containsOnly("12", "34");
+        assertThat(groups).hasSize(2);
+        assertEquals("12anyStupidHash", groups.get(0).get(KEY_CUSTOMER_HASH));
+        assertEquals("34anyStupidHash", groups.get(1).get(KEY_CUSTOMER_HASH));
+    }
+
+    @Test
+    public void parse_returnsEmptyMap_ifThePreparedPayloadIsNotValidJson() {
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare("{\"customer_number\": ");
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER), emptyMap(),
+                preparedPayload, AS_VALUE_LIST);
+
+        assertThat(resultMap).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_throwsIllegalArgumentException_ifThePayloadWasNotPreparedByTheParser() {
+        payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER), emptyMap(), new PreparedPayload() { }, AS_VALUE_LIST);
+    }
+
+    @Test
+    public void parse_returnsTheSameValuesAsForTheString_ifThePayloadIsGivenAsBytes() {
+        final String jsonPayload = "{\"customer\": {\"number\": \"Grüße\"}, \"size\": 0.43649097442328655}";
+        final byte[] bytes = ("garbage" + jsonPayload + "garbage").getBytes(UTF_8);
+        final int offset = "garbage".length();
+        final int length = jsonPayload.getBytes(UTF_8).length;
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directBuffer.put(bytes).position(offset).limit(offset + length);
+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIZE));
+        final Map<String, Object[]> expectedMap = payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST);
+
+        assertThat(expectedMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("Grüße");
+        for (final Map<String, Object[]> resultMap : newArrayList(payloadKeyParser.parse(keys, bytes, offset, length,
+                        AS_VALUE_LIST), payloadKeyParser.parse(keys, directBuffer, AS_VALUE_LIST),
+                    payloadKeyParser.parse(keys, new ByteArrayInputStream(bytes, offset, length), AS_VALUE_LIST))) {
+            assertThat(resultMap).containsOnlyKeys(KEY_CUSTOMER_NUMBER, KEY_SIZE);
+            assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly(expectedMap.get(KEY_CUSTOMER_NUMBER));
+            assertThat(resultMap.get(KEY_SIZE)).containsExactly(expectedMap.get(KEY_SIZE));
+        }
+
+        assertThat(directBuffer.position()).isEqualTo(offset);
+    }
+
+    @Test
+    public void parseGrouped_readsThePreparedPayload_ifItWasPreparedFromABuffer() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"order_items\": ["
+                +    "{\"customer_number\": \"12\", \"customer_hash\": \"12anyStupidHash\"},"
+                +    "{\"customer_number\": \"34\"}"
+                +    "]"
+                +"}";
+        //J+
+
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare(ByteBuffer.wrap(jsonPayload.getBytes(UTF_8)));
+
+        final List<Map<String, Object>> groups = payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER,
+                newHashSet(KEY_CUSTOMER_HASH), emptySet(), emptyMap(), preparedPayload);
+        final Map<String, Set<Object>> uniqueValues = payloadKeyParser.parseUnique(newHashSet(KEY_CUSTOMER_NUMBER),
+                emptyMap(), preparedPayload);
+
+        assertThat(groups).hasSize(1);
+        assertEquals("12anyStupidHash", groups.get(0).get(KEY_CUSTOMER_HASH));
+        assertThat(uniqueValues.get(KEY_CUSTOMER_NUMBER)).containsOnly("12", "34");
+    }
+
+    @Test
+    public void prepare_returnsEmptyPayload_ifTheBytesAreNotValidJson() {
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare("{\"customer_number\": ".getBytes(UTF_8), 0,
+                20);
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER), emptyMap(),
+                preparedPayload, AS_VALUE_LIST);
+
+        assertThat(resultMap).isEmpty();
+    }
+
+    @Test(expected = JsonParsingException.class)
+    public void prepare_throwsJsonParsingException_ifTheStreamCannotBeRead() {
+        payloadKeyParser.prepare(new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    throw new IOException("Connection reset");
+                }
+            });
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void prepare_throwsIndexOutOfBoundsException_ifTheRangeIsNotInTheBytes() {
+        payloadKeyParser.prepare(new byte[10], 5, 6);
+    }
+
+    @Test
+    public void parse_returnsTheSameResultsAsTheSequentialParser_ifLargeArraysAreWalkedInParallel() throws Exception {
+        final List<Object> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            final Map<String, Object> item = new HashMap<>();
+            item.put(KEY_CUSTOMER_NUMBER, i);
+            item.put(KEY_CUSTOMER_HASH, "hash" + i);
+            if (i % 1000 == 0) {
+                final List<Object> nestedItems = new ArrayList<>();
+                for (int j = 0; j < 3000; j++) {
+                    nestedItems.add(ImmutableMap.of(KEY_CUSTOMER_NUMBER, i + "." + j));
+                }
+
+                item.put("items", nestedItems);
+            }
+
+            items.add(item);
+        }
+
+        final Map<String, Object> mapPayload = ImmutableMap.of("customer", ImmutableMap.of("number", "root"),
+                "order_items", items);
+        final String jsonPayload = objectMapper.writeValueAsString(mapPayload);
+        final Set<String> keys = newHashSet(KEY_CUSTOMER_NUMBER, KEY_CUSTOMER_HASH);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final PayloadKeyParser parallelPayloadKeyParser = new PayloadKeyFactory().getParallelPayloadKeyParser(
+                    objectMapper, pool, 100);
+            for (final boolean asPathList : new boolean[] { AS_VALUE_LIST, AS_PATH_LIST }) {
+                assertSameValues(parallelPayloadKeyParser.parse(keys, emptyMap(), jsonPayload, asPathList),
+                    payloadKeyParser.parse(keys, emptyMap(), jsonPayload, asPathList));
+                assertSameValues(parallelPayloadKeyParser.parse(keys, emptyMap(), mapPayload, asPathList),
+                    payloadKeyParser.parse(keys, emptyMap(), mapPayload, asPathList));
+                assertSameValues(parallelPayloadKeyParser.parse(keys, emptyMap(),
+                        parallelPayloadKeyParser.prepare(jsonPayload), asPathList),
+                    payloadKeyParser.parse(keys, emptyMap(), payloadKeyParser.prepare(jsonPayload), asPathList));
+            }
+
+            assertThat(parallelPayloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, newHashSet(KEY_CUSTOMER_HASH),
+                    emptySet(), emptyMap(), parallelPayloadKeyParser.prepare(jsonPayload))).isEqualTo(
+                payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, newHashSet(KEY_CUSTOMER_HASH), emptySet(),
+                    emptyMap(), payloadKeyParser.prepare(jsonPayload)));
+            assertThat(parallelPayloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER, newHashSet(KEY_CUSTOMER_HASH),
+                    emptySet(), emptyMap(), mapPayload)).isEqualTo(payloadKeyParser.parseGrouped(KEY_CUSTOMER_NUMBER,
+                    newHashSet(KEY_CUSTOMER_HASH), emptySet(), emptyMap(), mapPayload));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameValues(final Map<String, Object[]> resultMap,
+            final Map<String, Object[]> expectedMap) {
+        assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+        for (final String key : expectedMap.keySet()) {
+            assertThat(resultMap.get(key)).containsExactly(expectedMap.get(key));
+        }
+    }
+
+    @Test
+    public void parse_handsTheValuesToTheSink_inTheOrderParseReturnsThem() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customerNumber\": \"root\","
+                +"\"items\": [{\"customerNumber\": \"nested\"}],"
+                +"\"simple\": {\"sku\": [\"A\", \"B\"]}"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU),
+                ImmutableMap.of(KEY_CUSTOMER_NUMBER, "customerNumber"));
+        final Map<String, List<Object>> values = new HashMap<>();
+        final Map<String, List<String>> paths = new HashMap<>();
+
+        payloadKeyParser.parse(keys, jsonPayload, AS_PATH_LIST, (key, path, value) -> {
+                values.computeIfAbsent(key, name -> new ArrayList<>()).add(value);
+                paths.computeIfAbsent(key, name -> new ArrayList<>()).add(path);
+            });
+
+        assertThat(values).containsOnlyKeys(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU);
+        assertThat(values.get(KEY_CUSTOMER_NUMBER)).containsExactly(
+            payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST).get(KEY_CUSTOMER_NUMBER));
+        assertThat(values.get(KEY_SIMPLE_SKU)).containsExactly("A", "B");
+        assertThat(paths.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['customerNumber']",
+            "$['items'][0]['customerNumber']");
+        assertThat(paths.get(KEY_SIMPLE_SKU)).containsExactly("$['simple']['sku'][0]", "$['simple']['sku'][1]");
+    }
+
+    @Test
+    public void parse_handsTheExactMatchesToTheSinkWhileWalking_andTheSplitMatchesAfterwards() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customer\": {\"number\": \"split\"},"
+                +"\"items\": [{\"simple_sku\": \"A\", \"order_id\": \"1\"},"
+                +           "{\"simple_sku\": \"B\", \"order_id\": \"2\"}]"
+                +"}";
+        //J+
+        final List<String> matches = new ArrayList<>();
+
+        payloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_SIMPLE_SKU, "order_id", KEY_CUSTOMER_NUMBER)),
+            jsonPayload, AS_VALUE_LIST, (key, path, value) -> matches.add(key + "=" + value));
+
+        assertThat(matches).containsExactly("simple_sku=A", "order_id=1", "simple_sku=B", "order_id=2",
+            "customer_number=split");
+    }
+
+    @Test
+    public void parse_handsNoPathsToTheSink_ifPathsAreNotAskedFor() throws IOException {
+        final List<String> paths = new ArrayList<>();
+
+        payloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)),
+            convertToMap("{\"customer_number\": \"12\"}"), AS_VALUE_LIST, (key, path, value) -> paths.add(path));
+
+        assertThat(paths).containsExactly((String) null);
+    }
+
+    @Test
+    public void parse_returnsOnlyTheFirstValues_ifTheMatchesAreLimited() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"items\": [{\"customer_number\": \"first item\"}, {\"customer_number\": \"second item\"}],"
+                +"\"customer_number\": \"root\""
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER));
+
+        assertThat(payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST, FIRST_MATCH).get(KEY_CUSTOMER_NUMBER))
+            .containsExactly("root");
+        assertThat(payloadKeyParser.parse(keys, jsonPayload, AS_PATH_LIST, 2).get(KEY_CUSTOMER_NUMBER)).containsExactly(
+            "$['customer_number']", "$['items'][0]['customer_number']");
+        assertThat(payloadKeyParser.parse(keys, payloadKeyParser.prepare(jsonPayload), AS_VALUE_LIST, 5).get(
+                KEY_CUSTOMER_NUMBER)).containsExactly("root", "first item", "second item");
+    }
+
+    @Test
+    public void parse_stopsWalkingThePayload_ifEveryKeyHasBeenFoundOftenEnough() {
+        final Map<String, Object> unreadable = new LinkedHashMap<String, Object>() {
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                throw new IllegalStateException("The payload is walked too far");
+            }
+        };
+        final Map<String, Object> jsonPayload = new LinkedHashMap<>();
+        jsonPayload.put("order", ImmutableMap.of(KEY_CUSTOMER_NUMBER, "12345"));
+        jsonPayload.put("items", newArrayList(unreadable));
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(
+                CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)), jsonPayload, AS_VALUE_LIST, FIRST_MATCH);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+    }
+
+    @Test
+    public void parse_returnsTheFirstValuesOfTheSplitKey_ifTheExactKeyIsFoundNowhere() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"items\": [{\"simple\": {\"sku\": [\"A\", \"B\"]}}, {\"simple\": {\"sku\": \"C\"}}]"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_SIMPLE_SKU)),
+                jsonPayload, AS_VALUE_LIST, 2);
+
+        assertThat(resultMap.get(KEY_SIMPLE_SKU)).containsExactly("A", "B");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_throwsIllegalArgumentException_ifMaxMatchesIsNotPositive() {
+        payloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)), "{}", AS_VALUE_LIST, 0);
+    }
+
+    @Test
+    public void parse_findsEveryNamingConventionInOnePass_ifTheNamingConventionIsIgnored() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customerNumber\": \"1\","
+                +"\"orders\": [{\"CustomerNumber\": \"2\"}, {\"customer-number\": \"3\"}],"
+                +"\"billingAddress\": {\"Customer\": {\"Number\": \"4\"}}"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER,
+                    "billing_address_customer_number"));
+
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST);
+        final Map<String, Object[]> pathMap = payloadKeyParser.parse(keys, payloadKeyParser.prepare(jsonPayload),
+                AS_PATH_LIST);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("1", "2", "3");
+        assertThat(resultMap.get("billing_address_customer_number")).containsExactly("4");
+        assertThat(pathMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['customerNumber']",
+            "$['orders'][0]['CustomerNumber']", "$['orders'][1]['customer-number']");
+        assertThat(payloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)), jsonPayload,
+                AS_VALUE_LIST)).isEmpty();
+    }
+
+    @Test
+    public void parse_resolvesTheSplitKeyRegardlessOfTheNamingConvention_ifTheNamingConventionIsIgnored() {
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(CompiledKeySet.ignoringNamingConvention(
+                    newHashSet(KEY_CUSTOMER_NUMBER)), "{\"order\": {\"Customer\": {\"Number\": \"5\"}}}",
+                AS_PATH_LIST);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['order']['Customer']['Number']");
+    }
+
+    @Test
+    public void parseLazily_returnsTheSameValuesAsParse_ifTheKeysAreRead() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customer\": {\"number\": \"12345\", \"hash\": \"abc\"},"
+                +"\"items\": [{\"sku\": \"A\"}, {\"sku\": \"B\"}]"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU, KEY_SIZE),
+                ImmutableMap.of(KEY_SIMPLE_SKU, "sku"));
+
+        final Map<String, Object[]> lazyMap = payloadKeyParser.parseLazily(keys, jsonPayload, AS_VALUE_LIST);
+        final Map<String, Object[]> resultMap = payloadKeyParser.parse(keys, jsonPayload, AS_VALUE_LIST);
+
+        assertThat(lazyMap.get(KEY_SIMPLE_SKU)).containsExactly("A", "B");
+        assertThat(lazyMap.get(KEY_SIMPLE_SKU)).isSameAs(lazyMap.get(KEY_SIMPLE_SKU));
+        assertThat(lazyMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+        assertThat(lazyMap.get(KEY_SIZE)).isNull();
+        assertThat(lazyMap.get("sku")).isNull();
+        assertThat(lazyMap).containsOnlyKeys(resultMap.keySet().toArray(new String[0]));
+        assertThat(payloadKeyParser.parseLazily(keys, payloadKeyParser.prepare(jsonPayload), AS_PATH_LIST).get(
+                KEY_CUSTOMER_NUMBER)).containsExactly("$['customer']['number']");
+    }
+
+    @Test
+    public void parseLazily_doesNotWalkThePayload_ifNoKeyIsRead() {
+        final Map<String, Object> unreadable = new LinkedHashMap<String, Object>() {
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                throw new IllegalStateException("The payload is walked without a key being read");
+            }
+        };
+
+        final Map<String, Object[]> lazyMap = payloadKeyParser.parseLazily(
+                CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)), ImmutableMap.of("order", unreadable),
+                AS_VALUE_LIST);
+
+        assertThat(lazyMap.get(KEY_SIZE)).isNull();
+    }
+
+    @Test
+    public void parseLocations_returnsThePathsOfParseAsLocationsSharingTheirPrefix() throws IOException {
+        //J-
+        final String jsonPayload = "{"
+                +"\"items\": [{\"simple_sku\": \"JA222H085-C11000S000\", \"size\": \"M\"}, {\"size\": 42}],"
+                +"\"customer\": {\"number\": \"12345\"}"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_SIMPLE_SKU, KEY_SIZE, KEY_CUSTOMER_NUMBER));
+
+        final Map<String, JsonLocation[]> locations = payloadKeyParser.parseLocations(keys, jsonPayload);
+        final Map<String, Object[]> paths = payloadKeyParser.parse(keys, jsonPayload, AS_PATH_LIST);
+
+        assertThat(locations).containsOnlyKeys(KEY_SIMPLE_SKU, KEY_SIZE, KEY_CUSTOMER_NUMBER);
+        for (final Map.Entry<String, JsonLocation[]> keyLocations : locations.entrySet()) {
+            assertThat(Stream.of(keyLocations.getValue()).map(JsonLocation::toString).toArray()).containsExactly(
+                paths.get(keyLocations.getKey()));
+        }
+
+        final JsonLocation sku = locations.get(KEY_SIMPLE_SKU)[0];
+        assertThat(sku.getFieldName()).isEqualTo(KEY_SIMPLE_SKU);
+        assertThat(sku.getDepth()).isEqualTo(3);
+        assertThat(sku.getParent().getIndex()).isEqualTo(0);
+        assertThat(sku.getParent().getParent().getFieldName()).isEqualTo("items");
+        assertThat(sku.getParent()).isSameAs(locations.get(KEY_SIZE)[0].getParent());
+        assertThat(locations.get(KEY_CUSTOMER_NUMBER)[0].getParent().getFieldName()).isEqualTo("customer");
+        assertThat(payloadKeyParser.parseLocations(keys, convertToMap(jsonPayload)).get(KEY_SIZE)).containsExactly(
+            locations.get(KEY_SIZE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void readPaths_returnsTheValueOfEveryFoundPath_ifThePathsAreReadInOneWalk() throws IOException {
+        //J-
+        final String jsonPayload = "{"
+                +"\"items\": [{\"simple_sku\": \"JA222H085-C11000S000\", \"size\": \"M\"}, {\"size\": 42}],"
+                +"\"customer\": {\"number\": \"12345\"}"
+                +"}";
+        //J+
+        final Object[] sizePaths = payloadKeyParser.parse(newHashSet(KEY_SIZE), emptyMap(), jsonPayload,
+                AS_PATH_LIST).get(KEY_SIZE);
+        final List<String> paths = newArrayList("$['items'][0]['simple_sku']", "$.customer.number",
+                "$['customer']['number']", "$['items'][5]['size']", "$['customer']['number']['digits']", "$..size",
+                "$['items'][0]");
+        for (final Object sizePath : sizePaths) {
+            paths.add((String) sizePath);
+        }
+
+        for (final Map<String, Object> values : newArrayList(payloadKeyParser.readPaths(paths, jsonPayload),
+                    payloadKeyParser.readPaths(paths, convertToMap(jsonPayload)),
+                    payloadKeyParser.readPaths(paths, payloadKeyParser.prepare(jsonPayload)))) {
+            assertThat(values).containsOnlyKeys("$['items'][0]['simple_sku']", "$.customer.number",
+                "$['customer']['number']", "$..size", "$['items'][0]", "$['items'][0]['size']",
+                "$['items'][1]['size']");
+            assertEquals("JA222H085-C11000S000", values.get("$['items'][0]['simple_sku']"));
+            assertEquals("12345", values.get("$.customer.number"));
+            assertEquals("12345", values.get("$['customer']['number']"));
+            assertEquals("M", values.get("$['items'][0]['size']"));
+            assertEquals(42, values.get("$['items'][1]['size']"));
+            assertThat((List<Object>) values.get("$..size")).containsExactly("M", 42);
+            assertThat((Map<String, Object>) values.get("$['items'][0]")).containsEntry(KEY_SIMPLE_SKU,
+                "JA222H085-C11000S000");
+        }
+    }
+
+    @Test
+    public void parseTyped_keepsTheValuesByTheirType_ifTheyAreScalars() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"total\": 10,"
+                +"\"items\": [{\"total\": 2.5, \"size\": \"M\"}, {\"total\": [1, 2], \"size\": 42}],"
+                +"\"customer\": {\"number\": [12345, \"67890\"]}"
+                +"}";
+        //J+
+
+        final TypedKeyValues values = payloadKeyParser.parseTyped(CompiledKeySet.of(newHashSet("total", KEY_SIZE,
+                        KEY_CUSTOMER_NUMBER)), jsonPayload);
+
+        assertThat(values.getLongs("total")).containsExactly(10L);
+        assertThat(values.getDoubles("total")).containsExactly(10d, 2.5d);
+        assertThat(values.getStrings(KEY_SIZE)).containsExactly("M");
+        assertThat(values.getLongs(KEY_SIZE)).containsExactly(42L);
+        assertThat(values.getLongs(KEY_CUSTOMER_NUMBER)).containsExactly(12345L);
+        assertThat(values.getStrings(KEY_CUSTOMER_NUMBER)).containsExactly("67890");
+        assertThat(values.getDoubles("unknown")).isEmpty();
+    }
+
+    @Test
+    public void parseLongs_returnsTheIntegralNumbersOfTheKey_ifTheKeyIsFound() {
+        final String jsonPayload = "{\"items\": [{\"quantity\": 2}, {\"quantity\": 3}, {\"quantity\": \"4\"}]}";
+
+        assertThat(payloadKeyParser.parseLongs("quantity", jsonPayload)).containsExactly(2L, 3L);
+        assertThat(payloadKeyParser.parseDoubles("quantity", jsonPayload)).containsExactly(2d, 3d);
+        assertThat(payloadKeyParser.parseStrings("quantity", jsonPayload)).containsExactly("4");
+    }
+
+    @Test
+    public void parseLongs_returnsTheSameNumbersForEveryPayloadType_ifTheKeyIsFound() throws IOException {
+        final String jsonPayload = "{\"items\": [{\"quantity\": 2}, {\"quantity\": 3.5}, {\"quantity\": \"4\"}]}";
+        final byte[] bytes = ("[" + jsonPayload + "]").getBytes(UTF_8);
+        final PreparedPayload preparedPayload = payloadKeyParser.prepare(jsonPayload);
+
+        assertThat(payloadKeyParser.parseLongs("quantity", convertToMap(jsonPayload))).containsExactly(2L);
+        assertThat(payloadKeyParser.parseLongs("quantity", preparedPayload)).containsExactly(2L);
+        assertThat(payloadKeyParser.parseLongs("quantity", bytes, 1, bytes.length - 2)).containsExactly(2L);
+        assertThat(payloadKeyParser.parseDoubles("quantity", convertToMap(jsonPayload))).containsExactly(2d, 3.5d);
+        assertThat(payloadKeyParser.parseDoubles("quantity", preparedPayload)).containsExactly(2d, 3.5d);
+        assertThat(payloadKeyParser.parseDoubles("quantity", bytes, 1, bytes.length - 2)).containsExactly(2d, 3.5d);
+        assertThat(payloadKeyParser.parseStrings("quantity", convertToMap(jsonPayload))).containsExactly("4");
+        assertThat(payloadKeyParser.parseStrings("quantity", preparedPayload)).containsExactly("4");
+        assertThat(payloadKeyParser.parseStrings("quantity", bytes, 1, bytes.length - 2)).containsExactly("4");
+    }
+
+    @Test
+    public void parseTyped_returnsNoValues_ifThePayloadIsNotValidJson() {
+        final TypedKeyValues values = payloadKeyParser.parseTyped(CompiledKeySet.of(newHashSet(KEY_SIZE)),
+                "{\"size\": 42");
+
+        assertThat(values.getLongs(KEY_SIZE)).isEmpty();
+    }
+
+    @Test
+    public void parseAll_returnsTheValuesOfEachPayloadInOrder_ifThePayloadsAreParsedInParallel() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER));
+        final List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            payloads.add(i % 2 == 0 ? "{\"customer_number\": " + i + "}" : "{\"customer\": {\"number\": " + i + "}}");
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<Map<String, Object[]>> resultMaps = payloadKeyParser.parseAll(keys, payloads, AS_VALUE_LIST,
+                    pool);
+
+            assertThat(resultMaps).hasSize(100);
+            for (int i = 0; i < 100; i++) {
+                assertThat(resultMaps.get(i).get(KEY_CUSTOMER_NUMBER)).containsExactly(i);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,152 @@
+package org.zalando.jzon.service.impl;
+
+import static java.util.function.UnaryOperator.identity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.KnownKeys.KEY_SIMPLE_SKU;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_PATH_LIST;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+
+import net.minidev.json.JSONArray;
+
+public class SinglePassKeyResolverTest {
+
+    private static final String KEY_SHIPPING_ZIP_CODE = "shipping_address_zip_code";
+
+    //J-
+    private static final String NESTED_PAYLOAD = "{"
+            +"\"items\": [{"
+            +    "\"customer_number\": \"nested\""
+            +    "}],"
+            +"\"customer_number\": \"root\","
+            +"\"customer\": {"
+            +    "\"number\": \"split\""
+            +    "}"
+            +"}";
+    //J+
+
+    @Test
+    public void resolve_returnsTheSameValuesAsADeepScan_ifTheKeyIsFoundOnSeveralLevels() {
+        final Object document = parse(NESTED_PAYLOAD);
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_CUSTOMER_NUMBER),
+                document, identity(), AS_VALUE_LIST);
+
+        final Object[] deepScanResult = JsonPath.<JSONArray>read(document, "$..customer_number")
+                                                .toArray();
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly(deepScanResult).containsExactly("root",
+            "nested");
+    }
+
+    @Test
+    public void resolve_returnsTheSamePathsAsADeepScan_ifTheKeyIsFoundOnSeveralLevels() {
+        final Object document = parse(NESTED_PAYLOAD);
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_CUSTOMER_NUMBER),
+                document, identity(), AS_PATH_LIST);
+
+        final Object[] deepScanResult = JsonPath.using(Configuration.builder().options(Option.AS_PATH_LIST).build())
+                                                .parse(document).<JSONArray>read("$..customer_number")
+                                                .toArray();
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly(deepScanResult).containsExactly(
+            "$['customer_number']", "$['items'][0]['customer_number']");
+    }
+
+    @Test
+    public void resolve_resolvesAllKeysInOneCall_ifSomeAreExactAndSomeAreSplit() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customer\": {"
+                +    "\"number\": \"12345\""
+                +    "},"
+                +"\"items\": [{"
+                +    "\"simple_sku\": \"JA222H085-C11000S000\""
+                +    "},{"
+                +    "\"simple_sku\": \"BA112A01B-B11000M000\""
+                + "}]"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SIMPLE_SKU), parse(jsonPayload), identity(), AS_PATH_LIST);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['customer']['number']");
+        assertThat(resultMap.get(KEY_SIMPLE_SKU)).containsExactly("$['items'][0]['simple_sku']",
+            "$['items'][1]['simple_sku']");
+    }
+
+    @Test
+    public void resolve_flattensTheValuesOfTheSecondPart_ifTheyAreArraysInsideTheFirstPart() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"simple\": {"
+                +    "\"sku\": [\"JA222H085-C11000S000\", \"BA112A01B-B11000M000\"]"
+                +    "}"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_SIMPLE_SKU),
+                parse(jsonPayload), identity(), AS_VALUE_LIST);
+
+        assertThat(resultMap.get(KEY_SIMPLE_SKU)).containsExactly("JA222H085-C11000S000", "BA112A01B-B11000M000");
+    }
+
+    @Test
+    public void resolve_findsEverySplitOfAKey_ifTheKeyConsistsOfMoreThanTwoParts() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"shipping\": {\"address\": {\"zip_code\": \"10115\"}},"
+                +"\"parcels\": [{"
+                +    "\"shipping_address\": [{\"zip\": {\"code\": \"10243\"}}]"
+                +    "}, {"
+                +    "\"shipping\": {\"address_zip_code\": \"10405\"}"
+                +    "}]"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_SHIPPING_ZIP_CODE),
+                parse(jsonPayload), identity(), AS_PATH_LIST);
+
+        assertThat(resultMap.get(KEY_SHIPPING_ZIP_CODE)).containsExactly("$['shipping']['address']['zip_code']",
+            "$['parcels'][0]['shipping_address'][0]['zip']['code']", "$['parcels'][1]['shipping']['address_zip_code']");
+    }
+
+    @Test
+    public void resolve_returnsOnlyTheExactKey_ifAKeyOfMoreThanTwoPartsIsFoundAsSuch() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"shipping\": {\"address\": {\"zip_code\": \"10115\"}},"
+                +"\"parcels\": [{\"shipping_address_zip_code\": \"10243\"}]"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_SHIPPING_ZIP_CODE),
+                parse(jsonPayload), identity(), AS_VALUE_LIST);
+
+        assertThat(resultMap.get(KEY_SHIPPING_ZIP_CODE)).containsExactly("10243");
+    }
+
+    @Test
+    public void resolve_returnsNoEntry_ifNeitherTheKeyNorItsSplitFormIsFound() {
+        final Map<String, Object[]> resultMap = SinglePassKeyResolver.resolve(newHashSet(KEY_SIMPLE_SKU),
+                parse(NESTED_PAYLOAD), identity(), AS_VALUE_LIST);
+
+        assertThat(resultMap).isEmpty();
+    }
+
+    private static Object parse(final String jsonPayload) {
+        return Configuration.defaultConfiguration().jsonProvider().parse(jsonPayload);
+    }
+}
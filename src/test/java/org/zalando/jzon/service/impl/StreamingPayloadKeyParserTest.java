@@ -0,0 +1,454 @@
+package org.zalando.jzon.service.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static java.util.Collections.emptyMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.zalando.jzon.service.KnownKeys.KEY_CUSTOMER_NUMBER;
+import static org.zalando.jzon.service.KnownKeys.KEY_SIMPLE_SKU;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_PATH_LIST;
+import static org.zalando.jzon.service.PayloadKeyParser.AS_VALUE_LIST;
+import static org.zalando.jzon.service.PayloadKeyParser.FIRST_MATCH;
+import static org.zalando.jzon.service.util.CollectionUtil.firstStringValueOf;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.math.BigDecimal;
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import org.zalando.jzon.service.CompiledKeySet;
+import org.zalando.jzon.service.TypedKeyValues;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.minidev.json.JSONArray;
+
+public class StreamingPayloadKeyParserTest {
+
+    //J-
+    private static final String NESTED_PAYLOAD = "{"
+            +"\"items\": [{"
+            +    "\"customer_number\": \"nested\","
+            +    "\"simple\": {\"sku\": [\"A\", \"B\"]}"
+            +    "}, {"
+            +    "\"simple\": {\"sku\": \"C\"}"
+            +    "}],"
+            +"\"customer_number\": \"root\","
+            +"\"total\": 0.43649097442328655,"
+            +"\"customer\": {"
+            +    "\"number\": \"split\""
+            +    "}"
+            +"}";
+    //J+
+
+    private static final Set<String> KEYS = newHashSet(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU, "total", "customer");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingPayloadKeyParser streamingPayloadKeyParser = new StreamingPayloadKeyParser(objectMapper);
+    private final DefaultPayloadKeyParser defaultPayloadKeyParser = new DefaultPayloadKeyParser(objectMapper);
+
+    @Test
+    public void parse_returnsTheSameValuesAsTheDefaultParser_ifKeysAreFoundOnSeveralLevels() {
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(KEYS, NESTED_PAYLOAD, AS_VALUE_LIST);
+
+        final Map<String, Object[]> expectedMap = defaultPayloadKeyParser.parse(KEYS, NESTED_PAYLOAD, AS_VALUE_LIST);
+        assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+        for (final String key : expectedMap.keySet()) {
+            assertThat(resultMap.get(key)).containsExactly(expectedMap.get(key));
+        }
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("root", "nested");
+        assertThat(resultMap.get(KEY_SIMPLE_SKU)).containsExactly("A", "B", "C");
+        assertThat(resultMap.get("total")).containsExactly(new BigDecimal("0.43649097442328655"));
+    }
+
+    @Test
+    public void parse_returnsTheSamePathsAsTheDefaultParser_ifKeysAreFoundOnSeveralLevels() {
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(KEYS, NESTED_PAYLOAD, AS_PATH_LIST);
+
+        final Map<String, Object[]> expectedMap = defaultPayloadKeyParser.parse(KEYS, NESTED_PAYLOAD, AS_PATH_LIST);
+        assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+        for (final String key : expectedMap.keySet()) {
+            assertThat(resultMap.get(key)).containsExactly(expectedMap.get(key));
+        }
+
+        assertThat(resultMap.get(KEY_SIMPLE_SKU)).containsExactly("$['items'][0]['simple']['sku']",
+            "$['items'][1]['simple']['sku']");
+    }
+
+    @Test
+    public void parse_returnsObjectsAndArraysAsTheDefaultParser_ifTheyAreFound() {
+        final Set<String> keys = newHashSet("items", "customer");
+
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(keys, NESTED_PAYLOAD, AS_VALUE_LIST);
+
+        final Map<String, Object[]> expectedMap = defaultPayloadKeyParser.parse(keys, NESTED_PAYLOAD, AS_VALUE_LIST);
+        assertThat(resultMap.get("items")[0]).isInstanceOf(JSONArray.class).hasToString(expectedMap.get("items")[0]
+                .toString());
+        assertThat(resultMap.get("customer")[0]).isInstanceOf(LinkedHashMap.class).hasToString(expectedMap.get(
+                "customer")[0].toString());
+        assertThat(firstStringValueOf(resultMap.get("items"))).startsWith("[{\"customer_number\":\"nested\",");
+    }
+
+    @Test
+    public void parse_readsOnlyTheFirstValue_ifThePayloadIsFollowedByFurtherText() {
+        for (final String jsonPayload : Arrays.asList("{\"a\": 1}{\"a\": 2}", "{\"a\": 1} trailing",
+                    "[{\"a\": 1}] [{\"a\": 2}]")) {
+            final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet("a"), jsonPayload,
+                    AS_VALUE_LIST);
+
+            assertThat(resultMap.get("a")).as(jsonPayload).containsExactly(1);
+            assertThat(defaultPayloadKeyParser.parse(newHashSet("a"), jsonPayload, AS_VALUE_LIST).get("a"))
+                .as(jsonPayload).containsExactly(1);
+        }
+    }
+
+    @Test
+    public void parse_returnsTheSameValuesAsTheDefaultParser_ifThePayloadIsLenient() {
+        for (final String jsonPayload : Arrays.asList("{\"a\": 1,}", "{\"a\": [1, 2,]}", "{\"a\": 01}",
+                    "{\"a\": -01.5}", "{\"a\": NaN}", "{\"a\": -Infinity}", "{\"a\": 1e400}", "{'a': 'x'}",
+                    "{a: 1}")) {
+            final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet("a"), jsonPayload,
+                    AS_VALUE_LIST);
+
+            final Object[] expectedValues = defaultPayloadKeyParser.parse(newHashSet("a"), jsonPayload,
+                        AS_VALUE_LIST).get("a");
+            assertThat(resultMap.get("a")).as(jsonPayload).hasSize(1).containsExactly(expectedValues);
+            assertThat(resultMap.get("a")[0]).as(jsonPayload).isExactlyInstanceOf(expectedValues[0].getClass());
+        }
+    }
+
+    @Test
+    public void parse_returnsTheValuesOfEveryOccurrence_ifAFieldAppearsTwiceInAnObject() {
+        final String jsonPayload = "{\"a\": true, \"a\": false}";
+
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet("a"), jsonPayload,
+                AS_VALUE_LIST);
+
+        assertThat(resultMap.get("a")).containsExactly(true, false);
+        assertThat(defaultPayloadKeyParser.parse(newHashSet("a"), jsonPayload, AS_VALUE_LIST).get("a"))
+            .containsExactly(false);
+    }
+
+    @Test
+    public void parse_returnsAnEmptyMap_ifThePayloadHasValuesWhichAreNotJson() {
+        for (final String jsonPayload : Arrays.asList("{a: b}", "{\"a\": [,1]}", "{\"a\": 1 /* one */}",
+                    "{\"a\": .5}", "{\"a\": 0x10}")) {
+            final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet("a"), jsonPayload,
+                    AS_VALUE_LIST);
+
+            assertThat(resultMap).as(jsonPayload).isEmpty();
+            assertThat(defaultPayloadKeyParser.parse(newHashSet("a"), jsonPayload, AS_VALUE_LIST)).as(jsonPayload)
+                .containsKey("a");
+        }
+    }
+
+    @Test
+    public void parse_readsTheChildrenOfTheFirstPart_ifNotAllOfItsValuesContainTheSecondPart() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customer\": ["
+                +    "{\"number\": 1},"
+                +    "{\"name\": \"none\"},"
+                +    "{\"number\": 2}"
+                +    "]"
+                +"}";
+        //J+
+
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER),
+                jsonPayload, AS_PATH_LIST);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("$['customer'][0]['number']",
+            "$['customer'][2]['number']");
+    }
+
+    @Test
+    public void parse_returnsTheSameValuesAsForTheString_ifThePayloadIsGivenAsBytes() throws IOException {
+        final CompiledKeySet keys = CompiledKeySet.of(KEYS);
+        final byte[] bytes = NESTED_PAYLOAD.getBytes(UTF_8);
+        final ByteBuffer directBuffer = ByteBuffer.allocateDirect(bytes.length);
+        directBuffer.put(bytes).flip();
+
+        final AtomicBoolean closed = new AtomicBoolean();
+        final InputStream inputStream = new ByteArrayInputStream(bytes) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        final Map<String, Object[]> expectedMap = streamingPayloadKeyParser.parse(keys, NESTED_PAYLOAD, AS_VALUE_LIST);
+
+        for (final Map<String, Object[]> resultMap : Arrays.asList(
+                    streamingPayloadKeyParser.parse(keys, bytes, 0, bytes.length, AS_VALUE_LIST),
+                    streamingPayloadKeyParser.parse(keys, directBuffer, AS_VALUE_LIST),
+                    streamingPayloadKeyParser.parse(keys, inputStream, AS_VALUE_LIST))) {
+            assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+            for (final String key : expectedMap.keySet()) {
+                assertThat(resultMap.get(key)).containsExactly(expectedMap.get(key));
+            }
+        }
+
+        assertThat(closed.get()).isFalse();
+    }
+
+    @Test
+    public void parseAll_returnsTheValuesOfEachPayloadInOrder_ifThePayloadsAreParsedInParallel() {
+        final CompiledKeySet keys = CompiledKeySet.of(KEYS);
+        final List<String> payloads = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            switch (i % 4) {
+
+                case 0 :
+                    payloads.add(NESTED_PAYLOAD);
+                    break;
+
+                case 1 :
+                    payloads.add("{\"customer\": {\"number\": " + i + "}}");
+                    break;
+
+                case 2 :
+                    payloads.add("{\"customer_number\": " + i);
+                    break;
+
+                default :
+                    payloads.add("{\"simple_sku\": " + i + ", \"items\": [{\"total\": " + i + "}]}");
+            }
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final List<Map<String, Object[]>> resultMaps : Arrays.asList(
+                        streamingPayloadKeyParser.parseAll(keys, payloads, AS_VALUE_LIST, pool),
+                        streamingPayloadKeyParser.parseAll(keys,
+                            Spliterators.spliteratorUnknownSize(payloads.iterator(), Spliterator.ORDERED),
+                            AS_VALUE_LIST, pool))) {
+                assertThat(resultMaps).hasSameSizeAs(payloads);
+                for (int i = 0; i < payloads.size(); i++) {
+                    final Map<String, Object[]> expectedMap = streamingPayloadKeyParser.parse(keys, payloads.get(i),
+                            AS_VALUE_LIST);
+                    final Map<String, Object[]> resultMap = resultMaps.get(i);
+                    assertThat(resultMap).containsOnlyKeys(expectedMap.keySet().toArray(new String[0]));
+                    for (final String key : expectedMap.keySet()) {
+                        assertThat(resultMap.get(key)).containsExactly(expectedMap.get(key));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parse_handsTheSameMatchesToTheSinkAsTheDefaultParser_ifKeysAreFoundOnSeveralLevels() {
+        final CompiledKeySet keys = CompiledKeySet.of(KEYS);
+        final Map<String, List<String>> matches = new HashMap<>();
+        final Map<String, List<String>> expectedMatches = new HashMap<>();
+
+        streamingPayloadKeyParser.parse(keys, NESTED_PAYLOAD, AS_PATH_LIST, (key, path, value) ->
+                matches.computeIfAbsent(key, name -> new ArrayList<>()).add(path + " " + value));
+        defaultPayloadKeyParser.parse(keys, NESTED_PAYLOAD, AS_PATH_LIST, (key, path, value) ->
+                expectedMatches.computeIfAbsent(key, name -> new ArrayList<>()).add(path + " " + value));
+
+        assertThat(matches).isEqualTo(expectedMatches);
+        assertThat(matches.get(KEY_SIMPLE_SKU)).contains("$['items'][0]['simple']['sku'][1] B");
+    }
+
+    @Test
+    public void parse_handsNoMatchesToTheSink_ifPayloadIsNotValidJson() {
+        final List<String> matches = new ArrayList<>();
+
+        streamingPayloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)),
+            "{\"customer_number\": \"12345\", \"customer\"", AS_VALUE_LIST, (key, path, value) -> matches.add(key));
+
+        assertThat(matches).isEmpty();
+    }
+
+    @Test
+    public void parse_handsTheMatchesOfAnElementToTheSink_ifTheFollowingElementsAreNotValidJson() {
+        final List<String> matches = new ArrayList<>();
+
+        streamingPayloadKeyParser.parse(CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)),
+            "[{\"customer\": {\"customer_number\": \"2\"}, \"customer_number\": \"1\"}, {\"customer_number\"",
+            AS_VALUE_LIST, (key, path, value) -> matches.add(value.toString()));
+
+        assertThat(matches).containsExactly("1", "2");
+    }
+
+    @Test
+    public void parse_handsOnlyTheExactMatchesToTheSink_ifTheSplitKeyIsFoundInALaterElement() {
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER));
+        final String jsonPayload = "[{\"customer_number\": \"1\"}, {\"customer\": {\"number\": \"2\"}}]";
+        final List<String> matches = new ArrayList<>();
+        final List<String> expectedMatches = new ArrayList<>();
+
+        streamingPayloadKeyParser.parse(keys, jsonPayload, AS_PATH_LIST, (key, path, value) -> matches.add(path));
+        defaultPayloadKeyParser.parse(keys, jsonPayload, AS_PATH_LIST, (key, path, value) ->
+                expectedMatches.add(path));
+
+        assertThat(matches).isEqualTo(expectedMatches).containsExactly("$[0]['customer_number']");
+    }
+
+    @Test
+    public void parse_returnsTheSameFirstValuesAsTheDefaultParser_ifTheMatchesAreLimited() {
+        final CompiledKeySet keys = CompiledKeySet.of(KEYS);
+
+        for (final boolean asPathList : new boolean[] {AS_PATH_LIST, AS_VALUE_LIST}) {
+            final Map<String, Object[]> expected = defaultPayloadKeyParser.parse(keys, NESTED_PAYLOAD, asPathList,
+                    FIRST_MATCH);
+
+            final Map<String, Object[]> actual = streamingPayloadKeyParser.parse(keys, NESTED_PAYLOAD, asPathList,
+                    FIRST_MATCH);
+
+            assertThat(actual).containsOnlyKeys(expected.keySet());
+            expected.forEach((key, values) -> assertThat(actual.get(key)).containsExactly(values));
+        }
+    }
+
+    @Test
+    public void parse_stopsReadingThePayload_ifEveryKeyHasBeenFoundInTheRootObject() {
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(
+                CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)), "{\"customer_number\": \"12345\", \"items\": [",
+                AS_VALUE_LIST, FIRST_MATCH);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("12345");
+    }
+
+    @Test
+    public void parse_readsTheWholeRootObject_ifTheFirstMatchIsNested() {
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(
+                CompiledKeySet.of(newHashSet(KEY_CUSTOMER_NUMBER)),
+                "{\"order\": {\"customer_number\": \"nested\"}, \"customer_number\": \"root\"}", AS_VALUE_LIST,
+                FIRST_MATCH);
+
+        assertThat(resultMap.get(KEY_CUSTOMER_NUMBER)).containsExactly("root");
+    }
+
+    @Test
+    public void parse_returnsTheSameSplitsAsTheDefaultParser_ifAKeyConsistsOfMoreThanTwoParts() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"parcels\": [{"
+                +    "\"shipping_address\": [{\"zip\": {\"code\": \"10243\"}}]"
+                +    "}, {"
+                +    "\"shipping\": {\"address_zip_code\": \"10405\"}"
+                +    "}],"
+                +"\"shipping\": {\"address\": {\"zip_code\": \"10115\"}}"
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.of(newHashSet("shipping_address_zip_code"));
+
+        for (final boolean asPathList : new boolean[] {AS_PATH_LIST, AS_VALUE_LIST}) {
+            final Map<String, Object[]> expected = defaultPayloadKeyParser.parse(keys, jsonPayload, asPathList);
+
+            final Map<String, Object[]> actual = streamingPayloadKeyParser.parse(keys, jsonPayload, asPathList);
+
+            assertThat(actual.get("shipping_address_zip_code")).hasSize(3).containsExactly(
+                expected.get("shipping_address_zip_code"));
+        }
+    }
+
+    @Test
+    public void parse_returnsTheSameMatchesAsTheDefaultParser_ifTheNamingConventionIsIgnored() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"customerNumber\": \"1\","
+                +"\"orders\": [{\"Customer-Number\": \"2\"}, {\"CUSTOMER\": {\"Number\": \"3\"}}],"
+                +"\"shippingAddress\": {\"zipCode\": \"10115\"},"
+                +"\"simple-sku\": \"ABC123\""
+                +"}";
+        //J+
+        final CompiledKeySet keys = CompiledKeySet.ignoringNamingConvention(newHashSet(KEY_CUSTOMER_NUMBER,
+                    KEY_SIMPLE_SKU, "customer_id", "customer_type", "shipping_address_zip_code"));
+
+        for (final boolean asPathList : new boolean[] {AS_PATH_LIST, AS_VALUE_LIST}) {
+            final Map<String, Object[]> expected = defaultPayloadKeyParser.parse(keys, jsonPayload, asPathList);
+
+            final Map<String, Object[]> actual = streamingPayloadKeyParser.parse(keys, jsonPayload, asPathList);
+
+            assertThat(actual).containsOnlyKeys(KEY_CUSTOMER_NUMBER, KEY_SIMPLE_SKU, "shipping_address_zip_code");
+            for (final String key : expected.keySet()) {
+                assertThat(actual.get(key)).containsExactly(expected.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void parseTyped_returnsTheSameValuesAsTheDefaultParser_ifTheValuesAreDecodedFromTheTokens() {
+        //J-
+        final String jsonPayload = "{"
+                +"\"total\": 10,"
+                +"\"items\": [{\"total\": 2.5, \"size\": \"M\"}, {\"total\": 12345678901234567890}],"
+                +"\"customer\": {\"number\": [12345, \"67890\", {\"id\": 1}]},"
+                +"\"size\": {\"eu\": 42}"
+                +"}";
+        //J+
+        final Set<String> keys = newHashSet("total", "size", KEY_CUSTOMER_NUMBER);
+        final CompiledKeySet compiledKeys = CompiledKeySet.of(keys);
+
+        final TypedKeyValues expected = defaultPayloadKeyParser.parseTyped(compiledKeys, jsonPayload);
+
+        final TypedKeyValues actual = streamingPayloadKeyParser.parseTyped(compiledKeys, jsonPayload);
+
+        for (final String key : keys) {
+            assertThat(actual.getLongs(key)).containsExactly(expected.getLongs(key));
+            assertThat(actual.getDoubles(key)).containsExactly(expected.getDoubles(key));
+            assertThat(actual.getStrings(key)).containsExactly(expected.getStrings(key));
+        }
+
+        assertThat(actual.getDoubles("total")).containsExactly(10d, 2.5d, 12345678901234567890d);
+        assertThat(actual.getLongs(KEY_CUSTOMER_NUMBER)).containsExactly(12345L);
+    }
+
+    @Test
+    public void parseTyped_returnsTheSameValuesAsForTheString_ifThePayloadIsGivenAsBytes() {
+        final Set<String> keys = newHashSet("total", KEY_CUSTOMER_NUMBER);
+        final byte[] bytes = (" " + NESTED_PAYLOAD + " ").getBytes(UTF_8);
+
+        final TypedKeyValues expected = streamingPayloadKeyParser.parseTyped(CompiledKeySet.of(keys), NESTED_PAYLOAD);
+
+        final TypedKeyValues actual = streamingPayloadKeyParser.parseTyped(CompiledKeySet.of(keys), bytes, 1,
+                bytes.length - 2);
+
+        for (final String key : keys) {
+            assertThat(actual.getDoubles(key)).containsExactly(expected.getDoubles(key));
+            assertThat(actual.getStrings(key)).containsExactly(expected.getStrings(key));
+        }
+
+        assertThat(streamingPayloadKeyParser.parseStrings(KEY_CUSTOMER_NUMBER, bytes, 1, bytes.length - 2))
+            .containsExactly("root", "nested");
+    }
+
+    @Test
+    public void parse_returnsEmptyResult_ifPayloadIsNotValidJson() {
+        final Map<String, Object[]> resultMap = streamingPayloadKeyParser.parse(newHashSet(KEY_CUSTOMER_NUMBER),
+                emptyMap(), "{\"customer_number\": \"12345\"", AS_VALUE_LIST);
+
+        assertThat(resultMap).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_throwsIllegalArgumentException_ifKeyIsBlank() {
+        streamingPayloadKeyParser.parse(newHashSet(" "), emptyMap(), NESTED_PAYLOAD, AS_VALUE_LIST);
+    }
+}